@@ -0,0 +1,137 @@
+package club.hazsi.classified.bench;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The classes the benchmarks run against, read from the runtime image of the JDK running the benchmarks through the
+ * {@code jrt:} filesystem, so no corpus has to be downloaded or checked in. The classes are sorted by name and sampled
+ * evenly, so the same JDK always yields the same corpus; results are only comparable between runs on the same JDK.
+ * <br><br>
+ *
+ * Each {@link Bucket} stresses a different part of the parser. Buckets are read once per JVM and shared by every
+ * benchmark of a fork.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class BenchCorpus {
+    private static final int MAX_BUCKET_SIZE = 2000;
+    private static final Map<Bucket, byte[][]> BUCKETS = new EnumMap<>(Bucket.class);
+
+    private BenchCorpus() {
+    }
+
+    /**
+     * The kinds of classes of the corpus
+     */
+    public enum Bucket {
+
+        /**
+         * Classes of less than 1 KB, such as small records, interfaces and lambdas' enclosing helpers. Dominated by the
+         * fixed cost of every parse.
+         */
+        SMALL,
+
+        /**
+         * Classes of 32 KB or more, with many members and long methods. Dominated by member and attribute parsing.
+         */
+        HUGE,
+
+        /**
+         * Classes of 2 KB or more whose constant pool makes up at least 85% of their bytes, such as charsets and
+         * resource bundles. Dominated by constant pool indexing and string decoding.
+         */
+        POOL_HEAVY;
+
+        private boolean contains(byte[] classBytes) {
+            switch (this) {
+                case SMALL:
+                    return classBytes.length < 1024;
+                case HUGE:
+                    return classBytes.length >= 32 * 1024;
+                default:
+                    if (classBytes.length < 2048) return false;
+
+                    final ClassConstantPool constantPool = ClassFile.fromBytes(classBytes,
+                            ParseOptions.of(ParseLevel.HEADER)).getAttributes().getConstantPool();
+                    return constantPool.getLength() >= classBytes.length * 0.85;
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes of up to 2000 classes of a bucket, sampled evenly from every module of the runtime image.
+     *
+     * @param bucket The bucket to return
+     * @return The class bytes, which must not be modified
+     * @throws UncheckedIOException If the runtime image could not be read
+     */
+    public static synchronized byte[][] load(Bucket bucket) {
+        return BUCKETS.computeIfAbsent(bucket, BenchCorpus::read);
+    }
+
+    /**
+     * Parses every class of a bucket.
+     *
+     * @param bucket The bucket to parse
+     * @param parseOptions The options to parse the classes with
+     * @return The parsed classes, in the same order as {@link #load(Bucket)}
+     */
+    public static ClassFile[] parse(Bucket bucket, ParseOptions parseOptions) {
+        final byte[][] classes = load(bucket);
+        final ClassFile[] classFiles = new ClassFile[classes.length];
+
+        for (int index = 0; index < classes.length; index++) {
+            classFiles[index] = ClassFile.fromBytes(classes[index].clone(), parseOptions);
+        }
+
+        return classFiles;
+    }
+
+    private static byte[][] read(Bucket bucket) {
+        final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        final List<byte[]> matching = new ArrayList<>();
+        long totalSize = 0;
+
+        try (Stream<Path> files = Files.walk(jrt.getPath("/modules"))) {
+            final List<Path> classPaths = files.filter(path -> path.toString().endsWith(".class"))
+                    .filter(path -> !path.getFileName().toString().equals("module-info.class"))
+                    .sorted().collect(Collectors.toList());
+
+            for (Path classPath : classPaths) {
+                final byte[] classBytes = Files.readAllBytes(classPath);
+                if (bucket.contains(classBytes)) matching.add(classBytes);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("could not read the runtime image", exception);
+        }
+
+        final int stride = Math.max(1, (matching.size() + MAX_BUCKET_SIZE - 1) / MAX_BUCKET_SIZE);
+        final byte[][] sample = new byte[(matching.size() + stride - 1) / stride][];
+
+        for (int index = 0; index < sample.length; index++) {
+            sample[index] = matching.get(index * stride);
+            totalSize += sample[index].length;
+        }
+
+        System.out.printf("# Corpus %s: %d classes, %d bytes%n", bucket, sample.length, totalSize);
+        return sample;
+    }
+}
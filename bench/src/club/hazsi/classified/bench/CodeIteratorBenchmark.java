@@ -0,0 +1,122 @@
+package club.hazsi.classified.bench;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.classes.components.attribute.CodeAttribute;
+import club.hazsi.classified.classes.components.code.CodeIterator;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTableEntry;
+import club.hazsi.classified.util.ByteUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares walking bytecode with a {@link CodeIterator} against a plain loop reading every byte of the same code,
+ * which is the upper bound for any instruction walk. Every invocation walks the code of the next method of the
+ * bucket; the secondary {@code bytes} score gives the bytecode throughput in bytes per second, which is the number to
+ * compare between the two benchmarks. Run with {@code -prof gc} to check that the iterator allocates nothing.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodeIteratorBenchmark {
+    @Param({"SMALL", "HUGE", "POOL_HEAVY"})
+    public BenchCorpus.Bucket bucket;
+
+    private final CodeIterator iterator = new CodeIterator();
+    private ByteBuffer[] buffers;
+    private int[] codeOffsets;
+    private int[] codeLengths;
+    private int next;
+
+    /**
+     * Counts the bytecode walked, reported by JMH as a secondary throughput score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final List<CodeAttribute> codes = new ArrayList<>();
+
+        for (ClassFile classFile : BenchCorpus.parse(this.bucket, ParseOptions.of(ParseLevel.FULL))) {
+            for (ClassMethodTableEntry method : classFile.getAttributes().getMethodTable().getMethods()) {
+                final CodeAttribute code = method.getCode();
+                if (code != null) codes.add(code);
+            }
+        }
+
+        this.buffers = new ByteBuffer[codes.size()];
+        this.codeOffsets = new int[codes.size()];
+        this.codeLengths = new int[codes.size()];
+
+        for (int index = 0; index < codes.size(); index++) {
+            this.buffers[index] = codes.get(index).getClassBuffer();
+            this.codeOffsets[index] = codes.get(index).getCodeOffset();
+            this.codeLengths[index] = codes.get(index).getCodeLength();
+        }
+    }
+
+    private int nextIndex() {
+        final int index = this.next;
+        if (++this.next == this.buffers.length) this.next = 0;
+        return index;
+    }
+
+    @Benchmark
+    public long codeIterator(Throughput throughput) {
+        final int index = this.nextIndex();
+        final CodeIterator iterator = this.iterator.reset(this.buffers[index], this.codeOffsets[index],
+                this.codeLengths[index]);
+        long sum = 0;
+
+        while (iterator.next()) sum += iterator.getOpcode() + iterator.getLength();
+
+        throughput.bytes += this.codeLengths[index];
+        return sum;
+    }
+
+    @Benchmark
+    public long rawScan(Throughput throughput) {
+        final int index = this.nextIndex();
+        final ByteBuffer buffer = this.buffers[index];
+        final int codeOffset = this.codeOffsets[index];
+        final int codeEnd = codeOffset + this.codeLengths[index];
+        long sum = 0;
+
+        for (int offset = codeOffset; offset < codeEnd; offset++) sum += ByteUtil.readByte(buffer, offset);
+
+        throughput.bytes += this.codeLengths[index];
+        return sum;
+    }
+}
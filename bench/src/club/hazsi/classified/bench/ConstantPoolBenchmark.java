@@ -0,0 +1,132 @@
+package club.hazsi.classified.bench;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures access to the constant pool of already parsed classes. Every invocation walks the whole pool of the next
+ * class of the bucket, so the score is in pools per second.
+ *
+ * <ul>
+ *     <li>{@link #typedAccessors()} reads tags and indexes through the primitive accessors, which never allocate</li>
+ *     <li>{@link #decodeUtf8(Blackhole)} decodes every UTF-8 entry of a freshly parsed class, so strings are never
+ *     cached; subtract the {@code HEADER} score of {@link ParseBenchmark} to get the decoding cost alone</li>
+ *     <li>{@link #cachedUtf8(Blackhole)} reads every UTF-8 entry again, once they were all decoded</li>
+ *     <li>{@link #findUtf8()} looks up common names by value</li>
+ * </ul>
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConstantPoolBenchmark {
+    private static final int CLASS = ClassConstantPoolEntryType.CLASS.getValue();
+    private static final int UTF8 = ClassConstantPoolEntryType.UTF8.getValue();
+    private static final int REF_TAGS = 1 << ClassConstantPoolEntryType.FIELD_REF.getValue() |
+            1 << ClassConstantPoolEntryType.METHOD_REF.getValue() |
+            1 << ClassConstantPoolEntryType.INTERFACE_METHOD_REF.getValue();
+    private static final String[] COMMON_NAMES = {"java/lang/Object", "<init>", "Code", "()V", "java/lang/String",
+            "toString", "hashCode", "LineNumberTable", "this", "absent/from/Every/Pool"};
+    private static final ParseOptions HEADER = ParseOptions.of(ParseLevel.HEADER);
+
+    @Param({"SMALL", "HUGE", "POOL_HEAVY"})
+    public BenchCorpus.Bucket bucket;
+
+    private byte[][] classes;
+    private ClassConstantPool[] constantPools;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        this.classes = BenchCorpus.load(this.bucket);
+
+        final ClassFile[] classFiles = BenchCorpus.parse(this.bucket, HEADER);
+        this.constantPools = new ClassConstantPool[classFiles.length];
+
+        for (int index = 0; index < classFiles.length; index++) {
+            final ClassConstantPool constantPool = classFiles[index].getAttributes().getConstantPool();
+
+            for (int entryIndex = 1; entryIndex < constantPool.getCount(); entryIndex++) {
+                if (constantPool.getTag(entryIndex) == UTF8) constantPool.getUtf8(entryIndex);
+            }
+
+            this.constantPools[index] = constantPool;
+        }
+    }
+
+    private int nextIndex() {
+        final int index = this.next;
+        if (++this.next == this.classes.length) this.next = 0;
+        return index;
+    }
+
+    @Benchmark
+    public long typedAccessors() {
+        final ClassConstantPool constantPool = this.constantPools[this.nextIndex()];
+        long sum = 0;
+
+        for (int index = 1; index < constantPool.getCount(); index++) {
+            final int tag = constantPool.getTag(index);
+
+            if (tag == CLASS) {
+                sum += constantPool.getClassNameIndex(index);
+            } else if ((REF_TAGS & (1 << tag)) != 0) {
+                sum += constantPool.getRefOwner(index) + constantPool.getRefNameAndType(index);
+            } else {
+                sum += tag;
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public void decodeUtf8(Blackhole blackhole) {
+        final ClassConstantPool constantPool = ClassFile.fromBytes(this.classes[this.nextIndex()], HEADER)
+                .getAttributes().getConstantPool();
+
+        for (int index = 1; index < constantPool.getCount(); index++) {
+            if (constantPool.getTag(index) == UTF8) blackhole.consume(constantPool.getUtf8(index));
+        }
+    }
+
+    @Benchmark
+    public void cachedUtf8(Blackhole blackhole) {
+        final ClassConstantPool constantPool = this.constantPools[this.nextIndex()];
+
+        for (int index = 1; index < constantPool.getCount(); index++) {
+            if (constantPool.getTag(index) == UTF8) blackhole.consume(constantPool.getUtf8(index));
+        }
+    }
+
+    @Benchmark
+    public int findUtf8() {
+        final ClassConstantPool constantPool = this.constantPools[this.nextIndex()];
+        int sum = 0;
+
+        for (String name : COMMON_NAMES) sum += constantPool.findUtf8(name);
+        return sum;
+    }
+}
@@ -0,0 +1,120 @@
+package club.hazsi.classified.bench;
+
+import club.hazsi.classified.classes.ClassAttributes;
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.fieldtable.ClassFieldTableEntry;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTable;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTableEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterating over and looking up the fields and methods of already parsed classes. Every invocation visits
+ * every member of the next class of the bucket, so the score is in classes per second.
+ *
+ * <ul>
+ *     <li>{@link #iterate()} reads the access flags and indexes of every member</li>
+ *     <li>{@link #resolveNames(Blackhole)} resolves the name and descriptor strings of every member</li>
+ *     <li>{@link #lookupMethods()} finds every method again through the member index, by name and descriptor</li>
+ *     <li>{@link #parseDescriptors(Blackhole)} parses the descriptor of every method, which is cached per pool</li>
+ * </ul>
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MemberBenchmark {
+    @Param({"SMALL", "HUGE", "POOL_HEAVY"})
+    public BenchCorpus.Bucket bucket;
+
+    private ClassAttributes[] classes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final ClassFile[] classFiles = BenchCorpus.parse(this.bucket, ParseOptions.of(ParseLevel.MEMBERS));
+        this.classes = new ClassAttributes[classFiles.length];
+
+        for (int index = 0; index < classFiles.length; index++) this.classes[index] = classFiles[index].getAttributes();
+    }
+
+    private ClassAttributes nextClass() {
+        final ClassAttributes attributes = this.classes[this.next];
+        if (++this.next == this.classes.length) this.next = 0;
+        return attributes;
+    }
+
+    @Benchmark
+    public long iterate() {
+        final ClassAttributes attributes = this.nextClass();
+        long sum = 0;
+
+        for (ClassFieldTableEntry field : attributes.getFieldTable().getFields()) {
+            sum += field.getAccessFlags() + field.getNameIndex() + field.getDescriptorIndex();
+        }
+
+        for (ClassMethodTableEntry method : attributes.getMethodTable().getMethods()) {
+            sum += method.getAccessFlags() + method.getNameIndex() + method.getDescriptorIndex();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public void resolveNames(Blackhole blackhole) {
+        final ClassAttributes attributes = this.nextClass();
+        final ClassConstantPool constantPool = attributes.getConstantPool();
+
+        for (ClassFieldTableEntry field : attributes.getFieldTable().getFields()) {
+            blackhole.consume(constantPool.getUtf8(field.getNameIndex()));
+            blackhole.consume(constantPool.getUtf8(field.getDescriptorIndex()));
+        }
+
+        for (ClassMethodTableEntry method : attributes.getMethodTable().getMethods()) {
+            blackhole.consume(constantPool.getUtf8(method.getNameIndex()));
+            blackhole.consume(constantPool.getUtf8(method.getDescriptorIndex()));
+        }
+    }
+
+    @Benchmark
+    public int lookupMethods() {
+        final ClassMethodTable methodTable = this.nextClass().getMethodTable();
+        final List<ClassMethodTableEntry> methods = methodTable.getMethods();
+        int found = 0;
+
+        for (int index = 0; index < methods.size(); index++) {
+            final ClassMethodTableEntry method = methods.get(index);
+            if (methodTable.getMethod(method.getNameIndex(), method.getDescriptorIndex()) != null) found++;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    public void parseDescriptors(Blackhole blackhole) {
+        for (ClassMethodTableEntry method : this.nextClass().getMethodTable().getMethods()) {
+            blackhole.consume(method.getMethodDescriptor());
+        }
+    }
+}
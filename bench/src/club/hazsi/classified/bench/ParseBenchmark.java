@@ -0,0 +1,57 @@
+package club.hazsi.classified.bench;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ClassFile#fromBytes(byte[], ParseOptions)} at every {@link ParseLevel}. Every invocation parses the
+ * next class of the bucket, so the score is in classes per second.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+    @Param({"SMALL", "HUGE", "POOL_HEAVY"})
+    public BenchCorpus.Bucket bucket;
+
+    @Param({"HEADER", "MEMBERS", "FULL"})
+    public ParseLevel level;
+
+    private byte[][] classes;
+    private ParseOptions parseOptions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        this.classes = BenchCorpus.load(this.bucket);
+        this.parseOptions = ParseOptions.of(this.level);
+    }
+
+    @Benchmark
+    public ClassFile fromBytes() {
+        final byte[] classBytes = this.classes[this.next];
+        if (++this.next == this.classes.length) this.next = 0;
+
+        return ClassFile.fromBytes(classBytes, this.parseOptions);
+    }
+}
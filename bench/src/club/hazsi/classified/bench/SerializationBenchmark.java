@@ -0,0 +1,151 @@
+package club.hazsi.classified.bench;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.classes.components.attribute.CodeAttribute;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTableEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing modified classes back to bytes, and reading patched bytes back in. Only classes with at least one
+ * method with code are used. Every invocation handles the next class of the bucket, so the score is in classes per
+ * second.
+ *
+ * <ul>
+ *     <li>{@link #rewriteOneMethod()} changes the access flags of one method and refreshes the class bytes, which
+ *     copies everything else in bulk</li>
+ *     <li>{@link #rewriteEveryMethod()} changes every method, so every method is encoded</li>
+ *     <li>{@link #incrementalReparse()} alternates the class bytes between the original class and a copy with one
+ *     patched method through {@link ClassFile#setRawBytes(byte[])}, as a hot-reload loop does</li>
+ *     <li>{@link #reparseFromScratch()} parses the patched copy from scratch, for comparison</li>
+ * </ul>
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+    private static final ParseOptions FULL = ParseOptions.of(ParseLevel.FULL);
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    @Param({"SMALL", "HUGE", "POOL_HEAVY"})
+    public BenchCorpus.Bucket bucket;
+
+    private ClassFile[] classes;
+    private byte[][] originals;
+    private byte[][] patched;
+    private long invocations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final List<ClassFile> classes = new ArrayList<>();
+        final List<byte[]> originals = new ArrayList<>();
+        final List<byte[]> patched = new ArrayList<>();
+
+        for (byte[] classBytes : BenchCorpus.load(this.bucket)) {
+            final byte[] patchedBytes = patch(classBytes);
+            if (patchedBytes == null) continue;
+
+            classes.add(ClassFile.fromBytes(classBytes.clone(), FULL));
+            originals.add(classBytes);
+            patched.add(patchedBytes);
+        }
+
+        this.classes = classes.toArray(new ClassFile[0]);
+        this.originals = originals.toArray(new byte[0][]);
+        this.patched = patched.toArray(new byte[0][]);
+    }
+
+    /**
+     * @return A copy of the class whose middle method with code has a different {@code max_stack}, or {@code null} if
+     * no method of the class has code
+     */
+    private static byte[] patch(byte[] classBytes) {
+        final ClassFile copy = ClassFile.fromBytes(classBytes.clone(), FULL);
+        final List<ClassMethodTableEntry> methods = copy.getAttributes().getMethodTable().getMethods();
+
+        for (int offset = 0; offset < methods.size(); offset++) {
+            final ClassMethodTableEntry method = methods.get((methods.size() / 2 + offset) % methods.size());
+
+            for (AttributeInfo attribute : method.getAttributeInfos()) {
+                if (!attribute.getName().equals(CodeAttribute.NAME)) continue;
+
+                final ByteBuffer payload = attribute.getPayload();
+                final byte[] patchedPayload = new byte[payload.remaining()];
+                payload.get(patchedPayload);
+                patchedPayload[1] ^= 1;     // The low byte of max_stack
+
+                attribute.setPayload(patchedPayload);
+                return copy.getRawBytes();
+            }
+        }
+
+        return null;
+    }
+
+    private int nextIndex() {
+        final int index = this.next;
+        if (++this.next == this.classes.length) this.next = 0;
+        return index;
+    }
+
+    @Benchmark
+    public byte[] rewriteOneMethod() {
+        final ClassFile classFile = this.classes[this.nextIndex()];
+        final List<ClassMethodTableEntry> methods = classFile.getAttributes().getMethodTable().getMethods();
+        final ClassMethodTableEntry method = methods.get(methods.size() / 2);
+
+        method.setAccessFlags(method.getAccessFlags() ^ ACC_SYNTHETIC);
+        return classFile.getRawBytes();
+    }
+
+    @Benchmark
+    public byte[] rewriteEveryMethod() {
+        final ClassFile classFile = this.classes[this.nextIndex()];
+
+        for (ClassMethodTableEntry method : classFile.getAttributes().getMethodTable().getMethods()) {
+            method.setAccessFlags(method.getAccessFlags() ^ ACC_SYNTHETIC);
+        }
+
+        return classFile.getRawBytes();
+    }
+
+    @Benchmark
+    public ClassFile incrementalReparse() {
+        final int index = this.nextIndex();
+        final ClassFile classFile = this.classes[index];
+
+        // Each class alternates between its two versions, whichever order the classes come in
+        classFile.setRawBytes((this.invocations++ / this.classes.length & 1) == 0 ? this.patched[index] :
+                this.originals[index]);
+        return classFile;
+    }
+
+    @Benchmark
+    public ClassFile reparseFromScratch() {
+        return ClassFile.fromBytes(this.patched[this.nextIndex()], FULL);
+    }
+}
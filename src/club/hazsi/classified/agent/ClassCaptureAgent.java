@@ -0,0 +1,179 @@
+package club.hazsi.classified.agent;
+
+import club.hazsi.classified.classes.ClassFile;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An optional {@code java.lang.instrument} agent which records the bytes of every class as it is defined, so that
+ * {@link ClassFile#fromJVM(Class)} can introspect classes which have no class file to read back: classes generated at
+ * runtime (proxies, bytecode generated by frameworks) and classes whose bytes were transformed by other agents. With
+ * the agent installed, looking up the bytes of a class is an in-memory lookup.<br><br>
+ *
+ * The agent is installed by starting the JVM with {@code -javaagent:classified.jar[=prefixes]}, by attaching to a
+ * running JVM, or by calling {@link #install(Instrumentation, String)} from another agent. The JAR must declare this
+ * class as its {@code Premain-Class} and {@code Agent-Class}. The optional argument is a comma separated list of
+ * internal name prefixes, such as {@code com/example/,org/acme/}, limiting which classes are captured; by default,
+ * every class defined after the agent is installed is captured, which retains roughly as much heap as the class files
+ * take on disk.<br><br>
+ *
+ * Limitations, all of which come from what the JVM shows to agents:
+ *
+ * <ul>
+ *     <li>Classes defined before the agent was installed are not captured, as most of the JDK is when attaching to a
+ *     running JVM.</li>
+ *     <li>Hidden classes, such as lambda proxies and classes defined through
+ *     {@link java.lang.invoke.MethodHandles.Lookup#defineHiddenClass}, are not passed to transformers (as of Java 17),
+ *     so they are not captured, and their bytes cannot be obtained at all.</li>
+ *     <li>Transformers run in the order they were registered, so the captured bytes include the changes of agents
+ *     installed before this one, but not of agents installed after it.</li>
+ * </ul>
+ *
+ * Captured bytes are kept per defining loader, which is only weakly referenced: all the bytes captured from a loader
+ * are dropped once that loader is garbage collected, and are no longer included in {@link #getCapturedCount()} and
+ * {@link #getCapturedSize()}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ClassCaptureAgent implements ClassFileTransformer {
+    private static final Map<ClassLoader, Map<String, byte[]>> CAPTURED = new WeakHashMap<>();    // Guarded by itself
+    private static final Map<String, byte[]> CAPTURED_BY_BOOTSTRAP = new ConcurrentHashMap<>();  // Its loader is null
+    private static volatile boolean installed;
+
+    private final String[] prefixes;    // Empty to capture every class
+
+    private ClassCaptureAgent(String[] prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * The entry point of the agent when the JVM is started with {@code -javaagent}.
+     *
+     * @param arguments The internal name prefixes of the classes to capture, comma separated, or {@code null} to
+     *                  capture every class
+     * @param instrumentation The instrumentation of the JVM
+     */
+    public static void premain(String arguments, Instrumentation instrumentation) {
+        install(instrumentation, arguments);
+    }
+
+    /**
+     * The entry point of the agent when it is attached to a running JVM, see {@link #premain(String, Instrumentation)}.
+     */
+    public static void agentmain(String arguments, Instrumentation instrumentation) {
+        install(instrumentation, arguments);
+    }
+
+    /**
+     * Starts capturing the bytes of classes as they are defined or redefined. Installing the agent more than once has
+     * no effect.
+     *
+     * @param instrumentation The instrumentation of the JVM
+     * @param prefixes The internal name prefixes of the classes to capture, comma separated, or {@code null} to
+     *                 capture every class
+     */
+    public static synchronized void install(Instrumentation instrumentation, String prefixes) {
+        if (installed) return;
+
+        final String[] parsedPrefixes = prefixes == null || prefixes.isBlank() ? new String[0] :
+                Arrays.stream(prefixes.split(",")).map(String::trim).filter(prefix -> !prefix.isEmpty())
+                        .map(prefix -> prefix.replace('.', '/')).toArray(String[]::new);
+
+        instrumentation.addTransformer(new ClassCaptureAgent(parsedPrefixes), false);
+        installed = true;
+    }
+
+    /**
+     * @return Whether the agent was installed in this JVM
+     */
+    public static boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * Returns the bytes a class was defined with, as captured by the agent.
+     *
+     * @param clazz A loaded class
+     * @return A copy of the captured bytes, or {@code null} if the agent is not installed or did not capture the class
+     */
+    public static byte[] getCapturedBytes(Class<?> clazz) {
+        if (!installed || clazz.isHidden()) return null;     // A hidden class could only match its namesake
+
+        final Map<String, byte[]> captures = capturedBy(clazz.getClassLoader(), false);
+        final byte[] classBytes = captures == null ? null : captures.get(clazz.getName().replace('.', '/'));
+        return classBytes == null ? null : classBytes.clone();
+    }
+
+    /**
+     * @return The amount of classes whose bytes are currently held by the agent
+     */
+    public static int getCapturedCount() {
+        int count = CAPTURED_BY_BOOTSTRAP.size();
+
+        synchronized (CAPTURED) {
+            for (Map<String, byte[]> captures : CAPTURED.values()) count += captures.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The total size of the bytes currently held by the agent
+     */
+    public static long getCapturedSize() {
+        long size = sizeOf(CAPTURED_BY_BOOTSTRAP);
+
+        synchronized (CAPTURED) {
+            for (Map<String, byte[]> captures : CAPTURED.values()) size += sizeOf(captures);
+        }
+
+        return size;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (className == null || !this.isCaptured(className)) return null;
+
+        // Redefining a class replaces its previous bytes. The JVM owns the buffer, so it is copied.
+        capturedBy(loader, true).put(className, classfileBuffer.clone());
+        return null;    // The class is never modified
+    }
+
+    /**
+     * @param loader A defining loader, {@code null} for the bootstrap loader
+     * @param create Whether to add an empty map for the loader if none exists yet
+     * @return The bytes captured from the loader by internal name, or {@code null} if there are none and
+     * {@code create} is false
+     */
+    private static Map<String, byte[]> capturedBy(ClassLoader loader, boolean create) {
+        if (loader == null) return CAPTURED_BY_BOOTSTRAP;
+
+        synchronized (CAPTURED) {   // Also drops the maps of collected loaders
+            return create ? CAPTURED.computeIfAbsent(loader, key -> new ConcurrentHashMap<>()) : CAPTURED.get(loader);
+        }
+    }
+
+    private static long sizeOf(Map<String, byte[]> captures) {
+        long size = 0;
+        for (byte[] classBytes : captures.values()) size += classBytes.length;
+        return size;
+    }
+
+    private boolean isCaptured(String className) {
+        if (this.prefixes.length == 0) return true;
+
+        for (String prefix : this.prefixes) {
+            if (className.startsWith(prefix)) return true;
+        }
+
+        return false;
+    }
+}
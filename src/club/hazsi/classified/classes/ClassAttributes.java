@@ -1,49 +1,419 @@
 package club.hazsi.classified.classes;
 
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.classes.components.ClassAccessFlags;
 import club.hazsi.classified.classes.components.ClassInterfaceTable;
 import club.hazsi.classified.classes.components.ClassMajorVersion;
+import club.hazsi.classified.classes.components.ClassMemberEntry;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
 import club.hazsi.classified.classes.components.fieldtable.ClassFieldTable;
+import club.hazsi.classified.classes.components.fieldtable.ClassFieldTableEntry;
 import club.hazsi.classified.classes.components.methodtable.ClassMethodTable;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTableEntry;
+import club.hazsi.classified.classes.metrics.ClassOperation;
+import club.hazsi.classified.classes.metrics.Instrumentation;
+import club.hazsi.classified.classes.metrics.OperationRecorder;
+import club.hazsi.classified.classes.metrics.ParsePhase;
+import club.hazsi.classified.util.ByteUtil;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 
 // TODO javadoc, getters
 public final class ClassAttributes {
+    private static final int CLASS_TAG = 1 << ClassConstantPoolEntryType.CLASS.getValue();
+    private static final int UTF8_TAG = 1 << ClassConstantPoolEntryType.UTF8.getValue();
 
     private final ClassFile parentClass;
+    private final ParseOptions parseOptions;
 
     private final int minorVersion;
     private final ClassMajorVersion majorVersion;
     private final ClassConstantPool constantPool;
-    private final ClassInterfaceTable interfaceTable;
+    private int accessFlags;
+    private int thisClassIndex;
+    private int superClassIndex;
+    private ClassInterfaceTable interfaceTable;
     private final ClassFieldTable fieldTable;
     private final ClassMethodTable methodTable;
+    private final ArrayList<AttributeInfo> attributeInfos = new ArrayList<>();
 
-    public ClassAttributes(byte[] classBytes, ClassFile parentClass) {
-        int offset = 0;
+    private ByteBuffer classBuffer;     // The buffer the class was read from, or last written to
+    private int headerOffset;           // The offset of the access flags, directly after the constant pool
+    private int fieldTableOffset;
+    private int attributesOffset;       // The offset of the class attribute count, or -1 below ParseLevel.MEMBERS
+
+    public ClassAttributes(ByteBuffer classBuffer, ClassFile parentClass) {
+        this(classBuffer, parentClass, ParseOptions.DEFAULT);
+    }
+
+    /**
+     * Parses the class held by {@code classBuffer}, up to the level given by the parse options. Sections past that
+     * level are never read, and the sections which are read are checked at the validation level of the options, see
+     * {@link ValidationLevel}. If {@link Instrumentation#ENABLED} is set, each section is timed as a
+     * {@link ParsePhase}.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class, starting at index 0
+     * @param parentClass The {@link ClassFile} these attributes belong to
+     * @param parseOptions The options controlling how much of the class is parsed
+     */
+    public ClassAttributes(ByteBuffer classBuffer, ClassFile parentClass, ParseOptions parseOptions) {
+        final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.PARSE) : null;
+        int offset = 8;     // Skip the magic bytes and the minor/major versions, the constant pool count is next
 
         this.parentClass = parentClass;
-        this.minorVersion = Byte.toUnsignedInt(classBytes[5]);
-        this.majorVersion = new ClassMajorVersion(classBytes);
-        this.constantPool = new ClassConstantPool(classBytes, parentClass);
+        this.parseOptions = parseOptions;
+        this.classBuffer = classBuffer;
+        this.minorVersion = ByteUtil.readWORD(classBuffer, 4);
+        this.majorVersion = new ClassMajorVersion(classBuffer, 6);
+        this.constantPool = new ClassConstantPool(classBuffer, offset, parentClass, parseOptions.getValidationLevel());
+
+        offset += this.constantPool.getLength() + 2;    // The pool length does not include the two count bytes
+
+        if (Instrumentation.ENABLED) {
+            recorder.endPhase(ParsePhase.CONSTANT_POOL, offset - 8, this.constantPool.getTableSize());
+        }
+
+        this.headerOffset = offset;
+        this.accessFlags = ByteUtil.readWORD(classBuffer, offset);
+        this.thisClassIndex = ByteUtil.readWORD(classBuffer, offset + 2);
+        this.superClassIndex = ByteUtil.readWORD(classBuffer, offset + 4);
 
-        offset += this.constantPool.getLength();
+        offset += 6;
 
-        this.interfaceTable = new ClassInterfaceTable(
-                Arrays.copyOfRange(classBytes, 16 + offset, classBytes.length));
+        this.interfaceTable = new ClassInterfaceTable(classBuffer, offset);
 
         offset += this.interfaceTable.getLength();
 
-        // This should be 18, not 16. I'm not entirely sure why it needs to be 16 just yet, but if issues
-        // pop up later with strange field table data, come back to this. TODO investigate
-        this.fieldTable = new ClassFieldTable(
-                Arrays.copyOfRange(classBytes, 16 + offset, classBytes.length));
+        if (Instrumentation.ENABLED) {
+            recorder.endPhase(ParsePhase.INTERFACES, offset - this.headerOffset,
+                    this.interfaceTable.getInterfaces().size());
+        }
+
+        if (parseOptions.validates(ValidationLevel.STRUCTURAL)) {
+            this.checkDeclaration(this.thisClassIndex, this.superClassIndex, this.interfaceTable);
+
+            if (Instrumentation.ENABLED) {
+                recorder.endPhase(ParsePhase.VALIDATION, 0, (this.superClassIndex == 0 ? 1 : 2) +
+                        this.interfaceTable.getInterfaces().size());
+            }
+        }
+
+        this.fieldTableOffset = offset;
+
+        if (!parseOptions.includes(ParseLevel.MEMBERS)) {
+            this.fieldTable = null;
+            this.methodTable = null;
+            this.attributesOffset = -1;
+            if (Instrumentation.ENABLED) recorder.end(this.getClassName(), classBuffer.limit());
+            return;
+        }
+
+        final boolean parseAttributes = parseOptions.includes(ParseLevel.FULL);
+
+        this.fieldTable = new ClassFieldTable(classBuffer, offset, this.constantPool, parseAttributes);
 
         offset += this.fieldTable.getLength();
 
-        this.methodTable = new ClassMethodTable(
-                Arrays.copyOfRange(classBytes, 18 + offset, classBytes.length));
+        if (Instrumentation.ENABLED) {
+            recorder.endPhase(ParsePhase.FIELDS, this.fieldTable.getLength(), this.fieldTable.getFields().size());
+        }
+
+        this.methodTable = new ClassMethodTable(classBuffer, offset, this.constantPool, parseAttributes);
+
+        offset += this.methodTable.getLength();
+
+        if (Instrumentation.ENABLED) {
+            recorder.endPhase(ParsePhase.METHODS, this.methodTable.getLength(), this.methodTable.getMethods().size());
+        }
+
+        if (parseOptions.validates(ValidationLevel.STRICT)) {
+            this.checkMembers();
+
+            if (Instrumentation.ENABLED) {     // The name and descriptor of every member
+                recorder.endPhase(ParsePhase.VALIDATION, 0,
+                        2 * (this.fieldTable.getFields().size() + this.methodTable.getMethods().size()));
+            }
+        }
+
+        this.attributesOffset = offset;
+
+        if (parseAttributes) {
+            offset = AttributeInfo.readAttributes(classBuffer, offset + 2, ByteUtil.readWORD(classBuffer, offset),
+                    this.constantPool, this.attributeInfos);
+
+            if (offset != classBuffer.limit()) throw new ClassFormatError("extra bytes at the end of the class file");
+
+            if (Instrumentation.ENABLED) {
+                recorder.endPhase(ParsePhase.ATTRIBUTES, offset - this.attributesOffset, this.attributeInfos.size());
+            }
+        }
+
+        if (Instrumentation.ENABLED) recorder.end(this.getClassName(), classBuffer.limit());
+    }
+
+    /**
+     * Checks that the this class, superclass and interfaces of the class refer to class entries, see
+     * {@link ValidationLevel#STRUCTURAL}. Only {@code java.lang.Object} and module descriptors have no superclass.
+     */
+    private void checkDeclaration(int thisClassIndex, int superClassIndex, ClassInterfaceTable interfaceTable) {
+        this.constantPool.checkReference(thisClassIndex, CLASS_TAG, "this class");
+        if (superClassIndex != 0) this.constantPool.checkReference(superClassIndex, CLASS_TAG, "superclass");
+
+        for (int interfaceIndex : interfaceTable.getInterfaces()) {
+            this.constantPool.checkReference(interfaceIndex, CLASS_TAG, "interface");
+        }
+    }
+
+    /**
+     * Checks that the name and descriptor of every field and method refer to UTF-8 entries, and that the descriptors
+     * are valid, see {@link ValidationLevel#STRICT}.
+     */
+    private void checkMembers() {
+        for (ClassFieldTableEntry field : this.fieldTable.getFields()) {
+            this.constantPool.checkReference(field.getNameIndex(), UTF8_TAG, "field name");
+            this.constantPool.checkReference(field.getDescriptorIndex(), UTF8_TAG, "field descriptor");
+            this.constantPool.getFieldDescriptor(field.getDescriptorIndex());
+        }
+
+        for (ClassMethodTableEntry method : this.methodTable.getMethods()) {
+            this.constantPool.checkReference(method.getNameIndex(), UTF8_TAG, "method name");
+            this.constantPool.checkReference(method.getDescriptorIndex(), UTF8_TAG, "method descriptor");
+            this.constantPool.getMethodDescriptor(method.getDescriptorIndex());
+        }
+    }
+
+    /**
+     * Checks whether anything has changed since the class was read or last written: entries appended to the constant
+     * pool, a changed class declaration or interface, changed field or method tables, or changed class attributes.
+     *
+     * @return Whether the class bytes are out of date
+     */
+    public boolean isDirty() {
+        if (this.constantPool.isDirty()) return true;
+
+        if (ByteUtil.readWORD(this.classBuffer, this.headerOffset) != this.accessFlags ||
+                ByteUtil.readWORD(this.classBuffer, this.headerOffset + 2) != this.thisClassIndex ||
+                ByteUtil.readWORD(this.classBuffer, this.headerOffset + 4) != this.superClassIndex) {
+            return true;
+        }
+
+        final ArrayList<Integer> interfaces = this.interfaceTable.getInterfaces();
+        if (ByteUtil.readWORD(this.classBuffer, this.headerOffset + 6) != interfaces.size()) return true;
+
+        for (int index = 0; index < interfaces.size(); index++) {
+            if (ByteUtil.readWORD(this.classBuffer, this.headerOffset + 8 + index * 2) != interfaces.get(index)) {
+                return true;
+            }
+        }
+
+        if (this.fieldTable == null) return false;
+        if (this.fieldTable.isDirty() || this.methodTable.isDirty()) return true;
+
+        return this.parseOptions.includes(ParseLevel.FULL) &&
+                AttributeInfo.isListDirty(this.attributeInfos, this.classBuffer, this.attributesOffset);
+    }
+
+    /**
+     * Re-reads the class from other class bytes, such as a patched version of the same class, reusing every section
+     * whose bytes did not change instead of parsing the whole class again. This only works if the other constant pool
+     * holds the entries of the current one, in the same order, optionally followed by new entries; the constant pool
+     * is then kept, and only the new entries are indexed. Otherwise, or if the minor or major versions differ, if these
+     * attributes were modified since the class was read or last written, or if the pool is made up of long strings
+     * which are faster to parse again than to compare, nothing is done. Classes parsed with
+     * {@link ValidationLevel#STRICT} are always parsed from scratch, as every member would have to be checked again.
+     * <br><br>
+     *
+     * The class declaration and interfaces are always read again. Unchanged fields and methods are kept, along with
+     * their attributes and anything decoded from them, see {@link ClassMemberEntry#updateTable}; only the changed
+     * members are parsed. The class attributes are kept if their bytes are unchanged, and parsed again otherwise.
+     * Sections are compared with bulk byte comparisons, so a class with one changed method costs little more than a
+     * comparison of the class bytes and the parsing of that method.<br><br>
+     *
+     * Every section is scanned before anything is changed, so other class bytes which turn out to be malformed leave
+     * these attributes as they were.
+     *
+     * @param classBuffer The buffer holding the other class bytes, starting at index 0
+     * @return Whether the attributes now describe the other class bytes. If not, the other class bytes must be parsed
+     * from scratch.
+     * @throws ClassFormatError If the other class bytes are malformed
+     */
+    boolean update(ByteBuffer classBuffer) {
+        final ByteBuffer previousBuffer = this.classBuffer;
+
+        if (classBuffer.limit() < 10 || this.isDirty()) return false;
+
+        // Parsing only indexes the pool by tag, stepping over strings, while reusing it compares every byte. Pools of
+        // mostly long strings, such as the tables of charsets, are faster to parse again than to compare.
+        if (this.constantPool.getLength() > 64 * this.constantPool.getCount()) return false;
+        if (!ByteUtil.rangeEquals(previousBuffer, 4, classBuffer, 4, 4)) return false;     // The versions changed
+
+        final int headerOffset = this.constantPool.scanExtension(classBuffer, 8);
+        if (headerOffset < 0) return false;
+
+        final int interfacesOffset = headerOffset + 6;
+        final int fieldTableOffset = interfacesOffset + 2 + ByteUtil.readWORD(classBuffer, interfacesOffset) * 2;
+        final int interfacesLength = fieldTableOffset - interfacesOffset;
+        final int accessFlags = ByteUtil.readWORD(classBuffer, headerOffset);
+        final int thisClassIndex = ByteUtil.readWORD(classBuffer, headerOffset + 2);
+        final int superClassIndex = ByteUtil.readWORD(classBuffer, headerOffset + 4);
+        final boolean sameInterfaces = interfacesLength == this.interfaceTable.getLength() &&
+                ByteUtil.rangeEquals(previousBuffer, this.headerOffset + 6, classBuffer, interfacesOffset,
+                        interfacesLength);
+        final ClassInterfaceTable interfaceTable = sameInterfaces ? this.interfaceTable :
+                new ClassInterfaceTable(classBuffer, interfacesOffset);
+
+        if (this.parseOptions.validates(ValidationLevel.STRUCTURAL)) {
+            this.checkDeclaration(thisClassIndex, superClassIndex, interfaceTable);     // Against the scanned pool
+        }
+
+        int[] fieldOffsets = null;
+        int[] methodOffsets = null;
+        int attributesOffset = -1;
+        ArrayList<AttributeInfo> attributeInfos = null;     // Only set if the class attributes changed
+
+        if (this.fieldTable != null) {
+            fieldOffsets = ClassMemberEntry.scanTable(classBuffer, fieldTableOffset);
+            methodOffsets = ClassMemberEntry.scanTable(classBuffer, fieldOffsets[fieldOffsets.length - 1]);
+            attributesOffset = methodOffsets[methodOffsets.length - 1];
+
+            final int attributesLength = classBuffer.limit() - attributesOffset;
+
+            if (this.parseOptions.includes(ParseLevel.FULL) && (attributesLength != previousBuffer.limit() -
+                    this.attributesOffset || !ByteUtil.rangeEquals(previousBuffer, this.attributesOffset, classBuffer,
+                    attributesOffset, attributesLength))) {
+                attributeInfos = new ArrayList<>();
+
+                final int end = AttributeInfo.readAttributes(classBuffer, attributesOffset + 2,
+                        ByteUtil.readWORD(classBuffer, attributesOffset), this.constantPool, attributeInfos);
+
+                if (end != classBuffer.limit()) throw new ClassFormatError("extra bytes at the end of the class file");
+            }
+        }
+
+        // Everything was read, nothing below can fail
+        this.constantPool.rebase(classBuffer, 8);
+        this.classBuffer = classBuffer;
+        this.headerOffset = headerOffset;
+        this.accessFlags = accessFlags;
+        this.thisClassIndex = thisClassIndex;
+        this.superClassIndex = superClassIndex;
+        this.interfaceTable = interfaceTable;
+        this.fieldTableOffset = fieldTableOffset;
+
+        if (this.fieldTable == null) return true;
+
+        this.fieldTable.update(classBuffer, fieldTableOffset, fieldOffsets);
+        this.methodTable.update(classBuffer, fieldOffsets[fieldOffsets.length - 1], methodOffsets);
+        this.attributesOffset = attributesOffset;
+
+        if (attributeInfos != null) {
+            this.attributeInfos.clear();
+            this.attributeInfos.addAll(attributeInfos);
+        } else {
+            AttributeInfo.rebaseList(this.attributeInfos, classBuffer, attributesOffset);
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the class to a new byte array. Unchanged sections are copied over from the bytes they were read from
+     * with bulk copies: the original constant pool is copied as a whole, runs of unchanged fields and methods are
+     * copied together, and unchanged attributes are copied as they are. The class declaration and interfaces, being
+     * only a few bytes long, are always encoded. Sections which were not parsed (see {@link ParseLevel}) are copied
+     * as they are.<br><br>
+     *
+     * Afterwards, the constant pool, tables, entries and attributes all refer to the written bytes and are no longer
+     * dirty. If {@link Instrumentation#ENABLED} is set, the write is timed as a {@link ClassOperation#SERIALIZE}.
+     *
+     * @return A buffer wrapping the whole of the written byte array
+     */
+    public ByteBuffer write() {
+        final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.SERIALIZE) :
+                null;
+        final boolean attributesParsed = this.parseOptions.includes(ParseLevel.FULL);
+        final ArrayList<Integer> interfaces = this.interfaceTable.getInterfaces();
+        final int sourceEnd = this.classBuffer.limit();
+
+        int length = 10 + this.constantPool.getLength() + 8 + interfaces.size() * 2;
+
+        if (this.fieldTable == null) {
+            length += sourceEnd - this.fieldTableOffset;
+        } else {
+            length += this.fieldTable.getSerializedLength() + this.methodTable.getSerializedLength();
+
+            if (attributesParsed) {
+                length += 2;
+                for (AttributeInfo attribute : this.attributeInfos) length += attribute.getLength();
+            } else {
+                length += sourceEnd - this.attributesOffset;
+            }
+        }
+
+        final ByteBuffer out = ByteBuffer.wrap(new byte[length]);
+        final ByteBuffer source = this.classBuffer;
+
+        out.put(0, source, 0, 8);     // The magic bytes and the minor/major versions
+        int offset = this.constantPool.writeTo(out, 8);
+
+        final int headerOffset = offset;
+
+        ByteUtil.writeWORD(out, offset, this.accessFlags);
+        ByteUtil.writeWORD(out, offset + 2, this.thisClassIndex);
+        ByteUtil.writeWORD(out, offset + 4, this.superClassIndex);
+        ByteUtil.writeWORD(out, offset + 6, interfaces.size());
+        offset += 8;
+
+        for (int interfaceIndex : interfaces) {
+            ByteUtil.writeWORD(out, offset, interfaceIndex);
+            offset += 2;
+        }
+
+        final int fieldTableOffset = offset;
+
+        if (this.fieldTable == null) {
+            out.put(offset, source, this.fieldTableOffset, sourceEnd - this.fieldTableOffset);
+        } else {
+            offset = this.fieldTable.writeTo(out, offset);
+            offset = this.methodTable.writeTo(out, offset);
+
+            if (attributesParsed) {
+                ByteUtil.writeWORD(out, offset, this.attributeInfos.size());
+                int attributeOffset = offset + 2;
+                for (AttributeInfo attribute : this.attributeInfos) {
+                    attributeOffset = attribute.writeTo(out, attributeOffset);
+                }
+            } else {
+                out.put(offset, source, this.attributesOffset, sourceEnd - this.attributesOffset);
+            }
+
+            this.attributesOffset = offset;
+        }
+
+        this.classBuffer = out;
+        this.headerOffset = headerOffset;
+        this.fieldTableOffset = fieldTableOffset;
+
+        if (Instrumentation.ENABLED) recorder.end(this.getClassName(), length);
+        return out;
+    }
+
+    public void setAccessFlags(int accessFlags) {
+        this.accessFlags = accessFlags;
+    }
+
+    public void setThisClassIndex(int thisClassIndex) {
+        this.thisClassIndex = thisClassIndex;
+    }
+
+    public void setSuperClassIndex(int superClassIndex) {
+        this.superClassIndex = superClassIndex;
+    }
+
+    public ParseOptions getParseOptions() {
+        return parseOptions;
     }
 
     public int getMinorVersion() {
@@ -58,15 +428,69 @@ public final class ClassAttributes {
         return constantPool;
     }
 
+    /**
+     * @return The access flags bitfield of the class, see {@link ClassAccessFlags}
+     */
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    /**
+     * @return The constant pool index of the class entry naming this class
+     */
+    public int getThisClassIndex() {
+        return thisClassIndex;
+    }
+
+    /**
+     * @return The internal name of this class, such as {@code java/lang/String}
+     */
+    public String getClassName() {
+        return constantPool.getClassName(thisClassIndex);
+    }
+
+    /**
+     * @return The internal name of the superclass, or {@code null} if the class has no superclass
+     */
+    public String getSuperClassName() {
+        return superClassIndex == 0 ? null : constantPool.getClassName(superClassIndex);
+    }
+
+    /**
+     * @return The constant pool index of the class entry naming the superclass, or 0 if the class has no superclass
+     * (only {@code java.lang.Object} and module descriptors)
+     */
+    public int getSuperClassIndex() {
+        return superClassIndex;
+    }
+
     public ClassInterfaceTable getInterfaceTable() {
         return interfaceTable;
     }
 
+    /**
+     * @return The field table of the class
+     * @throws IllegalStateException If the class was parsed with {@link ParseLevel#HEADER}
+     */
     public ClassFieldTable getFieldTable() {
+        if (fieldTable == null) throw new IllegalStateException("field table not parsed at level HEADER");
         return fieldTable;
     }
 
+    /**
+     * @return The method table of the class
+     * @throws IllegalStateException If the class was parsed with {@link ParseLevel#HEADER}
+     */
     public ClassMethodTable getMethodTable() {
+        if (methodTable == null) throw new IllegalStateException("method table not parsed at level HEADER");
         return methodTable;
     }
+
+    /**
+     * @return The attributes of the class itself, such as SourceFile, BootstrapMethods or InnerClasses. The list is
+     * empty if the class was parsed below {@link ParseLevel#FULL}.
+     */
+    public ArrayList<AttributeInfo> getAttributeInfos() {
+        return attributeInfos;
+    }
 }
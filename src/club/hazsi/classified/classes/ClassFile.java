@@ -4,6 +4,8 @@ import club.hazsi.classified.classes.loader.ByteClassLoader;
 import club.hazsi.classified.util.ClassUtil;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 
 /**
@@ -13,15 +15,24 @@ import java.nio.file.*;
  * modified. A classes raw bytes can manually be set, automatically regenerating the ClassAttributes with the new
  * class data.<br><br>
  *
+ * A ClassFile does not need to be backed by a heap byte array. Classes can be parsed in place from any
+ * {@link ByteBuffer}, including direct buffers and memory-mapped regions of a file (for example a single class blob
+ * stored inside a larger archive), in which case no copy of the class bytes is made on the heap unless
+ * {@link #getRawBytes()} is called.<br><br>
+ *
  * <h2>Fields</h2>
  * When a ClassFile is instantiated, the class itself is automatically analyzed and parsed into information that is
  * accessible and modifiable.
  *
  * <ul>
- *     <li>{@code rawBytes} - A raw byte array storing the bytes which compose the class. The byte array can be
- *     manually set through the {@link #setRawBytes(byte[])} method, which automatically regenerates other fields
- *     to match the newly defined class file. The byte array can be manually refreshed through invoking the
- *     {@link #refreshRawBytes()} method.</li>
+ *     <li>{@code classBuffer} - A buffer holding the bytes which compose the class, starting at index 0. All parsing
+ *     is done through absolute reads on this buffer. The class bytes can be manually set through the
+ *     {@link #setRawBytes(byte[])} method, which automatically regenerates other fields to match the newly defined
+ *     class file. The class bytes can be manually refreshed through invoking the {@link #refreshRawBytes()}
+ *     method.</li>
+ *     <li>{@code rawBytes} - A raw byte array storing the bytes which compose the class. When the class was created
+ *     from a byte array this is that same array, otherwise it is only copied out of {@code classBuffer} the first
+ *     time {@link #getRawBytes()} is called.</li>
  *     <li>{@code attributes} - A {@link ClassAttributes} instance parsing and storing all class data (constant pool,
  *     interface/field/method tables, etc) that can be read and modified. Automatically generated on instantiation.
  *     Cannot be directly set, but is automatically regenerated when the raw class bytes are set via the
@@ -32,6 +43,7 @@ import java.nio.file.*;
  * @author Hazsi
  */
 public final class ClassFile {
+    private ByteBuffer classBuffer;
     private byte[] rawBytes;
     private ClassAttributes attributes;
 
@@ -49,7 +61,7 @@ public final class ClassFile {
      * @since 1.0
      */
     public static ClassFile fromDisk(String classPath) throws IOException, ClassFormatError {
-        return new ClassFile(Files.readAllBytes(Paths.get(classPath)));
+        return fromBytes(Files.readAllBytes(Paths.get(classPath)));
     }
     
     /**
@@ -66,12 +78,93 @@ public final class ClassFile {
      * @since 1.0
      */
     public static ClassFile fromDisk(Path classPath) throws IOException, ClassFormatError {
-        return new ClassFile(Files.readAllBytes(classPath));
+        return fromBytes(Files.readAllBytes(classPath));
+    }
+
+    /**
+     * Constructs a new ClassFile from the provided path, as a {@link Path}, parsing only as much of the class as the
+     * provided {@link ParseOptions} ask for. See {@link #fromDisk(Path)}.
+     *
+     * @param classPath The full {@link Path} path of an existent class file to be loaded
+     * @param parseOptions The options controlling how much of the class is parsed
+     * @throws IOException If an IO error occurs while reading from the provided path and the file cannot be read
+     * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
+     * specifications, or is otherwise invalid
+     * @throws NoSuchFileException If the provided path is missing or cannot be found
+     */
+    public static ClassFile fromDisk(Path classPath, ParseOptions parseOptions) throws IOException, ClassFormatError {
+        return fromBytes(Files.readAllBytes(classPath), parseOptions);
+    }
+
+    /**
+     * Constructs a new ClassFile by memory-mapping the whole file at the provided path, as a {@link Path}. The class
+     * is parsed in place from the mapped region without its bytes being read onto the heap, which is preferable
+     * for very large classes. For ordinary class files {@link #fromDisk(Path)} is usually faster, as mapping a file
+     * has a fixed cost of its own.
+     *
+     * @param classPath The full {@link Path} path of an existent class file to be mapped
+     * @throws IOException If an IO error occurs while opening or mapping the provided path
+     * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
+     * specifications, or is otherwise invalid
+     * @throws NoSuchFileException If the provided path is missing or cannot be found
+     */
+    public static ClassFile fromMappedFile(Path classPath) throws IOException, ClassFormatError {
+        try (FileChannel channel = FileChannel.open(classPath, StandardOpenOption.READ)) {
+            return fromMappedFile(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Constructs a new ClassFile by memory-mapping a region of an open {@link FileChannel}. This allows a class that
+     * is stored somewhere inside a larger file, such as an uncompressed archive, to be parsed in place. The mapping
+     * stays valid after the channel is closed.
+     *
+     * @param channel The channel to map the class from, which must be open for reading
+     * @param position The position within the file at which the class bytes start
+     * @param size The amount of bytes making up the class
+     * @throws IOException If an IO error occurs while mapping the region
+     * @throws ClassFormatError If the mapped region is not a class, is malformed and does not follow the class
+     * specifications, or is otherwise invalid
+     */
+    public static ClassFile fromMappedFile(FileChannel channel, long position, long size)
+            throws IOException, ClassFormatError {
+        return fromBuffer(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+    }
+
+    /**
+     * Constructs a new ClassFile from the bytes between the position and limit of the provided {@link ByteBuffer}.
+     * The buffer is not copied; the class is parsed in place and the ClassFile keeps a view of it, so its contents
+     * must not be modified afterwards. The position and limit of the provided buffer are left untouched.
+     *
+     * @param classBuffer A buffer holding the class file to be loaded
+     * @throws ClassFormatError If the provided buffer does not hold a class, is malformed and does not follow the
+     * class specifications, or is otherwise invalid
+     */
+    public static ClassFile fromBuffer(ByteBuffer classBuffer) throws ClassFormatError {
+        return fromBuffer(classBuffer, ParseOptions.DEFAULT);
+    }
+
+    /**
+     * Constructs a new ClassFile from the bytes between the position and limit of the provided {@link ByteBuffer},
+     * parsing only as much of the class as the provided {@link ParseOptions} ask for. See
+     * {@link #fromBuffer(ByteBuffer)}.
+     *
+     * @param classBuffer A buffer holding the class file to be loaded
+     * @param parseOptions The options controlling how much of the class is parsed
+     * @throws ClassFormatError If the provided buffer does not hold a class, is malformed and does not follow the
+     * class specifications, or is otherwise invalid
+     */
+    public static ClassFile fromBuffer(ByteBuffer classBuffer, ParseOptions parseOptions) throws ClassFormatError {
+        return new ClassFile(classBuffer.slice(), null, parseOptions);
     }
 
     /**
      * Constructs a new ClassFile from the provided array of byte composing the class. If the provided bytes do not
-     * accurately resemble a valid class, a {@link ClassFormatError} is thrown with details given.
+     * accurately resemble a valid class, a {@link ClassFormatError} is thrown with details given.<br><br>
+     *
+     * The array is not copied: the ClassFile parses it in place and keeps reading from it, and returns it from
+     * {@link #getRawBytes()} until the class is modified. Editing it in place afterwards leaves the model out of date;
+     * passing the edited array to {@link #setRawBytes(byte[])} brings it back in line.
      *
      * @param classBytes A byte array composing the class file to be loaded
      * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
@@ -80,50 +173,97 @@ public final class ClassFile {
      * @since 1.0
      */
     public static ClassFile fromBytes(byte[] classBytes) throws ClassFormatError {
-        return new ClassFile(classBytes);
+        return fromBytes(classBytes, ParseOptions.DEFAULT);
     }
 
     /**
-     * Constructs a new ClassFile from a class loaded in the current JVM, given the fully qualified class name. If the
-     * provided class does not accurately resemble a valid class, a {@link ClassFormatError} is thrown with details
-     * given, which should be impossible (the class was already checked being loaded into the JVM!). If the provided
-     * class name is not found in the JVM, a {@link ClassNotFoundException} is thrown instead.
+     * Constructs a new ClassFile from the provided array of byte composing the class, parsing only as much of the
+     * class as the provided {@link ParseOptions} ask for. See {@link #fromBytes(byte[])}.
+     *
+     * @param classBytes A byte array composing the class file to be loaded
+     * @param parseOptions The options controlling how much of the class is parsed
+     * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
+     * specifications, or is otherwise invalid
+     */
+    public static ClassFile fromBytes(byte[] classBytes, ParseOptions parseOptions) throws ClassFormatError {
+        return new ClassFile(ByteBuffer.wrap(classBytes), classBytes, parseOptions);
+    }
+
+    /**
+     * Constructs a new ClassFile from a class loaded in the current JVM, given the fully qualified class name. The
+     * class is looked up through the class loader of Classified without being initialized, and its class file is
+     * obtained as described in {@link #fromJVM(Class)}. If the provided class name is not found in the JVM, a
+     * {@link ClassNotFoundException} is thrown instead.
      *
      * @param className The fully qualified class name of a class file loaded in the current JVM
      * @throws ClassNotFoundException If the provided class couldn't be found in the JVM, or otherwise cannot
      * be accessed
      * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
      * specifications, or is otherwise invalid
-     * @throws IOException If some generic error occurs during class serialization
+     * @throws IOException If the class file of the class could not be found or read
      *
      * @since 1.0
      */
     public static ClassFile fromJVM(String className) throws ClassNotFoundException,
             ClassFormatError, IOException {
-        final Class<?> clazz = Class.forName(className); // todo does this always work?
-        return new ClassFile(ClassUtil.getClassBytes(clazz));
+        return fromJVM(Class.forName(className, false, ClassFile.class.getClassLoader()));
     }
 
     /**
-     * Private constructor to  a new ClassFile from the provided array of byte composing the class. If the provided
-     * bytes do not accurately resemble a valid class, a {@link ClassFormatError} is thrown with details given.
+     * Constructs a new ClassFile from a class loaded in the current JVM. The class file is read from the resources of
+     * the class's loader, or taken from the {@link club.hazsi.classified.agent.ClassCaptureAgent} if it is installed
+     * and captured the class, see {@link ClassUtil#getClassBytes(Class)}.
      *
-     * @param classBytes A byte array composing the class file to be loaded
+     * @param clazz A class loaded in the current JVM
+     * @throws ClassFormatError If the class file is malformed, which should be impossible for a loaded class
+     * @throws IOException If the class file of the class could not be found or read, as for arrays, primitive types,
+     * hidden classes and classes defined at runtime which were not captured
+     */
+    public static ClassFile fromJVM(Class<?> clazz) throws ClassFormatError, IOException {
+        return fromBytes(ClassUtil.getClassBytes(clazz));
+    }
+
+    /**
+     * Private constructor to  a new ClassFile from the provided buffer of bytes composing the class, starting at
+     * index 0. If the provided bytes do not accurately resemble a valid class, a {@link ClassFormatError} is thrown
+     * with details given.
+     *
+     * @param classBuffer A buffer composing the class file to be loaded, starting at index 0
+     * @param classBytes The byte array backing {@code classBuffer}, or {@code null} if the buffer is not simply a
+     *                   wrap of a whole array
+     * @param parseOptions The options controlling how much of the class is parsed
      * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
      * specifications, or is otherwise invalid
      *
      * @since 1.0
      */
-    private ClassFile(byte[] classBytes) throws ClassFormatError {
-        if (!ClassUtil.isClassFile(classBytes)) throw new ClassFormatError("not a valid class!");
+    private ClassFile(ByteBuffer classBuffer, byte[] classBytes, ParseOptions parseOptions) throws ClassFormatError {
+        if (!ClassUtil.isClassFile(classBuffer)) throw new ClassFormatError("not a valid class!");
 
+        this.classBuffer = classBuffer;
         this.rawBytes = classBytes;
-        this.attributes = new ClassAttributes(classBytes, this);
+
+        try {
+            this.attributes = new ClassAttributes(classBuffer, this, parseOptions);
+        } catch (IndexOutOfBoundsException e) {     // A count or length runs past the end of the buffer
+            throw new ClassFormatError("truncated class file");
+        }
     }
 
-    // TODO - regenerate class bytes from class attributes
+    /**
+     * Regenerates the class bytes from the {@link ClassAttributes}, if they have been modified since the class was
+     * read or last refreshed. Only modified sections are encoded; everything else is copied over from the current
+     * class bytes in bulk, see {@link ClassAttributes#write()}. If nothing was modified, this does nothing.<br><br>
+     *
+     * This is called automatically by {@link #load()}, {@link #getRawBytes()} and {@link #getClassBuffer()}.
+     *
+     * @since 1.0
+     */
     public void refreshRawBytes() {
+        if (!this.attributes.isDirty()) return;
 
+        this.classBuffer = this.attributes.write();
+        this.rawBytes = this.classBuffer.array();
     }
 
     /**
@@ -133,13 +273,22 @@ public final class ClassFile {
      * @since 1.0
      */
     public void load() {
-        ByteClassLoader.load(this.rawBytes);
+        this.refreshRawBytes();
+        ByteClassLoader.load(this.classBuffer.duplicate());
     }
 
     /**
      * Sets the class' raw bytes. Similar to the private constructor, this method ensures that the provided bytes
-     * are a valid class -- throwing a {@link ClassFormatError} if this is not the case -- and regenerating the
-     * ClassAttributes instance to match the new class definition.
+     * are a valid class -- throwing a {@link ClassFormatError} if this is not the case -- and updates the
+     * ClassAttributes to match the new class definition, parsed with the same {@link ParseOptions} as before.<br><br>
+     *
+     * If the new bytes are a modified version of the current ones, such as a class with a patched method, the
+     * attributes are updated in place rather than parsed from scratch, see {@link ClassAttributes#update}: the
+     * constant pool, unchanged fields and methods, and unchanged class attributes are reused, and only the sections
+     * which differ are parsed. Otherwise, a new {@link ClassAttributes} instance is created. The new bytes are
+     * always parsed from scratch if they are the array this class already reads from, edited in place, as there is
+     * then no copy of the previous bytes left to compare them with. In either case, a malformed class leaves this
+     * class as it was.
      *
      * @param classBytes The new class bytes to define the class by
      * @throws ClassFormatError If the provided file is not a class, is malformed and does not follow the class
@@ -147,19 +296,52 @@ public final class ClassFile {
      * @since 1.0
      */
     public void setRawBytes(byte[] classBytes) throws ClassFormatError {
-        if (!ClassUtil.isClassFile(classBytes)) throw new ClassFormatError("not a valid class!");
+        final ByteBuffer classBuffer = ByteBuffer.wrap(classBytes);
+        if (!ClassUtil.isClassFile(classBuffer)) throw new ClassFormatError("not a valid class!");
+
+        // An array edited in place can only be compared with itself, which would find no changes
+        final boolean editedInPlace = classBytes == this.rawBytes ||
+                (this.classBuffer.hasArray() && this.classBuffer.array() == classBytes);
 
+        try {
+            if (editedInPlace || !this.attributes.update(classBuffer)) {
+                this.attributes = new ClassAttributes(classBuffer, this, this.attributes.getParseOptions());
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new ClassFormatError("truncated class file");
+        }
+
+        this.classBuffer = classBuffer;
         this.rawBytes = classBytes;
-        this.attributes = new ClassAttributes(classBytes, this);
     }
 
     /**
+     * Returns the raw bytes making up the class as a byte array. If the class was not created from a byte array
+     * (for example, it was mapped from disk), the bytes are copied onto the heap the first time this is called. The
+     * array is the one this class reads from, not a copy; see {@link #fromBytes(byte[])}.
+     *
      * @return The raw bytes making up the original class
      */
     public byte[] getRawBytes() {
+        this.refreshRawBytes();
+
+        if (this.rawBytes == null) {
+            final byte[] classBytes = new byte[this.classBuffer.limit()];
+            this.classBuffer.get(0, classBytes);
+            this.rawBytes = classBytes;
+        }
+
         return this.rawBytes;
     }
 
+    /**
+     * @return A read-only view of the buffer holding the bytes making up the class, positioned at index 0
+     */
+    public ByteBuffer getClassBuffer() {
+        this.refreshRawBytes();
+        return this.classBuffer.asReadOnlyBuffer();
+    }
+
     /**
      * @return The {@link ClassAttributes} instance belonging to this class
      */
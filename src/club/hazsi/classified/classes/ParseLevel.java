@@ -0,0 +1,31 @@
+package club.hazsi.classified.classes;
+
+/**
+ * How much of a class is parsed into its {@link ClassAttributes}. Each level includes everything parsed by the levels
+ * before it. Whatever a level leaves out is not read at all, or is stepped over using its declared length, so lower
+ * levels are considerably cheaper for tools which only need part of a class (a classpath indexer, for example, only
+ * needs {@link #HEADER}).
+ *
+ * @see ParseOptions
+ * @author Hazsi
+ * @since 1.0
+ */
+public enum ParseLevel {
+
+    /**
+     * The versions, the constant pool, the access flags, this and super class, and the interface table. The field
+     * and method tables are not parsed.
+     */
+    HEADER,
+
+    /**
+     * Everything in {@link #HEADER}, plus the field and method tables. The access flags, name and descriptor of every
+     * member are parsed, but their attributes are skipped.
+     */
+    MEMBERS,
+
+    /**
+     * The whole class, including every attribute.
+     */
+    FULL
+}
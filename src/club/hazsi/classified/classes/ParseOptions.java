@@ -0,0 +1,63 @@
+package club.hazsi.classified.classes;
+
+import lombok.Getter;
+
+/**
+ * Immutable options controlling how a {@link ClassFile} parses its {@link ClassAttributes}. Options are obtained from
+ * {@link #DEFAULT}, {@link #of(ParseLevel)} or {@link #of(ParseLevel, ValidationLevel)}, and can be passed to the
+ * {@code ClassFile} factory methods.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class ParseOptions {
+
+    /**
+     * The options used when none are given, which parse the whole class with {@link ValidationLevel#STRUCTURAL}
+     * checks
+     */
+    public static final ParseOptions DEFAULT = new ParseOptions(ParseLevel.FULL, ValidationLevel.STRUCTURAL);
+
+    private final ParseLevel level;
+    private final ValidationLevel validationLevel;
+
+    private ParseOptions(ParseLevel level, ValidationLevel validationLevel) {
+        this.level = level;
+        this.validationLevel = validationLevel;
+    }
+
+    /**
+     * @param level How much of the class should be parsed
+     * @return Options parsing a class up to the given level, with {@link ValidationLevel#STRUCTURAL} checks
+     */
+    public static ParseOptions of(ParseLevel level) {
+        return of(level, ValidationLevel.STRUCTURAL);
+    }
+
+    /**
+     * @param level How much of the class should be parsed
+     * @param validationLevel How thoroughly the parsed sections should be checked
+     * @return Options parsing a class up to the given level, with the given checks
+     */
+    public static ParseOptions of(ParseLevel level, ValidationLevel validationLevel) {
+        return level == ParseLevel.FULL && validationLevel == ValidationLevel.STRUCTURAL ? DEFAULT :
+                new ParseOptions(level, validationLevel);
+    }
+
+    /**
+     * @param level The level to parse classes up to
+     * @return Whether this options' level includes everything parsed by {@code level}
+     */
+    public boolean includes(ParseLevel level) {
+        return this.level.compareTo(level) >= 0;
+    }
+
+    /**
+     * @param validationLevel The level to check classes at
+     * @return Whether this options' validation level includes every check of {@code validationLevel}
+     */
+    public boolean validates(ValidationLevel validationLevel) {
+        return this.validationLevel.compareTo(validationLevel) >= 0;
+    }
+}
@@ -0,0 +1,41 @@
+package club.hazsi.classified.classes;
+
+/**
+ * How thoroughly a class is checked while it is parsed into its {@link ClassAttributes}. Each level includes every
+ * check of the levels before it. Whatever the level, a class is always read far enough to find the boundaries of its
+ * sections, so truncated classes and constant pool entries of unknown types are always rejected: the size of an
+ * unknown entry cannot be known, and nothing after it could be read.<br><br>
+ *
+ * Checks only cover the sections parsed at the {@link ParseLevel} of the parse. Malformed classes fail with a
+ * {@link ClassFormatError}.
+ *
+ * @see ParseOptions
+ * @author Hazsi
+ * @since 1.0
+ */
+public enum ValidationLevel {
+
+    /**
+     * No checks beyond what is needed to read the class. Constant pool entries of types the class version does not
+     * allow and references to entries of the wrong type are accepted, and only fail once they are used. This is meant
+     * for trusted classes which were already verified, such as the classes of the running JDK.
+     */
+    NONE,
+
+    /**
+     * Every constant pool entry must be of a type allowed by the major version of the class, and every reference
+     * between entries must point at an entry of the right type: class, string, method type, module and package
+     * entries at UTF-8 entries, member references at a class and a name and type entry, and so on. The this class,
+     * superclass and interfaces of the class must point at class entries, and the name of every attribute read at a
+     * UTF-8 entry. Checking references costs one extra pass over the pool.
+     */
+    STRUCTURAL,
+
+    /**
+     * Everything in {@link #STRUCTURAL}, plus the contents of entries: every UTF-8 entry must be valid modified UTF-8,
+     * and the descriptors of name and type entries and of every field and method must be valid. The names and
+     * descriptors of fields and methods must point at UTF-8 entries. This decodes every UTF-8 entry, and is meant
+     * for untrusted classes.
+     */
+    STRICT
+}
@@ -0,0 +1,455 @@
+package club.hazsi.classified.classes.cache;
+
+import club.hazsi.classified.classes.ClassAttributes;
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.classes.components.ClassMemberEntry;
+import club.hazsi.classified.classes.summary.ContentHash;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * A bounded cache of parsed classes, shared by every thread of an application which repeatedly parses the same
+ * classes. Classes read with {@link #fromDisk(Path)} are keyed by their path, modification time, size and file key, so
+ * a class which changed on disk is parsed again; classes parsed with {@link #fromBytes(byte[])} are keyed by the
+ * {@link ContentHash} of their bytes.<br><br>
+ *
+ * The cache is bounded by weight rather than by entry count, the weight of a class being an estimate of the heap its
+ * parsed model retains (see {@link #estimateRetainedSize(ClassFile)}), so that a few huge classes cannot push the
+ * cache past its budget. The total weight never exceeds the maximum once an insertion returns; a class heavier than
+ * the whole cache is parsed but not cached.<br><br>
+ *
+ * Eviction follows the W-TinyLFU policy: new classes enter a small LRU window (1% of the weight), and leave it for the
+ * main space, a segmented LRU, only if they were used more often recently than the class they would evict, as
+ * estimated by a {@link FrequencySketch}. A burst of classes used only once (a full classpath scan, for example)
+ * therefore cannot flush out the hot classes, as it would from a plain LRU cache.<br><br>
+ *
+ * Lookups are lock-free: they only read a {@link ConcurrentHashMap}, and record the access in a lossy ring buffer,
+ * which is applied to the eviction policy in batches by whichever thread gets hold of the policy lock without
+ * waiting. Insertions take the lock. Two threads missing the same class may both parse it; the first one to finish
+ * caches it, and the other returns that instance.<br><br>
+ *
+ * Cached classes are shared by every caller, so they must not be modified. Parse a separate copy of a class to edit
+ * it.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ClassFileCache {
+    private static final int READ_BUFFER_SIZE = 128;                // A power of two
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_DRAIN_THRESHOLD = 32;             // Buffered reads which trigger a drain
+
+    private static final byte PENDING = 0;     // In the map, but not yet added to the policy by its inserting thread
+    private static final byte WINDOW = 1;
+    private static final byte PROBATION = 2;
+    private static final byte PROTECTED = 3;
+    private static final byte REMOVED = 4;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final ParseOptions parseOptions;
+    private final ToLongFunction<ClassFile> weigher;
+
+    private final ConcurrentHashMap<Object, Node> entries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readBufferWrites = new AtomicLong();
+    private volatile long readBufferReads;                          // Only advanced under the lock
+
+    private final ReentrantLock lock = new ReentrantLock();         // Guards everything below
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final Queue window = new Queue();
+    private final Queue probation = new Queue();
+    private final Queue protectedQueue = new Queue();
+    private volatile long weightedSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder evictedWeight = new LongAdder();
+
+    /**
+     * Creates a cache which fully parses classes, and weighs them with {@link #estimateRetainedSize(ClassFile)}.
+     *
+     * @param maximumWeight The maximum estimated heap usage of the cached classes, in bytes
+     */
+    public ClassFileCache(long maximumWeight) {
+        this(maximumWeight, ParseOptions.DEFAULT, ClassFileCache::estimateRetainedSize);
+    }
+
+    /**
+     * @param maximumWeight The maximum total weight of the cached classes
+     * @param parseOptions The options every class is parsed with
+     * @param weigher Computes the weight of a parsed class, usually its estimated heap usage in bytes; called once
+     *                per class, when it is inserted
+     * @throws IllegalArgumentException If the maximum weight is less than 1
+     */
+    public ClassFileCache(long maximumWeight, ParseOptions parseOptions, ToLongFunction<ClassFile> weigher) {
+        if (maximumWeight < 1) throw new IllegalArgumentException("maximum weight must be at least 1");
+
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - this.windowMaximum) * 4 / 5;
+        this.parseOptions = Objects.requireNonNull(parseOptions);
+        this.weigher = Objects.requireNonNull(weigher);
+    }
+
+    /**
+     * Returns the parsed class at a path, from the cache if the file did not change since it was cached.
+     *
+     * @param classPath The path of a class file
+     * @return The parsed class, which must not be modified
+     * @throws IOException If the file could not be read
+     * @throws ClassFormatError If the file is not a valid class
+     */
+    public ClassFile fromDisk(Path classPath) throws IOException, ClassFormatError {
+        final Path path = classPath.toAbsolutePath().normalize();
+        final FileKey key = FileKey.of(path, Files.readAttributes(path, BasicFileAttributes.class));
+
+        final ClassFile cached = this.getIfPresent(key);
+        if (cached != null) return cached;
+
+        final ClassFile classFile = ClassFile.fromBytes(Files.readAllBytes(path), this.parseOptions);
+
+        // Only cached if the file did not change while it was being read, as it would be cached under the old key
+        final FileKey after = FileKey.of(path, Files.readAttributes(path, BasicFileAttributes.class));
+        return key.equals(after) ? this.insert(key, classFile) : classFile;
+    }
+
+    /**
+     * Returns the parsed class held by an array, from the cache if a class with the same bytes was cached. On a
+     * miss, the array is copied before being parsed, so it may be reused by the caller afterwards.
+     *
+     * @param classBytes The bytes of a class file
+     * @return The parsed class, which must not be modified
+     * @throws ClassFormatError If the bytes are not a valid class
+     */
+    public ClassFile fromBytes(byte[] classBytes) throws ClassFormatError {
+        final ContentHash key = ContentHash.of(classBytes);
+
+        final ClassFile cached = this.getIfPresent(key);
+        if (cached != null) return cached;
+
+        return this.insert(key, ClassFile.fromBytes(classBytes.clone(), this.parseOptions));
+    }
+
+    private ClassFile getIfPresent(Object key) {
+        final Node node = this.entries.get(key);
+
+        if (node == null) {
+            this.missCount.increment();
+            return null;
+        }
+
+        this.hitCount.increment();
+        this.recordRead(node);
+        return node.classFile;
+    }
+
+    private ClassFile insert(Object key, ClassFile classFile) {
+        final long weight = Math.max(0, this.weigher.applyAsLong(classFile));
+        if (weight > this.maximumWeight) return classFile;      // Would evict everything else, and still not fit
+
+        final Node node = new Node(key, classFile, weight);
+        final Node existing = this.entries.putIfAbsent(key, node);
+        if (existing != null) return existing.classFile;        // Another thread parsed the same class first
+
+        this.lock.lock();
+        try {
+            this.drainReadBuffer();
+            if (this.entries.get(key) == node) this.onInsert(node);     // Unless it was invalidated already
+        } finally {
+            this.lock.unlock();
+        }
+
+        return classFile;
+    }
+
+    /**
+     * Records an access in the read buffer, without ever blocking. Accesses are dropped while the buffer is full,
+     * which only makes the eviction policy slightly less accurate.
+     */
+    private void recordRead(Node node) {
+        final long writes = this.readBufferWrites.get();
+        final long pending = writes - this.readBufferReads;
+
+        if (pending < READ_BUFFER_SIZE && this.readBufferWrites.compareAndSet(writes, writes + 1)) {
+            this.readBuffer.lazySet((int) writes & READ_BUFFER_MASK, node);
+        }
+
+        if (pending >= READ_DRAIN_THRESHOLD && this.lock.tryLock()) {
+            try {
+                this.drainReadBuffer();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        long reads = this.readBufferReads;
+        final long writes = this.readBufferWrites.get();
+
+        for (; reads < writes; reads++) {
+            final int index = (int) reads & READ_BUFFER_MASK;
+            final Node node = this.readBuffer.get(index);
+            if (node == null) break;    // Claimed by a reader which has not stored it yet
+
+            this.readBuffer.lazySet(index, null);
+            this.onRead(node);
+        }
+
+        this.readBufferReads = reads;
+    }
+
+    private void onRead(Node node) {
+        if (node.queue == PENDING || node.queue == REMOVED) return;
+
+        this.sketch.increment(node.key.hashCode());
+
+        if (node.queue == WINDOW) {
+            this.window.moveToTail(node);
+        } else if (node.queue == PROBATION) {       // Used again while on probation, so it is promoted
+            this.probation.remove(node);
+            this.protectedQueue.add(node, PROTECTED);
+
+            while (this.protectedQueue.weight > this.protectedMaximum) {
+                this.probation.add(this.protectedQueue.removeHead(), PROBATION);    // Demoted back
+            }
+        } else {
+            this.protectedQueue.moveToTail(node);
+        }
+    }
+
+    private void onInsert(Node node) {
+        this.sketch.ensureCapacity(this.entries.size());
+        this.sketch.increment(node.key.hashCode());
+        this.window.add(node, WINDOW);
+        this.weightedSize += node.weight;
+
+        Node candidate = null;      // The least recently used class leaving the window, which competes for the
+        while (this.window.weight > this.windowMaximum) {  // main space with the victim at the head of probation
+            candidate = this.window.removeHead();
+            this.probation.add(candidate, PROBATION);
+        }
+
+        while (this.weightedSize > this.maximumWeight) this.evict(candidate);
+    }
+
+    /**
+     * Evicts a single class: either the victim at the head of probation or the candidate which just left the window,
+     * whichever was used less often recently
+     */
+    private void evict(Node candidate) {
+        Node victim = this.probation.head;
+        if (victim == null) victim = this.protectedQueue.head;
+        if (victim == null) victim = this.window.head;
+
+        if (candidate != null && candidate != victim && candidate.queue == PROBATION &&
+                this.sketch.frequency(candidate.key.hashCode()) <= this.sketch.frequency(victim.key.hashCode())) {
+            victim = candidate;     // Ties go to the incumbent, which resists a flood of classes used once
+        }
+
+        this.queueOf(victim).remove(victim);
+        victim.queue = REMOVED;
+        this.weightedSize -= victim.weight;
+        this.entries.remove(victim.key, victim);
+        this.evictionCount.increment();
+        this.evictedWeight.add(victim.weight);
+    }
+
+    private Queue queueOf(Node node) {
+        return node.queue == WINDOW ? this.window : node.queue == PROBATION ? this.probation : this.protectedQueue;
+    }
+
+    /**
+     * Removes every class from the cache. The counters are not reset.
+     */
+    public void invalidateAll() {
+        this.lock.lock();
+        try {
+            this.drainReadBuffer();
+            this.entries.clear();
+
+            for (Queue queue : new Queue[] {this.window, this.probation, this.protectedQueue}) {
+                while (queue.head != null) queue.removeHead().queue = REMOVED;
+            }
+
+            this.sketch.clear();
+            this.weightedSize = 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The amount of cached classes
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return The total weight of the cached classes, at most {@link #getMaximumWeight()}
+     */
+    public long getWeightedSize() {
+        return this.weightedSize;
+    }
+
+    public long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * @return A snapshot of the counters of the cache
+     */
+    public ClassFileCacheStats getStats() {
+        return new ClassFileCacheStats(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum(),
+                this.evictedWeight.sum());
+    }
+
+    /**
+     * Estimates how many bytes of heap a parsed class retains: its bytes, the constant pool index, and the entries,
+     * strings and members created from it. Constant pool entries and strings are created lazily, so the estimate
+     * assumes that every one of them was, and is an upper bound for classes which were not fully inspected.
+     *
+     * @param classFile A parsed class
+     * @return The estimated retained size of the class, in bytes
+     */
+    public static long estimateRetainedSize(ClassFile classFile) {
+        final ClassAttributes attributes = classFile.getAttributes();
+        final int classLength = classFile.getClassBuffer().limit();
+        final int poolCount = attributes.getConstantPool().getCount();
+
+        long size = 256 + 16 + classLength;             // The ClassFile, its attributes and the class bytes
+        size += classLength;                            // Decoded strings, which take at least as much as their bytes
+        size += poolCount * (1 + 4 + 4 + 4 + 40L);      // Tags, offsets, entry and descriptor slots, and entries
+
+        if (attributes.getParseOptions().includes(ParseLevel.MEMBERS)) {
+            size += membersSize(attributes.getFieldTable().getFields());
+            size += membersSize(attributes.getMethodTable().getMethods());
+            size += attributes.getAttributeInfos().size() * 64L;
+        }
+
+        return size;
+    }
+
+    private static long membersSize(List<? extends ClassMemberEntry> members) {
+        long size = 64;
+        for (ClassMemberEntry member : members) size += 80 + member.getAttributeInfos().size() * 64L;
+        return size;
+    }
+
+    /**
+     * The identity of a file at one point in time
+     */
+    private static final class FileKey {
+        private final Path path;
+        private final long modifiedNanos;
+        private final long size;
+        private final Object fileKey;       // The inode on Unix, which changes when the file is replaced
+
+        private FileKey(Path path, long modifiedNanos, long size, Object fileKey) {
+            this.path = path;
+            this.modifiedNanos = modifiedNanos;
+            this.size = size;
+            this.fileKey = fileKey;
+        }
+
+        private static FileKey of(Path path, BasicFileAttributes attributes) {
+            return new FileKey(path, attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size(),
+                    attributes.fileKey());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof FileKey)) return false;
+
+            final FileKey key = (FileKey) other;
+            return this.modifiedNanos == key.modifiedNanos && this.size == key.size && this.path.equals(key.path) &&
+                    Objects.equals(this.fileKey, key.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.path.hashCode();
+        }
+    }
+
+    private static final class Node {
+        private final Object key;
+        private final ClassFile classFile;
+        private final long weight;
+
+        private Node previous;      // Guarded by the lock, like the queue
+        private Node next;
+        private byte queue = PENDING;
+
+        private Node(Object key, ClassFile classFile, long weight) {
+            this.key = key;
+            this.classFile = classFile;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A weighted, doubly linked LRU queue, least recently used first
+     */
+    private static final class Queue {
+        private Node head;
+        private Node tail;
+        private long weight;
+
+        private void add(Node node, byte queue) {
+            node.queue = queue;
+            node.previous = this.tail;
+            node.next = null;
+
+            if (this.tail == null) this.head = node;
+            else this.tail.next = node;
+
+            this.tail = node;
+            this.weight += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.previous == null) this.head = node.next;
+            else node.previous.next = node.next;
+
+            if (node.next == null) this.tail = node.previous;
+            else node.next.previous = node.previous;
+
+            node.previous = null;
+            node.next = null;
+            this.weight -= node.weight;
+        }
+
+        private Node removeHead() {
+            final Node node = this.head;
+            this.remove(node);
+            return node;
+        }
+
+        private void moveToTail(Node node) {
+            if (node == this.tail) return;
+
+            this.remove(node);
+            this.add(node, node.queue);
+        }
+    }
+}
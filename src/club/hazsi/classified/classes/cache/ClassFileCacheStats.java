@@ -0,0 +1,39 @@
+package club.hazsi.classified.classes.cache;
+
+import lombok.Getter;
+
+/**
+ * A snapshot of the counters of a {@link ClassFileCache}, taken by {@link ClassFileCache#getStats()}. Counters only
+ * grow, so the activity between two points in time is the difference of two snapshots.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class ClassFileCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long evictedWeight;       // The estimated amount of bytes freed by evictions
+
+    ClassFileCacheStats(long hitCount, long missCount, long evictionCount, long evictedWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.evictedWeight = evictedWeight;
+    }
+
+    /**
+     * @return The share of lookups which were hits, between 0 and 1, or 1 if there were no lookups
+     */
+    public double getHitRate() {
+        final long requestCount = this.hitCount + this.missCount;
+        return requestCount == 0 ? 1 : (double) this.hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions freeing %d bytes", this.hitCount,
+                this.missCount, this.getHitRate() * 100, this.evictionCount, this.evictedWeight);
+    }
+}
@@ -0,0 +1,100 @@
+package club.hazsi.classified.classes.cache;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often each key of a {@link ClassFileCache} was used recently,
+ * which decides whether a new entry is worth evicting an older one for. Every key is counted in four counters of a
+ * table of longs, each long holding sixteen counters, and its frequency is the smallest of the four. All counters are
+ * halved once as many increments as the table has counters were made, so that keys which were popular long ago fade
+ * out. Not thread safe; the cache only uses it under its lock.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;     // Clears the bit shifted in from the next counter
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    /**
+     * Grows the table to fit the provided amount of keys, discarding every count
+     */
+    void ensureCapacity(int keyCount) {
+        final int length = Integer.highestOneBit(Math.max(Math.min(keyCount, 1 << 30), 16) - 1) << 1;
+        if (length <= this.table.length) return;
+
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = length * 10;
+        this.additions = 0;
+    }
+
+    /**
+     * @return The estimated amount of recent uses of the key, up to 15
+     */
+    int frequency(int keyHash) {
+        final int hash = spread(keyHash);
+        final int start = (hash & 3) << 2;
+        int frequency = 15;
+
+        for (int counter = 0; counter < 4; counter++) {
+            final int shift = (start + counter) << 2;
+            frequency = Math.min(frequency, (int) ((this.table[this.indexOf(hash, counter)] >>> shift) & 0xF));
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Counts one use of the key, ageing every count if enough uses were counted since the last time
+     */
+    void increment(int keyHash) {
+        final int hash = spread(keyHash);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+
+        for (int counter = 0; counter < 4; counter++) {
+            final int index = this.indexOf(hash, counter);
+            final int shift = (start + counter) << 2;
+            final long mask = 0xFL << shift;
+
+            if ((this.table[index] & mask) != mask) {   // Saturated counters stay at 15
+                this.table[index] += 1L << shift;
+                added = true;
+            }
+        }
+
+        if (added && ++this.additions == this.sampleSize) this.age();
+    }
+
+    void clear() {
+        Arrays.fill(this.table, 0);
+        this.additions = 0;
+    }
+
+    private void age() {
+        for (int index = 0; index < this.table.length; index++) {
+            this.table[index] = (this.table[index] >>> 1) & RESET_MASK;
+        }
+
+        this.additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int counter) {
+        long mixed = (hash + SEEDS[counter]) * SEEDS[counter];
+        mixed += mixed >>> 32;
+        return (int) mixed & this.tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -1,34 +1,278 @@
 package club.hazsi.classified.classes.components;
 
+import club.hazsi.classified.classes.ValidationLevel;
+import club.hazsi.classified.classes.components.attribute.AttributeDecoder;
+import club.hazsi.classified.classes.components.attribute.AttributeDecoders;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
 import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.List;
 
-// TODO write javadoc (specs 4.7)
+/**
+ * Represents a single attribute of a class, field, method or Code attribute. As per section 4.7 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>, every
+ * attribute shares the same header, followed by a payload whose format depends on the name of the attribute:
+ *
+ * <pre>{@code
+ * attribute_info {
+ *     u2   attribute_name_index;   // The CP index of the attribute name
+ *     u4   attribute_length;       // The length of info[], excluding these six header bytes
+ *     u1   info[attribute_length]; // The payload of the attribute
+ * }
+ * }</pre>
+ *
+ * An AttributeInfo is only a slice of the class bytes: it records the name index and the offset and length of the
+ * payload, and never copies or boxes the payload itself. Attributes that have an {@link AttributeDecoder} registered
+ * in {@link AttributeDecoders} (such as Code, LineNumberTable, StackMapTable, BootstrapMethods and Signature) are
+ * decoded the first time {@link #getDecoded()} is called, and the decoded form is kept afterwards.<br><br>
+ *
+ * An attribute's payload can be replaced with {@link #setPayload(byte[])}, and new attributes can be created from a
+ * payload with {@link #AttributeInfo(ClassConstantPool, int, byte[])}. Such attributes are marked dirty, and are
+ * encoded from their payload when the class bytes are next written; unchanged attributes are copied as is.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
 @Getter
 public class AttributeInfo {
-    private final int length;
+    private static final int UTF8_TAG = 1 << ClassConstantPoolEntryType.UTF8.getValue();
+
+    private final ClassConstantPool constantPool;
     private final int nameIndex;
-    private final ArrayList<Integer> attributes = new ArrayList<>();
+    private int payloadOffset;
+    private int payloadLength;
+    private int length;
+    private boolean dirty;
+
+    @Getter(AccessLevel.NONE) private ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private Object decoded;
+
+    /**
+     * Reads the header of the attribute starting at {@code offset}. The payload is not read. Unless the constant pool
+     * was read with {@link ValidationLevel#NONE}, the name index is checked to refer to a UTF-8 entry.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the attribute's name index within {@code classBuffer}
+     * @param constantPool The constant pool of the class, used to resolve the names of attributes
+     * @throws ClassFormatError If the declared length of the attribute runs past the end of the class, or its name
+     * index does not refer to a UTF-8 entry
+     */
+    public AttributeInfo(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool) {
+        this.classBuffer = classBuffer;
+        this.constantPool = constantPool;
+        this.nameIndex = ByteUtil.readWORD(classBuffer, offset);
+        this.payloadOffset = offset + 6;
+        this.payloadLength = ByteUtil.readDWORD(classBuffer, offset + 2);
+
+        if (this.payloadLength < 0 || this.payloadLength > classBuffer.limit() - this.payloadOffset) {
+            throw new ClassFormatError("attribute length out of range: " + Integer.toUnsignedLong(this.payloadLength));
+        }
+
+        this.length = this.payloadLength + 6;   // The name index takes up two bytes, and the payload length four
+
+        if (constantPool.getValidationLevel() != ValidationLevel.NONE) {
+            constantPool.checkReference(this.nameIndex, UTF8_TAG, "attribute name");
+        }
+    }
+
+    /**
+     * Creates a new attribute which is not part of any class bytes yet. The attribute is dirty until it is written.
+     *
+     * @param constantPool The constant pool of the class the attribute will belong to
+     * @param nameIndex The constant pool index of the UTF-8 entry holding the name of the attribute
+     * @param payload The payload of the attribute, which must not be modified afterwards
+     */
+    public AttributeInfo(ClassConstantPool constantPool, int nameIndex, byte[] payload) {
+        this.constantPool = constantPool;
+        this.nameIndex = nameIndex;
+        this.setPayload(payload);
+    }
+
+    /**
+     * Reads a list of attributes laid out one after the other, as found in classes, fields, methods and Code
+     * attributes.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the first attribute within {@code classBuffer}
+     * @param attributeCount The amount of attributes to read
+     * @param constantPool The constant pool of the class
+     * @param attributes The list to add the attributes to, or {@code null} to step over them without parsing them
+     * @return The offset directly after the last attribute
+     */
+    public static int readAttributes(ByteBuffer classBuffer, int offset, int attributeCount,
+                                     ClassConstantPool constantPool, List<AttributeInfo> attributes) {
+        for (int currentAttributeIndex = 0; currentAttributeIndex < attributeCount; currentAttributeIndex++) {
+            if (attributes == null) {
+                offset += 6 + ByteUtil.readDWORD(classBuffer, offset + 2);
+                continue;
+            }
+
+            final AttributeInfo attribute = new AttributeInfo(classBuffer, offset, constantPool);
+
+            attributes.add(attribute);
+            offset += attribute.getLength();
+        }
+
+        return offset;
+    }
+
+    /**
+     * Replaces the payload of the attribute, discarding its decoded form. The attribute is marked dirty, and its new
+     * payload is written the next time the class bytes are refreshed.
+     *
+     * @param payload The new payload of the attribute, which must not be modified afterwards
+     */
+    public void setPayload(byte[] payload) {
+        this.classBuffer = ByteBuffer.wrap(payload);
+        this.payloadOffset = 0;
+        this.payloadLength = payload.length;
+        this.length = payload.length + 6;
+        this.decoded = null;
+        this.dirty = true;
+    }
+
+    /**
+     * @return The offset of the attribute's name index within {@link #getClassBuffer()}. Only meaningful for
+     * attributes which are not dirty.
+     */
+    public int getOffset() {
+        return this.payloadOffset - 6;
+    }
+
+    /**
+     * Writes the attribute to {@code out}, after which the attribute refers to the written bytes and is no longer
+     * dirty. Clean attributes are copied with a single bulk copy.
+     *
+     * @param out The buffer to write to
+     * @param offset The offset within {@code out} to write the attribute's name index at
+     * @return The offset directly after the written attribute
+     */
+    public int writeTo(ByteBuffer out, int offset) {
+        if (this.dirty) {
+            ByteUtil.writeWORD(out, offset, this.nameIndex);
+            ByteUtil.writeDWORD(out, offset + 2, this.payloadLength);
+            out.put(offset + 6, this.classBuffer, this.payloadOffset, this.payloadLength);
+        } else {
+            out.put(offset, this.classBuffer, this.getOffset(), this.length);
+        }
 
-    // TODO write javadoc
-    public AttributeInfo(byte[] classBytes) {
-        final int attributesSize =
-            ByteUtil.readDWORD(classBytes, 2);   // As per section 4.7 of the Java class file format
-                                                            // specifications, the amount of attributes contained by
-                                                            // AttributeInfo will always fall on bytes 2 - 5.
+        this.rebase(out, offset);
+        return offset + this.length;
+    }
+
+    /**
+     * Points the attribute at an identical copy of its bytes, and marks it clean. The decoded form is kept, as the
+     * bytes it was decoded from have not changed.
+     */
+    void rebase(ByteBuffer classBuffer, int offset) {
+        this.classBuffer = classBuffer;
+        this.payloadOffset = offset + 6;
+        this.dirty = false;
+    }
+
+    /**
+     * Points a list of clean attributes at an identical copy of the bytes they were read from.
+     *
+     * @param attributes The attributes of a class, field, method or Code attribute
+     * @param classBuffer The buffer holding the copy
+     * @param offset The offset of the two attribute count bytes within {@code classBuffer}
+     */
+    public static void rebaseList(List<AttributeInfo> attributes, ByteBuffer classBuffer, int offset) {
+        int attributeOffset = offset + 2;
+
+        for (AttributeInfo attribute : attributes) {
+            attribute.rebase(classBuffer, attributeOffset);
+            attributeOffset += attribute.length;
+        }
+    }
+
+    /**
+     * Checks whether a list of attributes has changed since it was read from {@code classBuffer}: an attribute was
+     * added, removed or reordered, or one of the attributes is dirty.
+     *
+     * @param attributes The attributes of a class, field, method or Code attribute
+     * @param classBuffer The buffer the attributes were read from
+     * @param offset The offset of the two attribute count bytes within {@code classBuffer}
+     * @return Whether the attributes must be written one by one
+     */
+    public static boolean isListDirty(List<AttributeInfo> attributes, ByteBuffer classBuffer, int offset) {
+        final int attributeCount = attributes.size();
+        if (ByteUtil.readWORD(classBuffer, offset) != attributeCount) return true;
+
+        int expectedOffset = offset + 2;
 
-        for (int currentAttributeIndex = 0; currentAttributeIndex < attributesSize; currentAttributeIndex++) {
-            attributes.add(ByteUtil.readByte(classBytes, 6 + currentAttributeIndex));
+        for (int index = 0; index < attributeCount; index++) {      // Indexed, as this runs for every member on
+            final AttributeInfo attribute = attributes.get(index);  // every write and must not allocate
+            if (attribute.dirty || attribute.classBuffer != classBuffer || attribute.getOffset() != expectedOffset) {
+                return true;
+            }
+
+            expectedOffset += attribute.length;
         }
 
-        this.nameIndex =
-                ByteUtil.readWORD(classBytes, 0);     // An AttributeInfo's nameIndex will always fall on
-                                                                 // bytes 0 - 1 as per section 4.7 of the specifications
+        return false;
+    }
+
+    /**
+     * @return The name of the attribute, such as {@code Code} or {@code Signature}
+     */
+    public String getName() {
+        return this.constantPool.getUtf8(this.nameIndex);
+    }
+
+    /**
+     * @return A read-only view of the payload of the attribute, positioned at 0. The view shares the class bytes and
+     * does not copy them.
+     */
+    public ByteBuffer getPayload() {
+        return this.classBuffer.asReadOnlyBuffer().position(this.payloadOffset).limit(this.payloadOffset +
+                this.payloadLength).slice();
+    }
+
+    /**
+     * @return The buffer holding the raw bytes of the class, which {@link #getPayloadOffset()} is relative to. Used
+     * by decoders to read the payload in place.
+     */
+    public ByteBuffer getClassBuffer() {
+        return this.classBuffer;
+    }
+
+    /**
+     * Decodes the payload of the attribute using the decoder registered for its name in {@link AttributeDecoders}.
+     * The payload is decoded on the first call only, and the same instance is returned afterwards.
+     *
+     * @return The decoded attribute, or {@code null} if no decoder is registered for the attribute's name
+     * @throws ClassFormatError If the payload is malformed
+     */
+    public Object getDecoded() {
+        Object decoded = this.decoded;
+
+        if (decoded == null) {
+            final AttributeDecoder<?> decoder = AttributeDecoders.get(this.getName());
+            if (decoder == null) return null;
+
+            decoded = decoder.decode(this);
+            this.decoded = decoded;     // Decoded attributes are immutable, so decoding twice from two threads is
+                                        // harmless
+        }
+
+        return decoded;
+    }
 
-        this.length = attributesSize + 2 + 4;       // The byte length of AttributeInfo. Each attribute takes up one
-                                                    // byte, the nameIndex takes up two, and the amount of attributes
-                                                    // contained will always take up four bytes.
+    /**
+     * Decodes the payload of the attribute, see {@link #getDecoded()}, and checks the decoded type.
+     *
+     * @param type The expected type of the decoded attribute
+     * @return The decoded attribute, or {@code null} if no decoder is registered for the attribute's name or the
+     * decoded attribute is not of the expected type
+     * @throws ClassFormatError If the payload is malformed
+     */
+    public <T> T getDecoded(Class<T> type) {
+        final Object decoded = this.getDecoded();
+        return type.isInstance(decoded) ? type.cast(decoded) : null;
     }
-}
\ No newline at end of file
+}
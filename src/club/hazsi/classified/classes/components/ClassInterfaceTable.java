@@ -1,7 +1,9 @@
 package club.hazsi.classified.classes.components;
 
+import club.hazsi.classified.util.ByteUtil;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 // todo write this javadoc
@@ -11,11 +13,11 @@ public class ClassInterfaceTable {
     private final int length;
 
     // todo write this javadoc
-    public ClassInterfaceTable(byte[] classBytes) {
-        final int tableSize = Byte.toUnsignedInt(classBytes[1]);
+    public ClassInterfaceTable(ByteBuffer classBuffer, int offset) {
+        final int tableSize = ByteUtil.readWORD(classBuffer, offset);
 
-        for (int currentTableIndex = 1; currentTableIndex <= tableSize; currentTableIndex++) {
-            this.interfaces.add(Byte.toUnsignedInt(classBytes[currentTableIndex * 2 + 2]));
+        for (int currentTableIndex = 0; currentTableIndex < tableSize; currentTableIndex++) {
+            this.interfaces.add(ByteUtil.readWORD(classBuffer, offset + 2 + currentTableIndex * 2));
         }
 
         this.length = tableSize * 2 + 2;    // Each interface in the table has a size of two bytes, and the table
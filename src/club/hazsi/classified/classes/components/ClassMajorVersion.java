@@ -1,5 +1,9 @@
 package club.hazsi.classified.classes.components;
 
+import club.hazsi.classified.util.ByteUtil;
+
+import java.nio.ByteBuffer;
+
 /**
  * A representation of a classes major Java version, with the ability to generate a user-friendly String
  * representation of the Java version, correct to Oracle specifications.
@@ -14,10 +18,11 @@ public class ClassMajorVersion {
     /**
      * Using this constructor allows for the creation of a ClassMajorVersion instance directly from the raw bytes
      * of a class, rather than needing to determine the version elsewhere
-     * @param classBytes A classes raw bytes
+     * @param classBuffer A buffer holding a classes raw bytes
+     * @param offset The offset of the two major_version bytes within {@code classBuffer}
      */
-    public ClassMajorVersion(byte[] classBytes) {
-        this.version = classBytes[7];   // Per the JVM spec, the class major version always lays at the 7th byte
+    public ClassMajorVersion(ByteBuffer classBuffer, int offset) {
+        this.version = ByteUtil.readWORD(classBuffer, offset);
     }
 
     /**
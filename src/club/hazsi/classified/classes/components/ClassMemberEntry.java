@@ -0,0 +1,445 @@
+package club.hazsi.classified.classes.components;
+
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.fieldtable.ClassFieldTableEntry;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTableEntry;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The state shared by {@link ClassFieldTableEntry} and {@link ClassMethodTableEntry}, whose {@code field_info} and
+ * {@code method_info} structures have the exact same layout:
+ *
+ * <pre>{@code
+ * member_info {
+ *     u2               access_flags;
+ *     u2               name_index;
+ *     u2               descriptor_index;
+ *     u2               attributes_count;
+ *     attribute_info   attributes[attribute_count];
+ * }
+ * }</pre>
+ *
+ * Besides the parsed values, an entry remembers the buffer and offset it was read from. An entry is dirty if it was
+ * created rather than parsed, if one of its setters was called, or if its attribute list no longer matches the bytes
+ * it was read from (an attribute was added, removed, reordered or has a new payload). When the class bytes are
+ * written, clean entries are copied from their original bytes, and only dirty entries are encoded field by field.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public abstract class ClassMemberEntry {
+    private int length;
+    private int accessFlags; // TODO move this to a list of access flags instead of just the raw bitfield
+    private int nameIndex;
+    private int descriptorIndex;
+    private final ArrayList<AttributeInfo> attributeInfos = new ArrayList<>();
+    private final ClassConstantPool constantPool;   // Null for entries created without a pool
+
+    @Getter(AccessLevel.NONE) private ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private int offset;
+    @Getter(AccessLevel.NONE) private final boolean attributesParsed;
+    @Getter(AccessLevel.NONE) private boolean dirty;
+
+    /**
+     * Parses the entry starting at {@code offset}, optionally skipping its attributes. Skipped attributes are stepped
+     * over using their declared lengths, leaving the entry with an empty attribute list; they are still copied over
+     * when the class bytes are written.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the entry's access flags within {@code classBuffer}
+     * @param constantPool The constant pool of the class, used to resolve the names of attributes
+     * @param parseAttributes Whether the attributes of the entry should be parsed
+     */
+    protected ClassMemberEntry(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool,
+                               boolean parseAttributes) {
+        final int attributeOffset = AttributeInfo.readAttributes(classBuffer, offset + 8,
+                ByteUtil.readWORD(classBuffer, offset + 6), constantPool, parseAttributes ? this.attributeInfos : null);
+
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.constantPool = constantPool;
+        this.attributesParsed = parseAttributes;
+        this.accessFlags = ByteUtil.readWORD(classBuffer, offset);
+        this.nameIndex = ByteUtil.readWORD(classBuffer, offset + 2);
+        this.descriptorIndex = ByteUtil.readWORD(classBuffer, offset + 4);
+        this.length = attributeOffset - offset;
+    }
+
+    /**
+     * Creates a new entry without any attributes, which is not part of any class bytes yet. The entry is dirty until
+     * it is written.
+     *
+     * @param accessFlags The access flags bitfield of the member
+     * @param nameIndex The constant pool index of the name of the member
+     * @param descriptorIndex The constant pool index of the descriptor of the member
+     */
+    protected ClassMemberEntry(int accessFlags, int nameIndex, int descriptorIndex) {
+        this(null, accessFlags, nameIndex, descriptorIndex);
+    }
+
+    /**
+     * Creates a new entry without any attributes, see {@link #ClassMemberEntry(int, int, int)}, whose name and
+     * descriptor can be resolved through the provided constant pool.
+     *
+     * @param constantPool The constant pool of the class the entry will belong to
+     * @param accessFlags The access flags bitfield of the member
+     * @param nameIndex The constant pool index of the name of the member
+     * @param descriptorIndex The constant pool index of the descriptor of the member
+     */
+    protected ClassMemberEntry(ClassConstantPool constantPool, int accessFlags, int nameIndex, int descriptorIndex) {
+        this.constantPool = constantPool;
+        this.attributesParsed = true;
+        this.accessFlags = accessFlags;
+        this.nameIndex = nameIndex;
+        this.descriptorIndex = descriptorIndex;
+        this.length = 8;
+        this.dirty = true;
+    }
+
+    public void setAccessFlags(int accessFlags) {
+        this.accessFlags = accessFlags;
+        this.dirty = true;
+    }
+
+    public void setNameIndex(int nameIndex) {
+        this.nameIndex = nameIndex;
+        this.dirty = true;
+    }
+
+    public void setDescriptorIndex(int descriptorIndex) {
+        this.descriptorIndex = descriptorIndex;
+        this.dirty = true;
+    }
+
+    /**
+     * @return The constant pool the entry's indexes refer to
+     * @throws IllegalStateException If the entry was created without a constant pool
+     */
+    protected ClassConstantPool requireConstantPool() {
+        if (this.constantPool == null) throw new IllegalStateException("entry was created without a constant pool");
+        return this.constantPool;
+    }
+
+    /**
+     * @return Whether the entry differs from the bytes it was read from, and must be encoded rather than copied when
+     * the class bytes are written
+     */
+    public boolean isDirty() {
+        if (this.dirty) return true;
+        if (!this.attributesParsed) return false;   // Unparsed attributes can't have been changed
+
+        return AttributeInfo.isListDirty(this.attributeInfos, this.classBuffer, this.offset + 6);
+    }
+
+    /**
+     * @return The amount of bytes the entry takes up once written
+     */
+    public int getSerializedLength() {
+        if (!this.isDirty()) return this.length;
+        if (!this.attributesParsed) return this.length;     // Only the first eight bytes can have changed
+
+        int length = 8;
+        for (AttributeInfo attribute : this.attributeInfos) length += attribute.getLength();
+        return length;
+    }
+
+    /**
+     * Writes the entry to {@code out}, after which the entry refers to the written bytes and is no longer dirty.
+     *
+     * @param out The buffer to write to
+     * @param offset The offset within {@code out} to write the entry's access flags at
+     * @return The offset directly after the written entry
+     */
+    public int writeTo(ByteBuffer out, int offset) {
+        if (!this.isDirty()) {
+            out.put(offset, this.classBuffer, this.offset, this.length);
+            this.rebase(out, offset);
+            return offset + this.length;
+        }
+
+        ByteUtil.writeWORD(out, offset, this.accessFlags);
+        ByteUtil.writeWORD(out, offset + 2, this.nameIndex);
+        ByteUtil.writeWORD(out, offset + 4, this.descriptorIndex);
+
+        int attributeOffset = offset + 8;
+
+        if (this.attributesParsed) {
+            ByteUtil.writeWORD(out, offset + 6, this.attributeInfos.size());
+            for (AttributeInfo attribute : this.attributeInfos) {
+                attributeOffset = attribute.writeTo(out, attributeOffset);
+            }
+        } else {
+            out.put(offset + 6, this.classBuffer, this.offset + 6, this.length - 6);     // The count and attributes
+            attributeOffset += this.length - 8;
+        }
+
+        this.classBuffer = out;
+        this.offset = offset;
+        this.length = attributeOffset - offset;
+        this.dirty = false;
+        return attributeOffset;
+    }
+
+    /**
+     * Points a clean entry, and its attributes, at an identical copy of its bytes
+     */
+    private void rebase(ByteBuffer classBuffer, int offset) {
+        for (AttributeInfo attribute : this.attributeInfos) {
+            attribute.rebase(classBuffer, attribute.getOffset() - this.offset + offset);
+        }
+
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Checks whether a field or method table has changed since it was read from {@code classBuffer}: an entry was
+     * added, removed or reordered, or one of the entries is dirty.
+     *
+     * @param entries The entries of the table
+     * @param classBuffer The buffer the table was read from
+     * @param offset The offset of the two table size bytes within {@code classBuffer}
+     * @return Whether the table must be written entry by entry
+     */
+    public static boolean isTableDirty(List<? extends ClassMemberEntry> entries, ByteBuffer classBuffer, int offset) {
+        final int entryCount = entries.size();
+        if (ByteUtil.readWORD(classBuffer, offset) != entryCount) return true;
+
+        int expectedOffset = offset + 2;
+
+        for (int index = 0; index < entryCount; index++) {
+            final ClassMemberEntry entry = entries.get(index);
+            if (entry.classBuffer != classBuffer || entry.offset != expectedOffset || entry.isDirty()) return true;
+            expectedOffset += entry.length;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The amount of bytes a field or method table holding the provided entries takes up once written,
+     * including the two table size bytes
+     */
+    public static int getSerializedLength(List<? extends ClassMemberEntry> entries) {
+        int length = 2;
+        for (ClassMemberEntry entry : entries) length += entry.getSerializedLength();
+        return length;
+    }
+
+    /**
+     * Finds the offset of every entry of a field or method table, stepping over the attributes of each entry by their
+     * declared lengths. Nothing is parsed.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the two table size bytes within {@code classBuffer}
+     * @return The offset of every entry, followed by the offset directly after the table
+     * @throws ClassFormatError If an attribute runs past the end of the class
+     */
+    public static int[] scanTable(ByteBuffer classBuffer, int offset) {
+        final int entryCount = ByteUtil.readWORD(classBuffer, offset);
+        final int[] entryOffsets = new int[entryCount + 1];
+        int entryOffset = offset + 2;
+
+        for (int index = 0; index < entryCount; index++) {
+            final int attributeCount = ByteUtil.readWORD(classBuffer, entryOffset + 6);
+
+            entryOffsets[index] = entryOffset;
+            entryOffset += 8;
+
+            for (int attributeIndex = 0; attributeIndex < attributeCount; attributeIndex++) {
+                final int payloadLength = ByteUtil.readDWORD(classBuffer, entryOffset + 2);
+
+                if (payloadLength < 0 || payloadLength > classBuffer.limit() - entryOffset - 6) {
+                    throw new ClassFormatError("attribute length out of range: " +
+                            Integer.toUnsignedLong(payloadLength));
+                }
+
+                entryOffset += 6 + payloadLength;
+            }
+        }
+
+        entryOffsets[entryCount] = entryOffset;
+        return entryOffsets;
+    }
+
+    /**
+     * Re-reads a field or method table from other class bytes, reusing the entries whose bytes did not change. The
+     * longest run of identical entries at the start of the table, and the longest at its end, are pointed at the new
+     * bytes as they are, along with their attributes and anything decoded from them; only the entries in between are
+     * parsed. Changing one method of a large class therefore parses that one method. The list is only structurally
+     * modified if some entries were not reused.
+     *
+     * @param entries The entries of the table, which must not be dirty, and which are replaced by the new entries
+     * @param classBuffer The buffer holding the other class bytes
+     * @param entryOffsets The offsets of the new entries, as returned by {@link #scanTable(ByteBuffer, int)}
+     * @param reader Parses a changed entry at the given offset
+     * @param <E> The type of the entries
+     */
+    public static <E extends ClassMemberEntry> void updateTable(List<E> entries, ByteBuffer classBuffer,
+                                                                int[] entryOffsets, EntryReader<E> reader) {
+        final int oldCount = entries.size();
+        final int newCount = entryOffsets.length - 1;
+        final int sharedCount = Math.min(oldCount, newCount);
+        if (sharedCount == 0 && oldCount == newCount) return;
+
+        final int prefixCount = matchPrefix(entries, classBuffer, entryOffsets, sharedCount);
+        final int suffixCount = matchSuffix(entries, classBuffer, entryOffsets, sharedCount - prefixCount -
+                (oldCount == newCount && prefixCount < sharedCount ? 1 : 0));  // The entry holding the first changed
+                                                                                // byte can't be unchanged
+
+        for (int index = 0; index < prefixCount; index++) {
+            final ClassMemberEntry entry = entries.get(index);
+            entry.rebase(classBuffer, entryOffsets[index]);
+        }
+
+        for (int index = 1; index <= suffixCount; index++) {
+            final ClassMemberEntry entry = entries.get(oldCount - index);
+            entry.rebase(classBuffer, entryOffsets[newCount - index]);
+        }
+
+        final int changedEnd = newCount - suffixCount;
+        if (prefixCount + suffixCount == oldCount && changedEnd == prefixCount) return;
+
+        final List<E> changed = new ArrayList<>(changedEnd - prefixCount);
+        for (int index = prefixCount; index < changedEnd; index++) {
+            changed.add(reader.read(classBuffer, entryOffsets[index]));
+        }
+
+        final List<E> replaced = entries.subList(prefixCount, oldCount - suffixCount);
+        replaced.clear();
+        replaced.addAll(changed);
+    }
+
+    /**
+     * Counts the leading entries whose bytes are unchanged, finding the first changed byte with a single comparison
+     */
+    private static int matchPrefix(List<? extends ClassMemberEntry> entries, ByteBuffer classBuffer,
+                                   int[] entryOffsets, int sharedCount) {
+        if (sharedCount == 0) return 0;
+
+        final ClassMemberEntry first = entries.get(0);
+        final ClassMemberEntry last = entries.get(entries.size() - 1);
+        final int length = Math.min(last.offset + last.length - first.offset,
+                entryOffsets[entryOffsets.length - 1] - entryOffsets[0]);
+
+        int mismatch = ByteUtil.mismatch(first.classBuffer, first.offset, classBuffer, entryOffsets[0], length);
+        if (mismatch < 0) mismatch = length;
+
+        int prefixCount = 0;        // Identical bytes make up identical entries, so entries ending before the first
+        while (prefixCount < sharedCount &&     // changed byte are unchanged, and start at the same relative offset
+                entryOffsets[prefixCount + 1] - entryOffsets[0] <= mismatch) {
+            prefixCount++;
+        }
+
+        return prefixCount;
+    }
+
+    /**
+     * Counts the trailing entries whose bytes are unchanged, comparing them all at once if their lengths line up
+     */
+    private static int matchSuffix(List<? extends ClassMemberEntry> entries, ByteBuffer classBuffer,
+                                   int[] entryOffsets, int maxCount) {
+        final int oldCount = entries.size();
+        final int newCount = entryOffsets.length - 1;
+
+        int alignedCount = 0;
+        while (alignedCount < maxCount) {
+            final ClassMemberEntry entry = entries.get(oldCount - 1 - alignedCount);
+            if (entry.length != entryOffsets[newCount - alignedCount] - entryOffsets[newCount - 1 - alignedCount]) {
+                break;
+            }
+
+            alignedCount++;
+        }
+
+        if (alignedCount == 0) return 0;
+
+        final ClassMemberEntry first = entries.get(oldCount - alignedCount);
+        final int start = entryOffsets[newCount - alignedCount];
+        final int length = entryOffsets[newCount] - start;
+
+        if (ByteUtil.rangeEquals(first.classBuffer, first.offset, classBuffer, start, length)) return alignedCount;
+
+        int suffixCount = 0;        // Some entry in the aligned run changed, so fall back to comparing one by one
+        while (suffixCount < alignedCount) {
+            final ClassMemberEntry entry = entries.get(oldCount - 1 - suffixCount);
+            if (!ByteUtil.rangeEquals(entry.classBuffer, entry.offset, classBuffer,
+                    entryOffsets[newCount - 1 - suffixCount], entry.length)) {
+                break;
+            }
+
+            suffixCount++;
+        }
+
+        return suffixCount;
+    }
+
+    /**
+     * Writes a field or method table. Runs of clean entries which were read from consecutive bytes of the same buffer
+     * are copied with a single bulk copy, so rewriting one method of a large class costs little more than one copy
+     * of the class bytes and the encoding of that method.
+     *
+     * @param entries The entries of the table
+     * @param out The buffer to write to
+     * @param offset The offset within {@code out} to write the two table size bytes at
+     * @return The offset directly after the written table
+     */
+    public static int writeTable(List<? extends ClassMemberEntry> entries, ByteBuffer out, int offset) {
+        final int entryCount = entries.size();
+
+        ByteUtil.writeWORD(out, offset, entryCount);
+        offset += 2;
+
+        int index = 0;
+
+        while (index < entryCount) {
+            final ClassMemberEntry first = entries.get(index);
+
+            if (first.isDirty()) {
+                offset = first.writeTo(out, offset);
+                index++;
+                continue;
+            }
+
+            int runEnd = first.offset + first.length;
+            int runEndIndex = index + 1;
+
+            while (runEndIndex < entryCount) {
+                final ClassMemberEntry next = entries.get(runEndIndex);
+                if (next.classBuffer != first.classBuffer || next.offset != runEnd || next.isDirty()) break;
+
+                runEnd += next.length;
+                runEndIndex++;
+            }
+
+            out.put(offset, first.classBuffer, first.offset, runEnd - first.offset);
+
+            final int runStart = first.offset;
+            for (; index < runEndIndex; index++) {
+                final ClassMemberEntry entry = entries.get(index);
+                entry.rebase(out, entry.offset - runStart + offset);
+            }
+
+            offset += runEnd - runStart;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Parses a field or method entry, see {@link #updateTable}
+     *
+     * @param <E> The type of the entry
+     */
+    @FunctionalInterface
+    public interface EntryReader<E extends ClassMemberEntry> {
+        E read(ByteBuffer classBuffer, int offset);
+    }
+}
@@ -0,0 +1,177 @@
+package club.hazsi.classified.classes.components;
+
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
+import club.hazsi.classified.classes.components.fieldtable.ClassFieldTable;
+import club.hazsi.classified.classes.components.methodtable.ClassMethodTable;
+import club.hazsi.classified.util.LongIntMap;
+
+import java.util.ArrayList;
+
+/**
+ * The members of a {@link ClassFieldTable} or {@link ClassMethodTable}, along with a hash index of the members keyed
+ * by name and descriptor. Call graph construction and similar analyses resolve every call site against the methods
+ * of its owner, so looking members up by walking the table and decoding names quickly dominates; the index instead
+ * answers every lookup in constant time.<br><br>
+ *
+ * The index is built on the first lookup, with a single pass over the members, and is keyed by the
+ * {@linkplain ClassConstantPool#getCanonicalUtf8Index(int) canonical} constant pool indexes of their names and
+ * descriptors, so no strings are decoded building it. Lookups by string resolve the name and descriptor with
+ * {@link ClassConstantPool#findUtf8(String)}, which compares bytes rather than decoding pool strings either; a name or
+ * descriptor missing from the pool means the member can't exist, which is detected before the index is even built.
+ * <br><br>
+ *
+ * Adding, removing or replacing members through the list returned by {@link #getMembers()} invalidates the index,
+ * which is rebuilt on the next lookup. Renaming a member with {@link ClassMemberEntry#setNameIndex(int)} or
+ * {@link ClassMemberEntry#setDescriptorIndex(int)} is not detected: a stale index never returns the wrong member, as
+ * every hit is checked, but may not find a renamed member until {@link #invalidate()} is called.
+ *
+ * @param <E> The type of the members
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class MemberIndex<E extends ClassMemberEntry> {
+    private final ClassConstantPool constantPool;
+    private final MemberList members = new MemberList();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param constantPool The constant pool of the class the members belong to
+     */
+    public MemberIndex(ClassConstantPool constantPool) {
+        this.constantPool = constantPool;
+    }
+
+    /**
+     * @return The members, in table order. Structural changes to the list invalidate the index.
+     */
+    public ArrayList<E> getMembers() {
+        return this.members;
+    }
+
+    /**
+     * Finds the member with the provided name and descriptor.
+     *
+     * @param name The name of the member, such as {@code <init>}
+     * @param descriptor The descriptor of the member, such as {@code (Ljava/lang/String;)V}
+     * @return The member, or {@code null} if there is none
+     */
+    public E find(String name, String descriptor) {
+        final int nameIndex = this.constantPool.findUtf8(name);
+        if (nameIndex == 0) return null;
+
+        final int descriptorIndex = this.constantPool.findUtf8(descriptor);
+        if (descriptorIndex == 0) return null;
+
+        return this.find((long) nameIndex << 16 | descriptorIndex);   // Found indexes are already canonical
+    }
+
+    /**
+     * Finds the member whose name and descriptor are held by the provided UTF-8 entries. Entries are compared by
+     * content, so duplicate UTF-8 entries in the pool are handled correctly.
+     *
+     * @param nameIndex The constant pool index of the name of the member
+     * @param descriptorIndex The constant pool index of the descriptor of the member
+     * @return The member, or {@code null} if there is none
+     */
+    public E find(int nameIndex, int descriptorIndex) {
+        return this.find(this.key(nameIndex, descriptorIndex));
+    }
+
+    private E find(long key) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Snapshot snapshot = this.snapshot;
+            if (snapshot == null || snapshot.modCount != this.members.modCount()) snapshot = this.build();
+
+            final int position = snapshot.positions.get(key) - 1;
+            if (position < 0) return null;
+
+            if (position < this.members.size()) {
+                final E member = this.members.get(position);
+                if ((member.getNameIndex() << 16 | member.getDescriptorIndex()) == snapshot.indexes[position]) {
+                    return member;
+                }
+            }
+
+            this.snapshot = null;   // A member was renamed since the index was built
+        }
+
+        return null;
+    }
+
+    /**
+     * Discards the index, which is rebuilt on the next lookup. Only needed after renaming members.
+     */
+    public void invalidate() {
+        this.snapshot = null;
+    }
+
+    private Snapshot build() {
+        final int modCount = this.members.modCount();
+        final int memberCount = this.members.size();
+        final LongIntMap positions = new LongIntMap();
+        final int[] indexes = new int[memberCount];
+
+        for (int position = 0; position < memberCount; position++) {    // The first of two equal members wins, as
+            final E member = this.members.get(position);                // it does in the JVM's own lookups
+            positions.putIfAbsent(this.key(member.getNameIndex(), member.getDescriptorIndex()), position + 1);
+            indexes[position] = member.getNameIndex() << 16 | member.getDescriptorIndex();
+        }
+
+        final Snapshot snapshot = new Snapshot(positions, indexes, modCount);
+        this.snapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Packs the canonical indexes of a name and descriptor. Indexes which don't point at a UTF-8 entry can't match a
+     * lookup by string, and are packed as they are.
+     */
+    private long key(int nameIndex, int descriptorIndex) {
+        return (long) this.canonical(nameIndex) << 16 | this.canonical(descriptorIndex);
+    }
+
+    private int canonical(int index) {
+        if (index <= 0 || index > this.constantPool.getTableSize() ||
+                this.constantPool.getTag(index) != ClassConstantPoolEntryType.UTF8.getValue()) {
+            return index;
+        }
+
+        return this.constantPool.getCanonicalUtf8Index(index);
+    }
+
+    /**
+     * The built index, paired with the raw name and descriptor indexes of every member and the modification count of
+     * the members it was built from, which are used to detect a stale index
+     */
+    private static final class Snapshot {
+        private final LongIntMap positions;
+        private final int[] indexes;
+        private final int modCount;
+
+        private Snapshot(LongIntMap positions, int[] indexes, int modCount) {
+            this.positions = positions;
+            this.indexes = indexes;
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * An {@link ArrayList} which exposes its modification count, and also counts replacing an element as a
+     * modification
+     */
+    private final class MemberList extends ArrayList<E> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public E set(int index, E element) {
+            this.modCount++;
+            return super.set(index, element);
+        }
+
+        private int modCount() {
+            return this.modCount;
+        }
+    }
+}
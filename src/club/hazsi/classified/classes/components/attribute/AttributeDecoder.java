@@ -0,0 +1,26 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+
+/**
+ * Decodes the payload of an {@link AttributeInfo} into a structured form. Decoders are registered by attribute name
+ * in {@link AttributeDecoders}, and are only run when {@link AttributeInfo#getDecoded()} is first called, so the cost
+ * of decoding is never paid for attributes that are not looked at.
+ *
+ * @param <T> The type of the decoded attribute
+ * @author Hazsi
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface AttributeDecoder<T> {
+
+    /**
+     * Decodes the payload of an attribute. Implementations should read the payload in place through
+     * {@link AttributeInfo#getClassBuffer()}, and must not modify it.
+     *
+     * @param attribute The attribute to decode
+     * @return The decoded attribute
+     * @throws ClassFormatError If the payload is malformed
+     */
+    T decode(AttributeInfo attribute) throws ClassFormatError;
+}
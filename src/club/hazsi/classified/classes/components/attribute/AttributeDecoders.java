@@ -0,0 +1,46 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of {@link AttributeDecoder}s used by {@link AttributeInfo#getDecoded()}, keyed by attribute name. The
+ * attributes most tools need (Code, LineNumberTable, StackMapTable, BootstrapMethods and Signature) are registered
+ * by default; decoders for other attributes, including non-standard ones, can be added with
+ * {@link #register(String, AttributeDecoder)}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class AttributeDecoders {
+    private static final Map<String, AttributeDecoder<?>> DECODERS = new ConcurrentHashMap<>();
+
+    static {
+        register(CodeAttribute.NAME, CodeAttribute::new);
+        register(LineNumberTableAttribute.NAME, LineNumberTableAttribute::new);
+        register(StackMapTableAttribute.NAME, StackMapTableAttribute::new);
+        register(BootstrapMethodsAttribute.NAME, BootstrapMethodsAttribute::new);
+        register(SignatureAttribute.NAME, SignatureAttribute::new);
+    }
+
+    /**
+     * Registers a decoder, replacing any decoder previously registered for the same name. Attributes which have
+     * already been decoded keep their decoded form.
+     *
+     * @param name The name of the attribute, as found in the constant pool
+     * @param decoder The decoder to use for attributes with that name
+     */
+    public static void register(String name, AttributeDecoder<?> decoder) {
+        DECODERS.put(name, decoder);
+    }
+
+    /**
+     * @param name The name of the attribute, as found in the constant pool
+     * @return The decoder registered for that name, or {@code null} if there is none
+     */
+    public static AttributeDecoder<?> get(String name) {
+        return DECODERS.get(name);
+    }
+}
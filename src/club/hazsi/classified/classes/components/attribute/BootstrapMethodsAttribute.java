@@ -0,0 +1,88 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The decoded form of a {@code BootstrapMethods} attribute, as defined in section 4.7.23 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>. It
+ * lists the bootstrap methods referenced by the invokedynamic and dynamic entries of the constant pool:
+ *
+ * <pre>{@code
+ * BootstrapMethods_attribute {
+ *     u2   attribute_name_index;
+ *     u4   attribute_length;
+ *     u2   num_bootstrap_methods;
+ *     {   u2 bootstrap_method_ref;     // The CP index of a method handle
+ *         u2 num_bootstrap_arguments;
+ *         u2 bootstrap_arguments[num_bootstrap_arguments];     // CP indexes of loadable constants
+ *     } bootstrap_methods[num_bootstrap_methods];
+ * }
+ * }</pre>
+ *
+ * Since every bootstrap method has a variable amount of arguments, the offset of each one is recorded on decoding so
+ * that they can be looked up by index.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class BootstrapMethodsAttribute {
+    public static final String NAME = "BootstrapMethods";
+
+    private final int bootstrapMethodCount;
+
+    @Getter(AccessLevel.NONE) private final ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private final int[] offsets;
+
+    public BootstrapMethodsAttribute(AttributeInfo attribute) throws ClassFormatError {
+        final int payloadEnd = attribute.getPayloadOffset() + attribute.getPayloadLength();
+
+        this.classBuffer = attribute.getClassBuffer();
+
+        if (attribute.getPayloadLength() < 2) throw new ClassFormatError("truncated BootstrapMethods attribute");
+
+        this.bootstrapMethodCount = ByteUtil.readWORD(this.classBuffer, attribute.getPayloadOffset());
+        this.offsets = new int[this.bootstrapMethodCount];
+
+        int offset = attribute.getPayloadOffset() + 2;
+
+        for (int index = 0; index < this.bootstrapMethodCount; index++) {
+            if (offset + 4 > payloadEnd) throw new ClassFormatError("truncated BootstrapMethods attribute");
+
+            this.offsets[index] = offset;
+            offset += 4 + ByteUtil.readWORD(this.classBuffer, offset + 2) * 2;
+        }
+
+        if (offset != payloadEnd) throw new ClassFormatError("invalid BootstrapMethods attribute length");
+    }
+
+    /**
+     * @param index The index of the bootstrap method, as found in invokedynamic and dynamic pool entries
+     * @return The constant pool index of the method handle of the bootstrap method
+     */
+    public int getMethodRef(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.offsets[index]);
+    }
+
+    /**
+     * @param index The index of the bootstrap method
+     * @return The amount of static arguments passed to the bootstrap method
+     */
+    public int getArgumentCount(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.offsets[index] + 2);
+    }
+
+    /**
+     * @param index The index of the bootstrap method
+     * @param argument The index of the argument, from 0 to {@link #getArgumentCount(int)} exclusive
+     * @return The constant pool index of the argument
+     */
+    public int getArgument(int index, int argument) {
+        return ByteUtil.readWORD(this.classBuffer, this.offsets[index] + 4 + (argument << 1));
+    }
+}
@@ -0,0 +1,158 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * The decoded form of a {@code Code} attribute, as defined in section 4.7.3 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>. It
+ * holds the bytecode of a method, along with its exception handlers and further attributes (such as a
+ * {@link LineNumberTableAttribute} or {@link StackMapTableAttribute}):
+ *
+ * <pre>{@code
+ * Code_attribute {
+ *     u2   attribute_name_index;
+ *     u4   attribute_length;
+ *     u2   max_stack;
+ *     u2   max_locals;
+ *     u4   code_length;
+ *     u1   code[code_length];
+ *     u2   exception_table_length;
+ *     {   u2 start_pc;
+ *         u2 end_pc;
+ *         u2 handler_pc;
+ *         u2 catch_type;   // The CP index of the caught class, or 0 for finally blocks
+ *     } exception_table[exception_table_length];
+ *     u2   attributes_count;
+ *     attribute_info attributes[attributes_count];
+ * }
+ * }</pre>
+ *
+ * Neither the bytecode nor the exception table is copied: offsets into the class bytes are recorded instead, and
+ * the accessors read from there. The nested attributes are parsed as {@link AttributeInfo} slices.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class CodeAttribute {
+    public static final String NAME = "Code";
+
+    private final int maxStack;
+    private final int maxLocals;
+    private final int codeOffset;
+    private final int codeLength;
+    private final int exceptionTableLength;
+    private final ArrayList<AttributeInfo> attributeInfos = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE) private final ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private final int exceptionTableOffset;
+
+    public CodeAttribute(AttributeInfo attribute) throws ClassFormatError {
+        final int payloadOffset = attribute.getPayloadOffset();
+        final int payloadEnd = payloadOffset + attribute.getPayloadLength();
+
+        this.classBuffer = attribute.getClassBuffer();
+
+        if (attribute.getPayloadLength() < 12) throw new ClassFormatError("truncated Code attribute");
+
+        this.maxStack = ByteUtil.readWORD(this.classBuffer, payloadOffset);
+        this.maxLocals = ByteUtil.readWORD(this.classBuffer, payloadOffset + 2);
+        this.codeLength = ByteUtil.readDWORD(this.classBuffer, payloadOffset + 4);
+        this.codeOffset = payloadOffset + 8;
+
+        if (this.codeLength <= 0 || this.codeLength > payloadEnd - this.codeOffset - 4) {
+            throw new ClassFormatError("invalid Code attribute code length: " +
+                    Integer.toUnsignedLong(this.codeLength));
+        }
+
+        int offset = this.codeOffset + this.codeLength;
+
+        this.exceptionTableLength = ByteUtil.readWORD(this.classBuffer, offset);
+        this.exceptionTableOffset = offset + 2;
+
+        offset = this.exceptionTableOffset + this.exceptionTableLength * 8;     // Four u2 fields per handler
+        if (offset + 2 > payloadEnd) throw new ClassFormatError("truncated Code attribute exception table");
+
+        offset = AttributeInfo.readAttributes(this.classBuffer, offset + 2, ByteUtil.readWORD(this.classBuffer, offset),
+                attribute.getConstantPool(), this.attributeInfos);
+
+        if (offset != payloadEnd) throw new ClassFormatError("invalid Code attribute length");
+    }
+
+    /**
+     * @return A read-only view of the bytecode, positioned at 0. The view shares the class bytes and does not copy
+     * them.
+     */
+    public ByteBuffer getCode() {
+        return this.classBuffer.asReadOnlyBuffer().position(this.codeOffset).limit(this.codeOffset + this.codeLength)
+                .slice();
+    }
+
+    /**
+     * @return The buffer holding the raw bytes of the class, which {@link #getCodeOffset()} is relative to
+     */
+    public ByteBuffer getClassBuffer() {
+        return this.classBuffer;
+    }
+
+    /**
+     * @param index The index of the exception handler, from 0 to {@link #getExceptionTableLength()} exclusive
+     * @return The bytecode offset at which the handler's range starts, inclusive
+     */
+    public int getExceptionStartPc(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.exceptionTableOffset + (index << 3));
+    }
+
+    /**
+     * @param index The index of the exception handler, from 0 to {@link #getExceptionTableLength()} exclusive
+     * @return The bytecode offset at which the handler's range ends, exclusive
+     */
+    public int getExceptionEndPc(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.exceptionTableOffset + (index << 3) + 2);
+    }
+
+    /**
+     * @param index The index of the exception handler, from 0 to {@link #getExceptionTableLength()} exclusive
+     * @return The bytecode offset of the handler itself
+     */
+    public int getExceptionHandlerPc(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.exceptionTableOffset + (index << 3) + 4);
+    }
+
+    /**
+     * @param index The index of the exception handler, from 0 to {@link #getExceptionTableLength()} exclusive
+     * @return The constant pool index of the class caught by the handler, or 0 if it catches everything
+     */
+    public int getExceptionCatchType(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.exceptionTableOffset + (index << 3) + 6);
+    }
+
+    /**
+     * @return The LineNumberTable nested in this attribute, or {@code null} if there is none. If the compiler split
+     * the table over several attributes, only the first is returned.
+     */
+    public LineNumberTableAttribute getLineNumberTable() {
+        return this.findAttribute(LineNumberTableAttribute.NAME, LineNumberTableAttribute.class);
+    }
+
+    /**
+     * @return The StackMapTable nested in this attribute, or {@code null} if there is none
+     */
+    public StackMapTableAttribute getStackMapTable() {
+        return this.findAttribute(StackMapTableAttribute.NAME, StackMapTableAttribute.class);
+    }
+
+    private <T> T findAttribute(String name, Class<T> type) {
+        for (AttributeInfo attribute : this.attributeInfos) {
+            if (name.equals(attribute.getName())) return attribute.getDecoded(type);
+        }
+
+        return null;
+    }
+}
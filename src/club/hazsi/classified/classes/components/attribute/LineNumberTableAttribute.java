@@ -0,0 +1,88 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The decoded form of a {@code LineNumberTable} attribute, as defined in section 4.7.12 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>. It
+ * maps bytecode offsets of a Code attribute to source line numbers:
+ *
+ * <pre>{@code
+ * LineNumberTable_attribute {
+ *     u2   attribute_name_index;
+ *     u4   attribute_length;
+ *     u2   line_number_table_length;
+ *     {   u2 start_pc;         // The bytecode offset at which the line starts
+ *         u2 line_number;      // The source line number
+ *     } line_number_table[line_number_table_length];
+ * }
+ * }</pre>
+ *
+ * The table is read in place from the class bytes; no entry is copied.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class LineNumberTableAttribute {
+    public static final String NAME = "LineNumberTable";
+
+    private final int entryCount;
+
+    @Getter(AccessLevel.NONE) private final ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private final int tableOffset;
+
+    public LineNumberTableAttribute(AttributeInfo attribute) throws ClassFormatError {
+        this.classBuffer = attribute.getClassBuffer();
+        this.entryCount = ByteUtil.readWORD(this.classBuffer, attribute.getPayloadOffset());
+        this.tableOffset = attribute.getPayloadOffset() + 2;
+
+        if (2 + this.entryCount * 4 != attribute.getPayloadLength()) {
+            throw new ClassFormatError("invalid LineNumberTable attribute length");
+        }
+    }
+
+    /**
+     * @param index The index of the entry, from 0 to {@link #getEntryCount()} exclusive
+     * @return The bytecode offset at which the entry starts
+     */
+    public int getStartPc(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.tableOffset + (index << 2));
+    }
+
+    /**
+     * @param index The index of the entry, from 0 to {@link #getEntryCount()} exclusive
+     * @return The source line number of the entry
+     */
+    public int getLineNumber(int index) {
+        return ByteUtil.readWORD(this.classBuffer, this.tableOffset + (index << 2) + 2);
+    }
+
+    /**
+     * Finds the source line of a bytecode offset, that is the line of the entry with the greatest start offset not
+     * past {@code bci}. Entries are not required to be sorted, so the whole table is searched.
+     *
+     * @param bci The bytecode offset
+     * @return The source line number, or -1 if no entry covers the offset
+     */
+    public int getLineNumberAt(int bci) {
+        int bestStartPc = -1;
+        int line = -1;
+
+        for (int index = 0; index < this.entryCount; index++) {
+            final int startPc = this.getStartPc(index);
+
+            if (startPc <= bci && startPc > bestStartPc) {
+                bestStartPc = startPc;
+                line = this.getLineNumber(index);
+            }
+        }
+
+        return line;
+    }
+}
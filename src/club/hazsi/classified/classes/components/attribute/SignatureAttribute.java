@@ -0,0 +1,46 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * The decoded form of a {@code Signature} attribute, as defined in section 4.7.9 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>. It
+ * holds the generic signature of a class, field, method or record component:
+ *
+ * <pre>{@code
+ * Signature_attribute {
+ *     u2   attribute_name_index;
+ *     u4   attribute_length;   // Always 2
+ *     u2   signature_index;    // The CP index of the signature
+ * }
+ * }</pre>
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class SignatureAttribute {
+    public static final String NAME = "Signature";
+
+    private final int signatureIndex;
+
+    @Getter(AccessLevel.NONE) private final ClassConstantPool constantPool;
+
+    public SignatureAttribute(AttributeInfo attribute) throws ClassFormatError {
+        if (attribute.getPayloadLength() != 2) throw new ClassFormatError("invalid Signature attribute length");
+
+        this.constantPool = attribute.getConstantPool();
+        this.signatureIndex = ByteUtil.readWORD(attribute.getClassBuffer(), attribute.getPayloadOffset());
+    }
+
+    /**
+     * @return The generic signature, such as {@code <T:Ljava/lang/Object;>Ljava/lang/Object;}
+     */
+    public String getSignature() {
+        return this.constantPool.getUtf8(this.signatureIndex);
+    }
+}
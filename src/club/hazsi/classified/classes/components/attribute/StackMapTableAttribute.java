@@ -0,0 +1,135 @@
+package club.hazsi.classified.classes.components.attribute;
+
+import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The decoded form of a {@code StackMapTable} attribute, as defined in section 4.7.4 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>. It
+ * holds the stack map frames used by the type checking verifier:
+ *
+ * <pre>{@code
+ * StackMapTable_attribute {
+ *     u2   attribute_name_index;
+ *     u4   attribute_length;
+ *     u2   number_of_entries;
+ *     stack_map_frame entries[number_of_entries];
+ * }
+ * }</pre>
+ *
+ * Frames vary in size depending on their type, so decoding walks the table once and records the offset of every
+ * frame; the contents of the frames are left in the class bytes.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class StackMapTableAttribute {
+    public static final String NAME = "StackMapTable";
+
+    private final int frameCount;
+
+    @Getter(AccessLevel.NONE) private final ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private final int[] frameOffsets;
+
+    public StackMapTableAttribute(AttributeInfo attribute) throws ClassFormatError {
+        final int payloadEnd = attribute.getPayloadOffset() + attribute.getPayloadLength();
+
+        this.classBuffer = attribute.getClassBuffer();
+
+        if (attribute.getPayloadLength() < 2) throw new ClassFormatError("truncated StackMapTable attribute");
+
+        this.frameCount = ByteUtil.readWORD(this.classBuffer, attribute.getPayloadOffset());
+        this.frameOffsets = new int[this.frameCount];
+
+        int offset = attribute.getPayloadOffset() + 2;
+
+        for (int index = 0; index < this.frameCount; index++) {
+            if (offset >= payloadEnd) throw new ClassFormatError("truncated StackMapTable attribute");
+
+            this.frameOffsets[index] = offset;
+            offset = this.skipFrame(offset);
+        }
+
+        if (offset != payloadEnd) throw new ClassFormatError("invalid StackMapTable attribute length");
+    }
+
+    /**
+     * @param index The index of the frame, from 0 to {@link #getFrameCount()} exclusive
+     * @return The offset of the frame's type byte within the class bytes
+     */
+    public int getFrameOffset(int index) {
+        return this.frameOffsets[index];
+    }
+
+    /**
+     * @param index The index of the frame, from 0 to {@link #getFrameCount()} exclusive
+     * @return The frame type byte, from 0 to 255
+     */
+    public int getFrameType(int index) {
+        return ByteUtil.readByte(this.classBuffer, this.frameOffsets[index]);
+    }
+
+    /**
+     * @param index The index of the frame, from 0 to {@link #getFrameCount()} exclusive
+     * @return The offset delta of the frame, which is either implied by the frame type or stored after it
+     */
+    public int getOffsetDelta(int index) {
+        final int type = this.getFrameType(index);
+
+        if (type < 64) return type;                 // same_frame
+        if (type < 128) return type - 64;           // same_locals_1_stack_item_frame
+        return ByteUtil.readWORD(this.classBuffer, this.frameOffsets[index] + 1);
+    }
+
+    /**
+     * Steps over a single stack_map_frame
+     *
+     * @return The offset directly after the frame
+     */
+    private int skipFrame(int offset) {
+        final int type = ByteUtil.readByte(this.classBuffer, offset);
+
+        if (type < 64) return offset + 1;                                   // same_frame
+        if (type < 128) return this.skipVerificationType(offset + 1);       // same_locals_1_stack_item_frame
+        if (type < 247) throw new ClassFormatError("reserved stack map frame type: " + type);
+        if (type == 247) return this.skipVerificationType(offset + 3);      // same_locals_1_stack_item_frame_extended
+        if (type < 252) return offset + 3;                                  // chop_frame, same_frame_extended
+
+        if (type < 255) {                                                   // append_frame
+            offset += 3;
+            for (int local = 0; local < type - 251; local++) offset = this.skipVerificationType(offset);
+            return offset;
+        }
+
+        offset += 3;                                                        // full_frame
+
+        final int localCount = ByteUtil.readWORD(this.classBuffer, offset);
+        offset += 2;
+        for (int local = 0; local < localCount; local++) offset = this.skipVerificationType(offset);
+
+        final int stackCount = ByteUtil.readWORD(this.classBuffer, offset);
+        offset += 2;
+        for (int stack = 0; stack < stackCount; stack++) offset = this.skipVerificationType(offset);
+
+        return offset;
+    }
+
+    /**
+     * Steps over a single verification_type_info, which is one byte long except for Object_variable_info and
+     * Uninitialized_variable_info, which carry a two byte index or offset
+     *
+     * @return The offset directly after the verification type
+     */
+    private int skipVerificationType(int offset) {
+        final int tag = ByteUtil.readByte(this.classBuffer, offset);
+
+        if (tag <= 6) return offset + 1;
+        if (tag <= 8) return offset + 3;
+        throw new ClassFormatError("invalid verification type: " + tag);
+    }
+}
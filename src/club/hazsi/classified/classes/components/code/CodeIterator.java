@@ -0,0 +1,285 @@
+package club.hazsi.classified.classes.components.code;
+
+import club.hazsi.classified.classes.components.attribute.CodeAttribute;
+import club.hazsi.classified.util.ByteUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A cursor over the instructions of a {@link CodeAttribute}. The iterator reads the bytecode in place and exposes the
+ * current instruction through primitive accessors; nothing is allocated while walking, and a single iterator can be
+ * reused across any number of methods by calling {@link #reset(CodeAttribute)}:
+ *
+ * <pre>{@code
+ * final CodeIterator iterator = new CodeIterator();
+ *
+ * for (ClassMethodTableEntry method : methods) {
+ *     final CodeAttribute code = method.getCode();
+ *     if (code == null) continue;
+ *
+ *     iterator.reset(code);
+ *     while (iterator.next()) {
+ *         if (iterator.getOpcode() == Opcodes.INVOKEVIRTUAL) calls.add(iterator.getConstantIndex());
+ *     }
+ * }
+ * }</pre>
+ *
+ * Instructions modified by {@code wide} are reported as a single instruction: {@link #getOpcode()} returns the
+ * modified opcode (such as {@code iload}), {@link #isWide()} returns true, and the operand accessors account for the
+ * wider operands. Operand accessors must only be called for instructions which have that operand; calling them for
+ * other instructions returns meaningless values.
+ *
+ * @see Opcodes
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class CodeIterator {
+    private ByteBuffer classBuffer;
+    private int codeOffset;
+    private int codeLength;
+
+    private int bci;
+    private int length;
+    private int opcode;
+    private boolean wide;
+    private int switchOffset;   // The offset of the default target of a switch, past its padding
+
+    /**
+     * Resets the iterator to just before the first instruction of the provided Code attribute.
+     *
+     * @param code The Code attribute to iterate over
+     * @return This iterator
+     */
+    public CodeIterator reset(CodeAttribute code) {
+        return this.reset(code.getClassBuffer(), code.getCodeOffset(), code.getCodeLength());
+    }
+
+    /**
+     * Resets the iterator to just before the first instruction of a range of bytecode.
+     *
+     * @param classBuffer The buffer holding the bytecode
+     * @param codeOffset The offset of the first instruction within {@code classBuffer}. Switch padding is relative to
+     *                   this offset.
+     * @param codeLength The length of the bytecode, in bytes
+     * @return This iterator
+     */
+    public CodeIterator reset(ByteBuffer classBuffer, int codeOffset, int codeLength) {
+        this.classBuffer = classBuffer;
+        this.codeOffset = codeOffset;
+        this.codeLength = codeLength;
+        this.bci = 0;
+        this.length = 0;
+        this.opcode = -1;
+        this.wide = false;
+        return this;
+    }
+
+    /**
+     * Advances to the next instruction.
+     *
+     * @return Whether there was another instruction, or false if the end of the bytecode has been reached
+     * @throws ClassFormatError If the opcode is invalid, or the instruction runs past the end of the bytecode
+     */
+    public boolean next() throws ClassFormatError {
+        this.bci += this.length;
+
+        if (this.bci >= this.codeLength) {
+            this.length = 0;
+            return false;
+        }
+
+        final int offset = this.codeOffset + this.bci;
+
+        this.opcode = ByteUtil.readByte(this.classBuffer, offset);
+        this.wide = false;
+        this.length = Opcodes.getLength(this.opcode);
+
+        if (this.length <= 0) this.length = this.readVariableLength(offset);
+
+        if (this.length > this.codeLength - this.bci) {
+            throw new ClassFormatError("instruction at bci " + this.bci + " runs past the end of the code");
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines the length of a {@code wide}, {@code tableswitch} or {@code lookupswitch} instruction, or rejects an
+     * invalid opcode
+     */
+    private int readVariableLength(int offset) {
+        switch (this.opcode) {
+            case Opcodes.WIDE -> {
+                if (this.bci + 1 >= this.codeLength) throw new ClassFormatError("truncated wide instruction");
+
+                this.opcode = ByteUtil.readByte(this.classBuffer, offset + 1);
+                this.wide = true;
+
+                if (this.opcode == Opcodes.IINC) return 6;
+                if ((this.opcode >= Opcodes.ILOAD && this.opcode <= Opcodes.ALOAD) ||
+                        (this.opcode >= Opcodes.ISTORE && this.opcode <= Opcodes.ASTORE) ||
+                        this.opcode == Opcodes.RET) {
+                    return 4;
+                }
+
+                throw new ClassFormatError("invalid opcode modified by wide: " + this.opcode);
+            }
+            case Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH -> {
+                // The operands are padded to start at a multiple of four from the start of the code
+                this.switchOffset = offset + 1 + ((3 - this.bci) & 3);
+                final int headerLength = this.opcode == Opcodes.TABLESWITCH ? 12 : 8;  // Default and low/high or npairs
+                if (this.switchOffset + headerLength > this.codeOffset + this.codeLength) {
+                    throw new ClassFormatError("truncated switch instruction at bci " + this.bci);
+                }
+
+                final long caseCount;
+                if (this.opcode == Opcodes.TABLESWITCH) {
+                    final int low = ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 4);
+                    final int high = ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 8);
+                    if (high < low) throw new ClassFormatError("tableswitch at bci " + this.bci + " has high < low");
+
+                    caseCount = (long) high - low + 1;      // As a long, as the full int range would overflow to 0
+                } else {
+                    caseCount = ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 4);
+                }
+
+                final long length = this.switchOffset - offset + headerLength +
+                        caseCount * (this.opcode == Opcodes.TABLESWITCH ? 4 : 8);
+
+                if (caseCount < 0 || length > this.codeLength - this.bci) {
+                    throw new ClassFormatError("invalid switch instruction at bci " + this.bci);
+                }
+
+                return (int) length;
+            }
+            default -> throw new ClassFormatError("invalid opcode at bci " + this.bci + ": " + this.opcode);
+        }
+    }
+
+    /**
+     * @return The offset of the current instruction from the start of the bytecode
+     */
+    public int getBci() {
+        return this.bci;
+    }
+
+    /**
+     * @return The opcode of the current instruction, see {@link Opcodes}. For instructions modified by {@code wide},
+     * this is the modified opcode.
+     */
+    public int getOpcode() {
+        return this.opcode;
+    }
+
+    /**
+     * @return The length in bytes of the current instruction, including its opcode, padding and any {@code wide}
+     * prefix
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * @return Whether the current instruction is modified by {@code wide}
+     */
+    public boolean isWide() {
+        return this.wide;
+    }
+
+    /**
+     * @return The local variable index operand of a load, store, {@code ret} or {@code iinc} instruction
+     */
+    public int getLocalIndex() {
+        final int offset = this.codeOffset + this.bci;
+        return this.wide ? ByteUtil.readWORD(this.classBuffer, offset + 2) :
+                ByteUtil.readByte(this.classBuffer, offset + 1);
+    }
+
+    /**
+     * @return The signed increment operand of an {@code iinc} instruction
+     */
+    public int getIncrement() {
+        final int offset = this.codeOffset + this.bci;
+        return this.wide ? (short) ByteUtil.readWORD(this.classBuffer, offset + 4) :
+                (byte) ByteUtil.readByte(this.classBuffer, offset + 2);
+    }
+
+    /**
+     * @return The constant pool index operand of an {@code ldc}, {@code ldc_w}, {@code ldc2_w}, field, invoke,
+     * {@code new}, {@code anewarray}, {@code checkcast}, {@code instanceof} or {@code multianewarray} instruction
+     */
+    public int getConstantIndex() {
+        final int offset = this.codeOffset + this.bci;
+        return this.opcode == Opcodes.LDC ? ByteUtil.readByte(this.classBuffer, offset + 1) :
+                ByteUtil.readWORD(this.classBuffer, offset + 1);
+    }
+
+    /**
+     * @return The immediate operand of a {@code bipush} or {@code sipush} instruction (sign extended), the array type
+     * of a {@code newarray} instruction, the dimensions of a {@code multianewarray} instruction, or the argument
+     * count of an {@code invokeinterface} instruction
+     */
+    public int getImmediate() {
+        final int offset = this.codeOffset + this.bci;
+
+        return switch (this.opcode) {
+            case Opcodes.BIPUSH -> (byte) ByteUtil.readByte(this.classBuffer, offset + 1);
+            case Opcodes.SIPUSH -> (short) ByteUtil.readWORD(this.classBuffer, offset + 1);
+            case Opcodes.MULTIANEWARRAY, Opcodes.INVOKEINTERFACE -> ByteUtil.readByte(this.classBuffer, offset + 3);
+            default -> ByteUtil.readByte(this.classBuffer, offset + 1);
+        };
+    }
+
+    /**
+     * @return The bci targeted by a conditional branch, {@code goto}, {@code jsr}, {@code goto_w} or {@code jsr_w}
+     * instruction
+     */
+    public int getBranchTarget() {
+        final int offset = this.codeOffset + this.bci;
+        final boolean wideOffset = this.opcode == Opcodes.GOTO_W || this.opcode == Opcodes.JSR_W;
+        return this.bci + (wideOffset ? ByteUtil.readDWORD(this.classBuffer, offset + 1) :
+                (short) ByteUtil.readWORD(this.classBuffer, offset + 1));
+    }
+
+    /**
+     * @return The bci targeted by the default case of a {@code tableswitch} or {@code lookupswitch} instruction
+     */
+    public int getSwitchDefault() {
+        return this.bci + ByteUtil.readDWORD(this.classBuffer, this.switchOffset);
+    }
+
+    /**
+     * @return The amount of non-default cases of a {@code tableswitch} or {@code lookupswitch} instruction. It always
+     * fits in an {@code int}, as the cases of every instruction the iterator accepts fit in the code.
+     */
+    public int getSwitchCaseCount() {
+        if (this.opcode == Opcodes.LOOKUPSWITCH) return ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 4);
+
+        return ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 8) -
+                ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 4) + 1;    // high - low + 1
+    }
+
+    /**
+     * @param index The index of the case, from 0 to {@link #getSwitchCaseCount()} exclusive
+     * @return The key matched by a case of a {@code tableswitch} or {@code lookupswitch} instruction
+     */
+    public int getSwitchKey(int index) {
+        if (this.opcode == Opcodes.LOOKUPSWITCH) {
+            return ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 8 + (index << 3));
+        }
+
+        return ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 4) + index;     // low + index
+    }
+
+    /**
+     * @param index The index of the case, from 0 to {@link #getSwitchCaseCount()} exclusive
+     * @return The bci targeted by a case of a {@code tableswitch} or {@code lookupswitch} instruction
+     */
+    public int getSwitchTarget(int index) {
+        if (this.opcode == Opcodes.LOOKUPSWITCH) {
+            return this.bci + ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 12 + (index << 3));
+        }
+
+        return this.bci + ByteUtil.readDWORD(this.classBuffer, this.switchOffset + 12 + (index << 2));
+    }
+}
@@ -1,40 +1,1053 @@
 package club.hazsi.classified.classes.components.constantpool;
 
 import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ValidationLevel;
+import club.hazsi.classified.classes.components.constantpool.entry.UTF8PoolEntry;
+import club.hazsi.classified.classes.components.descriptor.DescriptorCache;
+import club.hazsi.classified.classes.components.descriptor.FieldDescriptor;
+import club.hazsi.classified.classes.components.descriptor.MethodDescriptor;
+import club.hazsi.classified.util.ByteUtil;
+import club.hazsi.classified.util.ModifiedUTF8;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.List;
 
-// TODO write this javadoc
+/**
+ * Represents the constant pool of a class, as defined in section 4.4 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html">class file format specifications</a>.
+ * <br><br>
+ *
+ * The pool is parsed lazily. Construction only makes one pass over the pool bytes, recording the tag and the offset
+ * of every entry in two primitive arrays indexed by constant pool index. {@link ClassConstantPoolEntry} instances are
+ * only created the first time they are requested through {@link #getEntry(int)} or {@link #getEntries()}, and are
+ * kept afterwards. Analyses which only touch a handful of entries therefore never pay for the rest of the pool.<br><br>
+ *
+ * All indexes used by this class are constant pool indexes, exactly as they appear elsewhere in the class file. Index
+ * 0 is never valid, and neither is the index directly following a long or double entry (both take up two slots in
+ * the table); these slots hold a tag of 0 and a {@code null} entry.<br><br>
+ *
+ * For hot paths, typed accessors such as {@link #getInt(int)}, {@link #getClassNameIndex(int)},
+ * {@link #getRefOwner(int)} and {@link #getNameAndType(int)} read primitives straight from the class bytes. Unlike
+ * {@link ClassConstantPoolEntry#getParsedData()}, they never create an entry, box a value or allocate a tuple.<br><br>
+ *
+ * Entries can be appended to the pool with {@link #appendEntry(byte[])}. Existing entries can never be changed or
+ * removed, as other parts of the class refer to them by index. Appended entries are held in a separate buffer until
+ * the class bytes are written, at which point the original entries are copied over in bulk and followed by the
+ * appended ones.<br><br>
+ *
+ * While the pool is indexed, every tag is checked against the bitset of tags allowed by the major version of the
+ * class, see {@link ClassConstantPoolEntryType#getAllowedTags(int)}. Further checks depend on the
+ * {@link ValidationLevel} of the pool: at {@link ValidationLevel#STRUCTURAL}, a second pass checks that every
+ * reference between entries points at an entry of the right type.<br><br>
+ *
+ * UTF-8 entries can be looked up by value with {@link #findUtf8(String)}. The lookup uses a hash index built from the
+ * raw entry bytes on first use, and compares the encoded query against the bytes in place, so neither building the
+ * index nor querying it decodes any pool strings.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
 @Getter
 public class ClassConstantPool {
     private final ClassFile parentClass;
-    private final int tableSize;
-    private final int length;
-    private final ArrayList<ClassConstantPoolEntry<?>> entries = new ArrayList<>();
+    private final int majorVersion;
+    private final ValidationLevel validationLevel;
+    private int tableSize;
+    private int length;
+    private final List<ClassConstantPoolEntry<?>> entries = new EntryList();
 
-    public ClassConstantPool(byte[] classBytes, ClassFile parentClass) {
-        this.tableSize = Byte.toUnsignedInt(classBytes[9]) - 1;
+    private static final int NAMED_TAGS = 1 << ClassConstantPoolEntryType.CLASS.getValue() |
+            1 << ClassConstantPoolEntryType.MODULE.getValue() | 1 << ClassConstantPoolEntryType.PACKAGE.getValue();
+    private static final int REF_TAGS = 1 << ClassConstantPoolEntryType.FIELD_REF.getValue() |
+            1 << ClassConstantPoolEntryType.METHOD_REF.getValue() |
+            1 << ClassConstantPoolEntryType.INTERFACE_METHOD_REF.getValue();
+    private static final int DYNAMIC_TAGS = 1 << ClassConstantPoolEntryType.DYNAMIC.getValue() |
+            1 << ClassConstantPoolEntryType.INVOKE_DYNAMIC.getValue();
+    private static final int UTF8_TAG = 1 << ClassConstantPoolEntryType.UTF8.getValue();
+    private static final int CLASS_TAG = 1 << ClassConstantPoolEntryType.CLASS.getValue();
+    private static final int NAME_AND_TYPE_TAG = 1 << ClassConstantPoolEntryType.NAME_AND_TYPE.getValue();
+    private static final int FIELD_REF_TAG = 1 << ClassConstantPoolEntryType.FIELD_REF.getValue();
+    private static final int METHOD_REF_TAG = 1 << ClassConstantPoolEntryType.METHOD_REF.getValue();
+    private static final int INTERFACE_METHOD_REF_TAG = 1 << ClassConstantPoolEntryType.INTERFACE_METHOD_REF.getValue();
+
+    // The types the references held by each type of entry must point at, by tag, as a bitset of tags. The first
+    // reference directly follows the tag byte, and the second follows the first; a bitset of 0 means the entry holds
+    // no such reference. Method handles, whose reference follows their kind, are checked separately.
+    private static final int[] FIRST_REFERENCE_TAGS = new int[32];
+    private static final int[] SECOND_REFERENCE_TAGS = new int[32];
+    static {
+        for (ClassConstantPoolEntryType type : new ClassConstantPoolEntryType[] {ClassConstantPoolEntryType.CLASS,
+                ClassConstantPoolEntryType.STRING, ClassConstantPoolEntryType.METHOD_TYPE,
+                ClassConstantPoolEntryType.MODULE, ClassConstantPoolEntryType.PACKAGE}) {
+            FIRST_REFERENCE_TAGS[type.getValue()] = UTF8_TAG;
+        }
+
+        for (ClassConstantPoolEntryType type : new ClassConstantPoolEntryType[] {ClassConstantPoolEntryType.FIELD_REF,
+                ClassConstantPoolEntryType.METHOD_REF, ClassConstantPoolEntryType.INTERFACE_METHOD_REF}) {
+            FIRST_REFERENCE_TAGS[type.getValue()] = CLASS_TAG;
+            SECOND_REFERENCE_TAGS[type.getValue()] = NAME_AND_TYPE_TAG;
+        }
+
+        FIRST_REFERENCE_TAGS[ClassConstantPoolEntryType.NAME_AND_TYPE.getValue()] = UTF8_TAG;
+        SECOND_REFERENCE_TAGS[ClassConstantPoolEntryType.NAME_AND_TYPE.getValue()] = UTF8_TAG;
+        SECOND_REFERENCE_TAGS[ClassConstantPoolEntryType.DYNAMIC.getValue()] = NAME_AND_TYPE_TAG;
+        SECOND_REFERENCE_TAGS[ClassConstantPoolEntryType.INVOKE_DYNAMIC.getValue()] = NAME_AND_TYPE_TAG;
+    }
+
+    @Getter(AccessLevel.NONE) private ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private int offset;
+    @Getter(AccessLevel.NONE) private byte[] tags;
+    @Getter(AccessLevel.NONE) private int[] offsets;
+    @Getter(AccessLevel.NONE) private ClassConstantPoolEntry<?>[] materializedEntries;
+
+    @Getter(AccessLevel.NONE) private int sourceTableSize;      // Entries past this index were appended, and are
+    @Getter(AccessLevel.NONE) private ByteBuffer appendedBuffer; // held in appendedBuffer rather than classBuffer
+    @Getter(AccessLevel.NONE) private int appendedLength;
+    @Getter(AccessLevel.NONE) private volatile Utf8Index utf8Index;    // Built on the first UTF-8 lookup
+    @Getter(AccessLevel.NONE) private Object[] descriptors;             // Parsed descriptors, by constant pool index
+    @Getter(AccessLevel.NONE) private final int allowedTags;            // The tags allowed by the major version
+    @Getter(AccessLevel.NONE) private byte[] scannedTags;   // The tags of the pool last checked by scanExtension, if
+                                                            // it has more entries, until it is taken over by rebase
+
+    public ClassConstantPool(ByteBuffer classBuffer, int offset, ClassFile parentClass) {
+        this(classBuffer, offset, parentClass, ValidationLevel.STRUCTURAL);
+    }
+
+    /**
+     * Indexes the pool starting at {@code offset}, checking it as thoroughly as the validation level asks for. The
+     * tag of every entry is always checked, see {@link ValidationLevel}.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the two count bytes of the pool within {@code classBuffer}
+     * @param parentClass The class the pool belongs to
+     * @param validationLevel How thoroughly the pool is checked
+     * @throws ClassFormatError If the pool is malformed
+     */
+    public ClassConstantPool(ByteBuffer classBuffer, int offset, ClassFile parentClass,
+                             ValidationLevel validationLevel) {
+        this.tableSize = ByteUtil.readWORD(classBuffer, offset) - 1;
+        this.majorVersion = ByteUtil.readWORD(classBuffer, offset - 2);  // The major version always directly
+                                                                        // precedes the constant_pool_count
+        this.validationLevel = validationLevel;
+        this.allowedTags = ClassConstantPoolEntryType.getAllowedTags(this.majorVersion);
         this.parentClass = parentClass;
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.sourceTableSize = this.tableSize;
+        this.tags = new byte[this.tableSize + 1];
+        this.offsets = new int[this.tableSize + 1];
+        this.materializedEntries = new ClassConstantPoolEntry<?>[this.tableSize + 1];
+
+        final int entryOffset = this.indexEntries(classBuffer, 1, this.tableSize, offset + 2, this.tags, this.offsets);
+
+        this.length = entryOffset - offset - 2;     // At this point, entryOffset represents the OFFSET of the end of
+                                                    // the constant pool. Subtracting the offset of the pool and the
+                                                    // two count bytes represents only the size of the pool entries.
+
+        if (validationLevel == ValidationLevel.NONE) return;
+
+        this.checkEntries(classBuffer, this.tags, this.offsets, 1, this.tableSize, this.tableSize);
+
+        if (validationLevel == ValidationLevel.STRICT) this.checkNameAndTypeDescriptors();
+    }
+
+    /**
+     * Indexes the entries from {@code firstIndex} to {@code lastIndex}, checking that each lies within the buffer and
+     * fits in the table, and is of a known type, and unless the validation level is {@link ValidationLevel#NONE}, of a
+     * type allowed by the major version of the class. Entries are only indexed here, not built, see
+     * {@link #getEntry(int)}.
+     *
+     * @param tags The array to record the tag of every entry in, or {@code null} to only step over the entries
+     * @param offsets The array to record the offset of every entry in, or {@code null} along with {@code tags}
+     * @return The offset directly after the last entry
+     */
+    private int indexEntries(ByteBuffer classBuffer, int firstIndex, int lastIndex, int entryOffset, byte[] tags,
+                             int[] offsets) {
+        final int allowedTags = this.validationLevel == ValidationLevel.NONE ?
+                ClassConstantPoolEntryType.getKnownTags() : this.allowedTags;
+        final int limit = classBuffer.limit();
+
+        for (int currentEntryIndex = firstIndex; currentEntryIndex <= lastIndex; currentEntryIndex++) {
+            if (entryOffset + 3 > limit) {      // Every entry is at least three bytes long
+                throw new ClassFormatError("constant pool runs past the end of the class file");
+            }
+
+            final int tag = ByteUtil.readByte(classBuffer, entryOffset);
+            final ClassConstantPoolEntryType type = ClassConstantPoolEntryType.getByValue(tag);
+
+            if ((tag & ~31) != 0 || (allowedTags & 1 << tag) == 0) {
+                throw new ClassFormatError(type == ClassConstantPoolEntryType.UNKNOWN ?
+                        "invalid constant pool entry type: " + tag :
+                        "type \"" + type.name() + "\" not allowed in major class version " + this.majorVersion);
+            }
+
+            if (tags != null) {
+                tags[currentEntryIndex] = (byte) tag;
+                offsets[currentEntryIndex] = entryOffset;
+            }
+
+            entryOffset += type.getEntrySize(classBuffer, entryOffset);
+
+            if (entryOffset > limit) throw new ClassFormatError("constant pool runs past the end of the class file");
+
+            // Long and double entries take up two slots in the table, the second of which has no bytes
+            if (type.isWide()) {
+                if (currentEntryIndex == lastIndex) {
+                    throw new ClassFormatError("constant pool entry " + currentEntryIndex + " of type " + type.name() +
+                            " has no second slot");
+                }
+
+                currentEntryIndex++;
+            }
+        }
+
+        return entryOffset;
+    }
+
+    /**
+     * Checks that every reference held by the entries from {@code firstIndex} to {@code lastIndex} points at an entry
+     * of the right type, see {@link ValidationLevel#STRUCTURAL}. At {@link ValidationLevel#STRICT}, UTF-8 entries are
+     * also checked to be valid modified UTF-8.
+     *
+     * @param tags The tags of every entry of the pool, by constant pool index
+     * @param offsets The offsets of the entries from {@code firstIndex} to {@code lastIndex} within
+     * {@code classBuffer}
+     * @param tableSize The index of the last entry of the pool, which may be past {@code lastIndex}
+     */
+    private void checkEntries(ByteBuffer classBuffer, byte[] tags, int[] offsets, int firstIndex, int lastIndex,
+                              int tableSize) {
+        final boolean strict = this.validationLevel == ValidationLevel.STRICT;
+
+        for (int index = firstIndex; index <= lastIndex; index++) {
+            final int tag = tags[index];
+            final int firstReferenceTags = FIRST_REFERENCE_TAGS[tag];
+            final int secondReferenceTags = SECOND_REFERENCE_TAGS[tag];
+
+            if ((firstReferenceTags | secondReferenceTags) != 0) {
+                final int offset = offsets[index];
+
+                if (firstReferenceTags != 0) {
+                    checkEntryReference(tags, tableSize, index, ByteUtil.readWORD(classBuffer, offset + 1),
+                            firstReferenceTags);
+                }
+
+                if (secondReferenceTags != 0) {
+                    checkEntryReference(tags, tableSize, index, ByteUtil.readWORD(classBuffer, offset + 3),
+                            secondReferenceTags);
+                }
+            } else if (tag == ClassConstantPoolEntryType.METHOD_HANDLE.getValue()) {
+                final int offset = offsets[index];
 
-        int entryOffset = 10;   // Used to keep track of the byte offset of the entry currently being parsed.
-                                // Per the classfile specification, the offset of the first entry will always be
-                                // exactly 10 bytes from the start of the file
+                checkEntryReference(tags, tableSize, index, ByteUtil.readWORD(classBuffer, offset + 2),
+                        this.methodHandleTargets(index, ByteUtil.readByte(classBuffer, offset + 1)));
+            } else if (strict && tag == ClassConstantPoolEntryType.UTF8.getValue()) {
+                final int offset = offsets[index];
 
-        for (int currentEntryIndex = 0; currentEntryIndex < this.tableSize - 1; currentEntryIndex++) {
-            byte[] currentEntryBytes = Arrays.copyOfRange(classBytes, entryOffset, classBytes.length);
-            ClassConstantPoolEntry<?> currentEntry = ClassConstantPoolEntryFactory.make(currentEntryBytes);
+                ModifiedUTF8.validate(classBuffer, offset + 3, ByteUtil.readWORD(classBuffer, offset + 1));
+            }
+        }
+    }
 
-            entryOffset += currentEntry.getSize();
-            this.entries.add(currentEntry);
+    /**
+     * @return The bitset of the types a method handle of the given {@code reference_kind} may point at, as given by
+     * section 4.4.8 of the class file format specifications
+     * @throws ClassFormatError If the kind is not between 1 and 9
+     */
+    private int methodHandleTargets(int index, int kind) {
+        switch (kind) {
+            case 1: case 2: case 3: case 4:     // getField, getStatic, putField, putStatic
+                return FIELD_REF_TAG;
+            case 5: case 8:                     // invokeVirtual, newInvokeSpecial
+                return METHOD_REF_TAG;
+            case 6: case 7:                     // invokeStatic, invokeSpecial, on interfaces only from Java 8
+                return this.majorVersion >= 52 ? METHOD_REF_TAG | INTERFACE_METHOD_REF_TAG : METHOD_REF_TAG;
+            case 9:                             // invokeInterface
+                return INTERFACE_METHOD_REF_TAG;
+            default:
+                throw new ClassFormatError("constant pool entry " + index + " has invalid method handle kind " + kind);
         }
+    }
+
+    private static void checkEntryReference(byte[] tags, int tableSize, int index, int reference,
+                                            int allowedTagMask) {
+        if (!isReference(tags, tableSize, reference, allowedTagMask)) {
+            throw new ClassFormatError("constant pool entry " + index + " of type " +
+                    ClassConstantPoolEntryType.getByValue(tags[index]).name() + " refers to invalid entry " +
+                    reference);
+        }
+    }
+
+    /**
+     * @return Whether {@code index} is the index of an entry of the pool of one of the given types. Index 0 and the
+     * second slots of long and double entries have a tag of 0, which no mask includes.
+     */
+    private static boolean isReference(byte[] tags, int tableSize, int index, int allowedTagMask) {
+        return index >= 1 && index <= tableSize && (allowedTagMask & 1 << tags[index]) != 0;
+    }
+
+    /**
+     * Checks that the descriptor of every name and type entry is a valid field or method descriptor, see
+     * {@link ValidationLevel#STRICT}. Descriptors are parsed and cached, as by {@link #getMethodDescriptor(int)}.
+     */
+    private void checkNameAndTypeDescriptors() {
+        for (int index = 1; index <= this.tableSize; index++) {
+            if (this.tags[index] != ClassConstantPoolEntryType.NAME_AND_TYPE.getValue()) continue;
+
+            final int descriptorIndex = ByteUtil.readWORD(this.classBuffer, this.offsets[index] + 3);
 
-        this.length = entryOffset - 10;     // The entryOffset variable will be 10 higher than the actual byte length
-                                            // of the constant pool, as we started with a value of 10 because the
-                                            // constant pool starts at an offset of 10 bytes. In other words, at this
-                                            // point, entryOffset represents the OFFSET of the end of the constant
-                                            // pool, and subtracting 10 represents only the size of the pool.
+            if (this.getUtf8(descriptorIndex).startsWith("(")) {
+                this.getMethodDescriptor(descriptorIndex);
+            } else {
+                this.getFieldDescriptor(descriptorIndex);
+            }
+        }
+    }
+
+    /**
+     * Checks that an index read elsewhere in the class, such as the this class of the class declaration, refers to an
+     * entry of one of the given types. Between {@link #scanExtension(ByteBuffer, int)} and
+     * {@link #rebase(ByteBuffer, int)}, the entries of the scanned pool are checked instead.
+     *
+     * @param index The constant pool index to check
+     * @param allowedTagMask The bitset of the tags the entry may have, in which the tag {@code t} is allowed if bit
+     * {@code 1 << t} is set
+     * @param referrer A description of what holds the index, for the error message
+     * @throws ClassFormatError If the index is not the index of an entry of one of the given types
+     */
+    public void checkReference(int index, int allowedTagMask, String referrer) {
+        final boolean scanned = this.scannedTags != null;
+
+        if (!isReference(scanned ? this.scannedTags : this.tags, scanned ? this.scannedTags.length - 1 :
+                this.tableSize, index, allowedTagMask)) {
+            throw new ClassFormatError(referrer + " refers to invalid constant pool entry " + index);
+        }
+    }
+
+    /**
+     * Returns the entry at the given constant pool index, creating it on first access.
+     *
+     * @param index The constant pool index of the entry
+     * @return The entry at {@code index}, or {@code null} if the index is 0 or the second slot of a long or double
+     * @throws IndexOutOfBoundsException If the index is outside the constant pool
+     */
+    public ClassConstantPoolEntry<?> getEntry(int index) {
+        ClassConstantPoolEntry<?> entry = this.materializedEntries[index];
+
+        if (entry == null && this.tags[index] != 0) {
+            entry = ClassConstantPoolEntryFactory.make(this.bufferOf(index), this.offsets[index], this);
+            this.materializedEntries[index] = entry;    // Entries are immutable, so a racing thread building the
+                                                        // same entry twice is harmless
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns the raw tag of the entry at the given constant pool index, without creating the entry. See
+     * {@link ClassConstantPoolEntryType#getByValue(int)} for the type represented by the tag.
+     *
+     * @param index The constant pool index of the entry
+     * @return The tag of the entry at {@code index}, or 0 if the index is 0 or the second slot of a long or double
+     */
+    public int getTag(int index) {
+        return Byte.toUnsignedInt(this.tags[index]);
+    }
+
+    /**
+     * Returns the offset of the tag byte of the entry at the given constant pool index within the class bytes,
+     * without creating the entry. For entries appended since the class bytes were last written, the offset is
+     * instead relative to a separate buffer of appended entries.
+     *
+     * @param index The constant pool index of the entry
+     * @return The offset of the entry at {@code index}, or 0 if the index is 0 or the second slot of a long or double
+     */
+    public int getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    /**
+     * Returns the string held by a {@code CONSTANT_Utf8} entry. The string is decoded from modified UTF-8 the first
+     * time it is requested and cached on the entry, so repeated calls return the same instance.
+     *
+     * @param index The constant pool index of a UTF-8 entry
+     * @return The decoded string
+     * @throws IllegalArgumentException If the entry at {@code index} is not a UTF-8 entry
+     */
+    public String getUtf8(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.UTF8);
+        return ((UTF8PoolEntry) this.getEntry(index)).getParsedData();
+    }
+
+    /**
+     * Returns the internal name of the class referred to by a {@code CONSTANT_Class} entry (for example
+     * {@code java/lang/Object}), see {@link #getClassNameIndex(int)} and {@link #getUtf8(int)}.
+     *
+     * @param index The constant pool index of a class entry
+     * @return The internal name of the class
+     * @throws IllegalArgumentException If the entry at {@code index} is not a class entry
+     */
+    public String getClassName(int index) {
+        return this.getUtf8(this.getClassNameIndex(index));
+    }
+
+    /**
+     * Returns the method descriptor held by a {@code CONSTANT_Utf8} entry, such as the descriptor of a method or of a
+     * name and type entry. Descriptors are interned in {@link DescriptorCache}, so classes sharing a descriptor share
+     * the parsed instance, and are additionally cached by index in this pool, so repeated calls for the same index
+     * only cost an array read.
+     *
+     * @param index The constant pool index of a UTF-8 entry holding a method descriptor
+     * @return The parsed descriptor
+     * @throws IllegalArgumentException If the entry at {@code index} is not a UTF-8 entry
+     * @throws ClassFormatError If the entry does not hold a valid method descriptor
+     */
+    public MethodDescriptor getMethodDescriptor(int index) {
+        final Object cached = this.cachedDescriptor(index);
+        if (cached instanceof MethodDescriptor) return (MethodDescriptor) cached;
+
+        try {
+            return (MethodDescriptor) this.cacheDescriptor(index, DescriptorCache.method(this.getUtf8(index)));
+        } catch (IllegalArgumentException exception) {
+            throw new ClassFormatError(exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns the field descriptor held by a {@code CONSTANT_Utf8} entry, cached like
+     * {@link #getMethodDescriptor(int)}.
+     *
+     * @param index The constant pool index of a UTF-8 entry holding a field descriptor
+     * @return The parsed descriptor
+     * @throws IllegalArgumentException If the entry at {@code index} is not a UTF-8 entry
+     * @throws ClassFormatError If the entry does not hold a valid field descriptor
+     */
+    public FieldDescriptor getFieldDescriptor(int index) {
+        final Object cached = this.cachedDescriptor(index);
+        if (cached instanceof FieldDescriptor) return (FieldDescriptor) cached;
+
+        final FieldDescriptor descriptor;
+        try {
+            descriptor = DescriptorCache.field(this.getUtf8(index));
+        } catch (IllegalArgumentException exception) {
+            throw new ClassFormatError(exception.getMessage());
+        }
+
+        if (descriptor == FieldDescriptor.VOID) throw new ClassFormatError("V is not a valid field descriptor");
+        return (FieldDescriptor) this.cacheDescriptor(index, descriptor);
+    }
+
+    private Object cachedDescriptor(int index) {
+        final Object[] descriptors = this.descriptors;
+        return descriptors == null ? null : descriptors[index];
+    }
+
+    private Object cacheDescriptor(int index, Object descriptor) {
+        Object[] descriptors = this.descriptors;
+
+        if (descriptors == null) {
+            descriptors = new Object[this.tags.length];
+            this.descriptors = descriptors;     // Descriptors are immutable, so losing a racing thread's array only
+        }                                       // costs a cache miss
+
+        descriptors[index] = descriptor;
+        return descriptor;
+    }
+
+    /**
+     * Reads the value of a {@code CONSTANT_Integer} entry straight from the class bytes, without creating the entry
+     * or boxing the value.
+     *
+     * @param index The constant pool index of an integer entry
+     * @return The value of the integer
+     * @throws IllegalArgumentException If the entry at {@code index} is not an integer entry
+     */
+    public int getInt(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.INTEGER);
+        return ByteUtil.readDWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads the value of a {@code CONSTANT_Float} entry straight from the class bytes, without creating the entry
+     * or boxing the value.
+     *
+     * @param index The constant pool index of a float entry
+     * @return The value of the float
+     * @throws IllegalArgumentException If the entry at {@code index} is not a float entry
+     */
+    public float getFloat(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.FLOAT);
+        return Float.intBitsToFloat(ByteUtil.readDWORD(this.bufferOf(index), this.offsets[index] + 1));
+    }
+
+    /**
+     * Reads the value of a {@code CONSTANT_Long} entry straight from the class bytes, without creating the entry
+     * or boxing the value.
+     *
+     * @param index The constant pool index of a long entry
+     * @return The value of the long
+     * @throws IllegalArgumentException If the entry at {@code index} is not a long entry
+     */
+    public long getLong(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.LONG);
+        return ByteUtil.readQWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads the value of a {@code CONSTANT_Double} entry straight from the class bytes, without creating the entry
+     * or boxing the value.
+     *
+     * @param index The constant pool index of a double entry
+     * @return The value of the double
+     * @throws IllegalArgumentException If the entry at {@code index} is not a double entry
+     */
+    public double getDouble(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.DOUBLE);
+        return Double.longBitsToDouble(ByteUtil.readQWORD(this.bufferOf(index), this.offsets[index] + 1));
+    }
+
+    /**
+     * Reads the {@code name_index} of a {@code CONSTANT_Class} entry, the index of the UTF-8 entry holding the
+     * internal name of the class. {@code CONSTANT_Module} and {@code CONSTANT_Package} entries share the same layout
+     * and are accepted as well.
+     *
+     * @param index The constant pool index of a class, module or package entry
+     * @return The constant pool index of the name of the class, module or package
+     * @throws IllegalArgumentException If the entry at {@code index} is not a class, module or package entry
+     */
+    public int getClassNameIndex(int index) {
+        this.checkTag(index, NAMED_TAGS);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads the {@code string_index} of a {@code CONSTANT_String} entry, the index of the UTF-8 entry holding the
+     * value of the string.
+     *
+     * @param index The constant pool index of a string entry
+     * @return The constant pool index of the value of the string
+     * @throws IllegalArgumentException If the entry at {@code index} is not a string entry
+     */
+    public int getStringIndex(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.STRING);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads the {@code class_index} of a {@code CONSTANT_Fieldref}, {@code CONSTANT_Methodref} or
+     * {@code CONSTANT_InterfaceMethodref} entry, the index of the class entry owning the member.
+     *
+     * @param index The constant pool index of a field, method or interface method reference
+     * @return The constant pool index of the class entry owning the referenced member
+     * @throws IllegalArgumentException If the entry at {@code index} is not a member reference
+     */
+    public int getRefOwner(int index) {
+        this.checkTag(index, REF_TAGS);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads the {@code name_and_type_index} of a member reference, or of a {@code CONSTANT_Dynamic} or
+     * {@code CONSTANT_InvokeDynamic} entry, which all store it directly after another two byte index.
+     *
+     * @param index The constant pool index of a member reference, dynamic or invokedynamic entry
+     * @return The constant pool index of the name and type entry of the reference
+     * @throws IllegalArgumentException If the entry at {@code index} is not of one of the above types
+     */
+    public int getRefNameAndType(int index) {
+        this.checkTag(index, REF_TAGS | DYNAMIC_TAGS);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 3);
+    }
+
+    /**
+     * Reads the {@code bootstrap_method_attr_index} of a {@code CONSTANT_Dynamic} or {@code CONSTANT_InvokeDynamic}
+     * entry, the index of its bootstrap method in the BootstrapMethods attribute of the class.
+     *
+     * @param index The constant pool index of a dynamic or invokedynamic entry
+     * @return The index of the bootstrap method (not a constant pool index)
+     * @throws IllegalArgumentException If the entry at {@code index} is not a dynamic or invokedynamic entry
+     */
+    public int getBootstrapMethodIndex(int index) {
+        this.checkTag(index, DYNAMIC_TAGS);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads both indexes of a {@code CONSTANT_NameAndType} entry at once, packed into a single int so that no
+     * object is needed to return them. The name index is held in the upper 16 bits and the descriptor index in the
+     * lower 16 bits, and can be unpacked with {@link #unpackNameIndex(int)} and {@link #unpackDescriptorIndex(int)}.
+     *
+     * @param index The constant pool index of a name and type entry
+     * @return The packed name and descriptor indexes of the entry
+     * @throws IllegalArgumentException If the entry at {@code index} is not a name and type entry
+     */
+    public int getNameAndType(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.NAME_AND_TYPE);
+        return ByteUtil.readDWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * @param packedNameAndType A value returned by {@link #getNameAndType(int)}
+     * @return The constant pool index of the name held by the packed value
+     */
+    public static int unpackNameIndex(int packedNameAndType) {
+        return packedNameAndType >>> 16;
+    }
+
+    /**
+     * @param packedNameAndType A value returned by {@link #getNameAndType(int)}
+     * @return The constant pool index of the descriptor held by the packed value
+     */
+    public static int unpackDescriptorIndex(int packedNameAndType) {
+        return packedNameAndType & 0xFFFF;
+    }
+
+    /**
+     * Reads the {@code reference_kind} of a {@code CONSTANT_MethodHandle} entry, as defined in table 5.4.3.5-A of
+     * the Java virtual machine specifications.
+     *
+     * @param index The constant pool index of a method handle entry
+     * @return The kind of the method handle, from 1 to 9
+     * @throws IllegalArgumentException If the entry at {@code index} is not a method handle entry
+     */
+    public int getMethodHandleKind(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.METHOD_HANDLE);
+        return ByteUtil.readByte(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Reads the {@code reference_index} of a {@code CONSTANT_MethodHandle} entry.
+     *
+     * @param index The constant pool index of a method handle entry
+     * @return The constant pool index of the member reference the method handle points to
+     * @throws IllegalArgumentException If the entry at {@code index} is not a method handle entry
+     */
+    public int getMethodHandleReference(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.METHOD_HANDLE);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 2);
+    }
+
+    /**
+     * Reads the {@code descriptor_index} of a {@code CONSTANT_MethodType} entry.
+     *
+     * @param index The constant pool index of a method type entry
+     * @return The constant pool index of the method descriptor
+     * @throws IllegalArgumentException If the entry at {@code index} is not a method type entry
+     */
+    public int getMethodTypeDescriptorIndex(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.METHOD_TYPE);
+        return ByteUtil.readWORD(this.bufferOf(index), this.offsets[index] + 1);
+    }
+
+    /**
+     * Appends an encoded entry to the end of the pool. The entry must be complete, starting with its tag byte, and is
+     * checked to be of a known type allowed by the major version of the class, and to be exactly as long as its type
+     * requires. Long and double entries take up two indexes, as usual.
+     *
+     * @param entry The encoded entry, which must not be modified afterwards
+     * @return The constant pool index of the appended entry
+     * @throws IllegalArgumentException If the entry is malformed, or its type is not allowed in this class
+     * @throws IllegalStateException If the pool has no room left for the entry
+     */
+    public int appendEntry(byte[] entry) {
+        if (entry.length == 0) throw new IllegalArgumentException("empty constant pool entry");
+
+        final ByteBuffer entryBuffer = ByteBuffer.wrap(entry);
+        final int tag = ByteUtil.readByte(entry, 0);
+        final ClassConstantPoolEntryType type = ClassConstantPoolEntryType.getByValue(tag);
+
+        if ((tag & ~31) != 0 || (this.allowedTags & 1 << tag) == 0) {
+            throw new IllegalArgumentException("constant pool entry type " + entry[0] + " not allowed in this class");
+        }
+
+        if ((type == ClassConstantPoolEntryType.UTF8 && entry.length < 3) ||
+                type.getEntrySize(entryBuffer, 0) != entry.length) {
+            throw new IllegalArgumentException("constant pool entry of type " + type.name() + " has invalid length " +
+                    entry.length);
+        }
+
+        final int slots = type.isWide() ? 2 : 1;
+        final int index = this.tableSize + 1;
+
+        if (this.tableSize + slots > 0xFFFE) {       // The constant_pool_count must fit in two bytes
+            throw new IllegalStateException("constant pool is full");
+        }
+
+        if (index + slots > this.tags.length) {
+            final int capacity = Math.min(Math.max(this.tags.length * 2, index + slots), 0xFFFF);
+            this.tags = Arrays.copyOf(this.tags, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity);
+            this.materializedEntries = Arrays.copyOf(this.materializedEntries, capacity);
+            if (this.utf8Index != null) this.utf8Index.canonical = Arrays.copyOf(this.utf8Index.canonical, capacity);
+            if (this.descriptors != null) this.descriptors = Arrays.copyOf(this.descriptors, capacity);
+        }
+
+        if (this.appendedBuffer == null || this.appendedLength + entry.length > this.appendedBuffer.capacity()) {
+            final byte[] appended = new byte[Math.max(256, (this.appendedLength + entry.length) * 2)];
+            if (this.appendedBuffer != null) this.appendedBuffer.get(0, appended, 0, this.appendedLength);
+            this.appendedBuffer = ByteBuffer.wrap(appended);    // Entries already created keep the old array, which
+                                                                // still holds their bytes
+        }
+
+        this.appendedBuffer.put(this.appendedLength, entry);
+        this.tags[index] = entry[0];
+        this.offsets[index] = this.appendedLength;
+
+        this.appendedLength += entry.length;
+        this.length += entry.length;
+        this.tableSize += slots;
+
+        if (this.utf8Index != null && type == ClassConstantPoolEntryType.UTF8) this.utf8Index.add(index);
+        return index;
+    }
+
+    /**
+     * Finds a {@code CONSTANT_Utf8} entry holding the provided string. The string is compared against the modified
+     * UTF-8 bytes of the entries; pool strings are never decoded. Strings made up of ASCII characters other than
+     * {@code U+0000}, which covers nearly every name and descriptor, are not even encoded: their cached
+     * {@link String#hashCode()} is equal to the hash of their bytes, making the lookup allocation-free.<br><br>
+     *
+     * The hash index behind this method is built on the first call, with a single pass over the UTF-8 entries of the
+     * pool, and is kept up to date as entries are appended.
+     *
+     * @param value The string to look for
+     * @return The lowest index of a UTF-8 entry holding {@code value}, or 0 if there is none
+     */
+    public int findUtf8(String value) {
+        final int asciiIndex = this.findUtf8(value.hashCode(), value, null);    // String hashes are cached, and equal
+        if (asciiIndex != 0) return asciiIndex;                                 // the byte hash of ASCII strings
+
+        final int charCount = value.length();
+        for (int charIndex = 0; charIndex < charCount; charIndex++) {
+            final char character = value.charAt(charIndex);
+            if (character != 0 && character <= 0x7F) continue;
+
+            if (charCount > 0xFFFF) return 0;     // Not ASCII after all, so compare the modified UTF-8 encoding.
+                                                  // This string can't possibly fit in an entry.
+            final byte[] encoded;
+            try {
+                encoded = ModifiedUTF8.encode(value);
+            } catch (IllegalArgumentException exception) {
+                return 0;
+            }
+
+            int hash = 0;
+            for (byte encodedByte : encoded) hash = 31 * hash + (encodedByte & 0xFF);
+            return this.findUtf8(hash, null, encoded);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Probes the UTF-8 index for either an ASCII string or an encoded string
+     */
+    private int findUtf8(int hash, String ascii, byte[] encoded) {
+        final Utf8Index utf8Index = this.utf8Index();
+        final int[] table = utf8Index.table;
+        final int[] hashes = utf8Index.hashes;
+        final int mask = table.length - 1;
+        final int length = ascii != null ? ascii.length() : encoded.length;
+
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            final int index = table[slot];
+            if (index == 0) return 0;
+            if (hashes[slot] != hash) continue;
+
+            final ByteBuffer buffer = this.bufferOf(index);
+            final int offset = this.offsets[index];
+
+            if (ByteUtil.readWORD(buffer, offset + 1) == length && (ascii != null ?
+                    utf8Equals(buffer, offset + 3, ascii) : utf8Equals(buffer, offset + 3, encoded))) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Returns the lowest index of a {@code CONSTANT_Utf8} entry holding the same bytes as the entry at {@code index}.
+     * Well-formed pools rarely hold the same string twice, but nothing forbids it; comparing canonical indexes
+     * compares strings exactly, without decoding them.
+     *
+     * @param index The constant pool index of a UTF-8 entry
+     * @return The index of the first entry equal to the entry at {@code index}, which may be {@code index} itself
+     * @throws IllegalArgumentException If the entry at {@code index} is not a UTF-8 entry
+     */
+    public int getCanonicalUtf8Index(int index) {
+        this.checkTag(index, ClassConstantPoolEntryType.UTF8);
+        return this.utf8Index().canonical[index];
+    }
+
+    /**
+     * @return Whether entries have been appended to the pool since it was read or last written
+     */
+    public boolean isDirty() {
+        return this.tableSize != this.sourceTableSize;
+    }
+
+    /**
+     * Writes the pool, including its two count bytes, to {@code out}. The original entries are copied with a single
+     * bulk copy, followed by the appended entries. Afterwards, every entry refers to the written bytes.
+     *
+     * @param out The buffer to write to
+     * @param offset The offset within {@code out} to write the two count bytes at
+     * @return The offset directly after the written pool
+     */
+    public int writeTo(ByteBuffer out, int offset) {
+        final int sourceLength = this.length - this.appendedLength;
+        final int appendedOffset = offset + 2 + sourceLength;
+
+        ByteUtil.writeWORD(out, offset, this.getCount());
+        out.put(offset + 2, this.classBuffer, this.offset + 2, sourceLength);
+        if (this.appendedLength > 0) out.put(appendedOffset, this.appendedBuffer, 0, this.appendedLength);
+
+        for (int index = 1; index <= this.tableSize; index++) {
+            if (this.tags[index] == 0) continue;
+            this.offsets[index] += index > this.sourceTableSize ? appendedOffset : offset - this.offset;
+        }
+
+        this.classBuffer = out;
+        this.offset = offset;
+        this.sourceTableSize = this.tableSize;
+        this.appendedBuffer = null;
+        this.appendedLength = 0;
+        return offset + 2 + this.length;
+    }
+
+    /**
+     * Checks whether the pool at {@code offset} of other class bytes is this pool with entries appended (or exactly
+     * this pool), so that it can be taken over with {@link #rebase(ByteBuffer, int)} instead of being parsed again.
+     * The appended entries are checked at the validation level of this pool. Nothing is changed, but until the pool
+     * is rebased, {@link #checkReference(int, int, String)} checks against the other pool.
+     *
+     * @param classBuffer The buffer holding the other class bytes
+     * @param offset The offset of the two count bytes of the other pool
+     * @return The offset directly after the other pool, or -1 if it does not start with the entries of this pool, if
+     * entries were appended to this pool since it was read or last written, or if this pool is checked at
+     * {@link ValidationLevel#STRICT}, whose pools are always parsed from scratch
+     * @throws ClassFormatError If one of the appended entries is malformed
+     */
+    public int scanExtension(ByteBuffer classBuffer, int offset) {
+        final int tableSize = ByteUtil.readWORD(classBuffer, offset) - 1;
+        final int entryOffset = offset + 2 + this.length;
+
+        this.scannedTags = null;
+
+        if (this.validationLevel == ValidationLevel.STRICT || this.isDirty() || tableSize < this.tableSize ||
+                this.length > classBuffer.limit() - offset - 2 ||
+                ByteUtil.readWORD(classBuffer, offset - 2) != this.majorVersion ||
+                !ByteUtil.rangeEquals(this.classBuffer, this.offset + 2, classBuffer, offset + 2, this.length)) {
+            return -1;
+        }
+
+        if (tableSize == this.tableSize || this.validationLevel == ValidationLevel.NONE) {
+            return this.indexEntries(classBuffer, this.tableSize + 1, tableSize, entryOffset, null, null);
+        }
+
+        // The appended entries may refer to each other, so they are indexed before their references are checked
+        final byte[] tags = Arrays.copyOf(this.tags, tableSize + 1);
+        final int[] offsets = new int[tableSize + 1];   // Only the offsets of the appended entries are needed
+        final int end = this.indexEntries(classBuffer, this.tableSize + 1, tableSize, entryOffset, tags, offsets);
+
+        this.checkEntries(classBuffer, tags, offsets, this.tableSize + 1, tableSize, tableSize);
+        this.scannedTags = tags;
+        return end;
+    }
+
+    /**
+     * Points the pool at other class bytes holding the same entries, and indexes the entries appended to it. Entries
+     * which were already created are kept, along with the UTF-8 lookup index and parsed descriptors. The other pool
+     * must have been checked with {@link #scanExtension(ByteBuffer, int)} first.
+     *
+     * @param classBuffer The buffer holding the other class bytes
+     * @param offset The offset of the two count bytes of the other pool
+     * @return The offset directly after the pool
+     */
+    public int rebase(ByteBuffer classBuffer, int offset) {
+        final int previousTableSize = this.tableSize;
+        final int tableSize = ByteUtil.readWORD(classBuffer, offset) - 1;
+
+        this.scannedTags = null;
+
+        if (tableSize + 1 > this.tags.length) {
+            this.tags = Arrays.copyOf(this.tags, tableSize + 1);
+            this.offsets = Arrays.copyOf(this.offsets, tableSize + 1);
+            this.materializedEntries = Arrays.copyOf(this.materializedEntries, tableSize + 1);
+            if (this.descriptors != null) this.descriptors = Arrays.copyOf(this.descriptors, tableSize + 1);
+            if (this.utf8Index != null) {
+                this.utf8Index.canonical = Arrays.copyOf(this.utf8Index.canonical, tableSize + 1);
+            }
+        }
+
+        for (int index = 1; index <= previousTableSize; index++) {
+            if (this.tags[index] != 0) this.offsets[index] += offset - this.offset;
+        }
+
+        final int end = this.indexEntries(classBuffer, previousTableSize + 1, tableSize, offset + 2 + this.length,
+                this.tags, this.offsets);
+
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.tableSize = tableSize;
+        this.sourceTableSize = tableSize;
+        this.length = end - offset - 2;
+
+        if (this.utf8Index != null) {
+            for (int index = previousTableSize + 1; index <= tableSize; index++) {
+                if (this.tags[index] == ClassConstantPoolEntryType.UTF8.getValue()) this.utf8Index.add(index);
+            }
+        }
+
+        return end;
+    }
+
+    /**
+     * @return The buffer holding the bytes of the entry at the given index, which is only not the class buffer for
+     * appended entries which have not been written yet
+     */
+    private ByteBuffer bufferOf(int index) {
+        return index > this.sourceTableSize ? this.appendedBuffer : this.classBuffer;
+    }
+
+    private Utf8Index utf8Index() {
+        Utf8Index utf8Index = this.utf8Index;
+
+        if (utf8Index == null) {
+            utf8Index = new Utf8Index(this.tags.length);
+            for (int index = 1; index <= this.tableSize; index++) {
+                if (this.tags[index] == ClassConstantPoolEntryType.UTF8.getValue()) utf8Index.add(index);
+            }
+
+            this.utf8Index = utf8Index;     // Building the index twice from two threads is harmless
+        }
+
+        return utf8Index;
+    }
+
+    /**
+     * @return Whether the bytes at {@code offset} are equal to {@code encoded}, whose length was already checked
+     */
+    private static boolean utf8Equals(ByteBuffer buffer, int offset, byte[] encoded) {
+        for (int byteIndex = 0; byteIndex < encoded.length; byteIndex++) {
+            if (buffer.get(offset + byteIndex) != encoded[byteIndex]) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Whether the bytes at {@code offset} are equal to the characters of an ASCII string, whose length was
+     * already checked
+     */
+    private static boolean utf8Equals(ByteBuffer buffer, int offset, String ascii) {
+        final int length = ascii.length();
+
+        if (buffer.hasArray()) {    // Much faster than going through the buffer for every byte
+            final byte[] array = buffer.array();
+            final int arrayOffset = buffer.arrayOffset() + offset;
+
+            for (int charIndex = 0; charIndex < length; charIndex++) {
+                if (array[arrayOffset + charIndex] != ascii.charAt(charIndex)) return false;
+            }
+
+            return true;
+        }
+
+        for (int charIndex = 0; charIndex < length; charIndex++) {
+            if (buffer.get(offset + charIndex) != ascii.charAt(charIndex)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Whether the {@code length} bytes at {@code offset} and {@code otherOffset} are equal
+     */
+    private static boolean utf8Equals(ByteBuffer buffer, int offset, ByteBuffer otherBuffer, int otherOffset,
+                                      int length) {
+        for (int byteIndex = 0; byteIndex < length; byteIndex++) {
+            if (buffer.get(offset + byteIndex) != otherBuffer.get(otherOffset + byteIndex)) return false;
+        }
+
+        return true;
+    }
+
+    private static int mix(int hash) {
+        final int mixed = hash * 0x9E3779B9;    // Fibonacci hashing, as the low bits of a string hash are weak
+        return mixed ^ (mixed >>> 16);
+    }
+
+    /**
+     * An open addressing hash table of the UTF-8 entries of the pool, hashed by their raw bytes, along with the
+     * canonical index of every UTF-8 entry
+     */
+    private final class Utf8Index {
+        private int[] table;
+        private int[] hashes;       // The unmixed hash of the entry in the same slot, to skip most byte comparisons
+        private int[] canonical;
+        private int size;
+
+        private Utf8Index(int capacity) {
+            this.table = new int[64];
+            this.hashes = new int[64];
+            this.canonical = new int[capacity];
+        }
+
+        /**
+         * Indexes the UTF-8 entry at {@code index}, or records it as a duplicate of an equal entry
+         */
+        private void add(int index) {
+            if ((this.size + 1) * 2 > this.table.length) this.resize();
+
+            final ByteBuffer buffer = bufferOf(index);
+            final int offset = offsets[index];
+            final int length = ByteUtil.readWORD(buffer, offset + 1);
+
+            int hash = 0;
+            for (int byteIndex = 0; byteIndex < length; byteIndex++) {
+                hash = 31 * hash + ByteUtil.readByte(buffer, offset + 3 + byteIndex);
+            }
+
+            final int mask = this.table.length - 1;
+
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                final int existing = this.table[slot];
+
+                if (existing == 0) {
+                    this.table[slot] = index;
+                    this.hashes[slot] = hash;
+                    this.canonical[index] = index;
+                    this.size++;
+                    return;
+                }
+
+                if (this.hashes[slot] != hash) continue;
+
+                final ByteBuffer existingBuffer = bufferOf(existing);
+                final int existingOffset = offsets[existing];
+
+                if (ByteUtil.readWORD(existingBuffer, existingOffset + 1) == length &&
+                        utf8Equals(existingBuffer, existingOffset + 3, buffer, offset + 3, length)) {
+                    this.canonical[index] = existing;
+                    return;
+                }
+            }
+        }
+
+        private void resize() {
+            final int[] oldTable = this.table;
+
+            this.table = new int[oldTable.length * 2];
+            this.hashes = new int[oldTable.length * 2];
+            this.size = 0;
+
+            for (int index : oldTable) {    // Entries only ever move to a larger table, so the lowest index of every
+                if (index != 0) this.add(index);    // string stays the canonical one
+            }
+        }
     }
 
     /**
@@ -50,4 +1063,33 @@ public class ClassConstantPool {
     public int getCount() {
         return this.tableSize + 1;
     }
+
+    /**
+     * A read-only {@link List} view over the pool, indexed by constant pool index, which creates entries as they are
+     * requested. Its size is equal to {@link #getCount()}, as index 0 is included (always {@code null}).
+     */
+    private final class EntryList extends AbstractList<ClassConstantPoolEntry<?>> {
+        @Override
+        public ClassConstantPoolEntry<?> get(int index) {
+            return getEntry(index);
+        }
+
+        @Override
+        public int size() {
+            return getCount();
+        }
+    }
+
+    private void checkTag(int index, ClassConstantPoolEntryType expected) {
+        if (this.tags[index] != expected.getValue()) {
+            throw new IllegalArgumentException("constant pool entry " + index + " is not of type " + expected.name());
+        }
+    }
+
+    private void checkTag(int index, int allowedTagMask) {
+        if ((allowedTagMask & (1 << this.tags[index])) == 0) {
+            throw new IllegalArgumentException("constant pool entry " + index + " has unexpected type " +
+                    ClassConstantPoolEntryType.getByValue(this.getTag(index)).name());
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package club.hazsi.classified.classes.components.constantpool;
 
+import club.hazsi.classified.classes.ValidationLevel;
 import club.hazsi.classified.util.ByteUtil;
 import lombok.Getter;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a single entry in the constant pool. As per section 4.4 of the Java
@@ -33,9 +34,11 @@ import java.util.Arrays;
  *
  * <br><br>
  *
- * In Classified's implementation of the constant pool entry, data is stored uniformly as a byte array. Instead of
- * parsing this data based on the type at instantiation, individual methods are provided for the parsing of this data
- * to each of the data (info[], from the pseudocode example) types in the specification.
+ * In Classified's implementation of the constant pool entry, data is not copied out of the class. Each entry keeps a
+ * reference to the raw bytes of the class it was read from along with the offset of its tag byte, and reads its
+ * info[] bytes in place. Instead of parsing this data based on the type at instantiation, individual methods are
+ * provided for the parsing of this data to each of the data (info[], from the pseudocode example) types in the
+ * specification.
  *
  * @param <T> The data type of which subsequent implementations of this class should parse their data to. Tags with
  *           multiple variables should use the {@code Tuple2} and {@code Tuple3} classes.
@@ -48,52 +51,68 @@ import java.util.Arrays;
 public class ClassConstantPoolEntry<T> {
     private final ClassConstantPool parentPool;
     private final ClassConstantPoolEntryType type;
-    private final byte[] data;
+    private final ByteBuffer classBuffer;
+    private final int offset;
     private final int size;
 
     /**
-     * Constructs a ClassConstantPoolEntry instance from the raw bytes that make it up. Since the length of this data
-     * depends on the tag type and other data which is calculated here, the length of the data provided is irrelevant;
-     * the data provided here is expected to be from the start of the entry to the end of the file, as everything after
-     * the entry's data is disregarded. <br><br>
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. Nothing is copied, so parsing a whole pool this way costs time linear in the size of the pool.
+     * <br><br>
      *
      * The offset for the next entry can be found with the
      * {@code ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
      * accurately resemble a constant pool entry (plus any amount of arbitrary class data afterwards) may result in
-     * undocumented behaviour.<br><br>
+     * undocumented behaviour. Whether the type of the entry is allowed by the version of the class is not checked
+     * here; the pool checks every tag once when it is indexed, see {@link ValidationLevel}.<br><br>
      *
      * <i>This constructor should only be used privately and by implementations of this method, this raw class itself
      * should almost never be used; instead, </i><b>the {@code factory(byte[])} method should be used instead</b><i> to
      * return a new instance of the appropriate implementation of this class.</i><br><br>
      *
      * @see ClassConstantPoolEntryFactory
-     * @param classBytes The data representing the pool entry (type/tag data size + 1 for the tag itself), plus any
-     *                number of arbitrary bytes afterwards which are disregarded.
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
      * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
      */
-    protected ClassConstantPoolEntry(byte[] classBytes, ClassConstantPool parentPool) {
-        final int tag = Byte.toUnsignedInt(classBytes[0]);
+    protected ClassConstantPoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        final int tag = ByteUtil.readByte(classBuffer, offset);
         this.type = ClassConstantPoolEntryType.getByValue(tag);
         this.parentPool = parentPool;
+        this.classBuffer = classBuffer;
+        this.offset = offset;
 
         if (this.type.equals(ClassConstantPoolEntryType.UNKNOWN)) {                     // Throw an exception if the
             throw new ClassFormatError("invalid constant pool entry type: " + tag);  // class file contains an
         }                                                                               // invalid entry tag
 
-        final int classVersion = parentPool.getParentClass().getAttributes().getMajorVersion().getVersion();
-
-        if (this.type.getMinimumMajorClassVersion() > classVersion) {               // Throw an exception if the class
-            throw new ClassFormatError("type \"" + type.name() + "\" invalid" +  // file contains an entry tag that
-                    "type for major class version \"" + classVersion + "\"");       // shouldn't be possible
-        }
-
         final int dataSize = type.equals(ClassConstantPoolEntryType.UTF8) ?     // The UTF-8 tag does not have a
-                this.determineUTFSize(classBytes) : this.type.getDataSize();    // constant size, unlike all other tags,
+                this.determineUTFSize() : this.type.getDataSize();    // constant size, unlike all other tags,
                                                                                 // and therefore we must determine size
                                                                                 // manually if the entry is a UTF-8 tag.
 
         this.size = dataSize + 1;   // Add one to the data size to account for the size of the tag itself (one byte).
-        this.data = Arrays.copyOfRange(classBytes, 1, this.size);
+    }
+
+    /**
+     * @return The offset of the entry's info[] bytes within the class bytes, directly after the tag byte
+     */
+    public int getDataOffset() {
+        return this.offset + 1;
+    }
+
+    /**
+     * Copies the entry's info[] bytes (excluding the tag byte) out of the class buffer. Implementations read their
+     * data in place and never need this; it is kept for callers that want the raw data as a standalone array.
+     *
+     * @return A new array holding the info[] bytes of this entry
+     */
+    public byte[] getData() {
+        final byte[] data = new byte[this.size - 1];
+        this.classBuffer.get(this.getDataOffset(), data);
+        return data;
     }
 
     /**
@@ -119,14 +138,13 @@ public class ClassConstantPoolEntry<T> {
      * Used to calculate the variable length of a UTF-8 constant pool entry. This method should not be used publicly,
      * and should only be called internally when calculating the {@code size} field.
      *
-     * @param data The raw data of the constant pool entry, <b>including the leading tag byte</b>
-     * @return The integer data length, in bytes, of the UTF-8 constant pool entry, plus any number of arbitrary
-     * bytes afterwards which are disregarded.
+     * @return The integer data length, in bytes, of the UTF-8 constant pool entry (the two length bytes plus the
+     * encoded string itself)
      */
-    private int determineUTFSize(byte[] data) {
+    private int determineUTFSize() {
         if (!this.type.equals(ClassConstantPoolEntryType.UTF8))     // This method should only be invoked on constant
             throw new UnsupportedOperationException();              // pool entries with the UTF-8 tag type.
 
-        return ByteUtil.readWORD(data, 1) + 2;
+        return ByteUtil.readWORD(this.classBuffer, this.getDataOffset()) + 2;
     }
 }
\ No newline at end of file
@@ -1,34 +1,68 @@
 package club.hazsi.classified.classes.components.constantpool;
 
 import club.hazsi.classified.classes.components.constantpool.entry.*;
+import club.hazsi.classified.util.ByteUtil;
 
-import java.util.Objects;
+import java.nio.ByteBuffer;
 
-// TODO write this javadoc
+/**
+ * Creates the appropriate {@link ClassConstantPoolEntry} implementation for a constant pool entry, based on its tag.
+ * Every tag defined in section 4.4 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a> has
+ * its own implementation. Dispatch is a single load from a table of constructors indexed by tag byte, so the cost of
+ * creating an entry does not depend on the amount of entry types.
+ *
+ * @see ClassConstantPoolEntryType
+ * @author Hazsi
+ * @since 1.0
+ */
 public class ClassConstantPoolEntryFactory {
 
-    // TODO write this javadoc
-    public static ClassConstantPoolEntry<?> make(byte[] rawData) {
-        final int tag = Byte.toUnsignedInt(rawData[0]);
-        final ClassConstantPoolEntryType type = ClassConstantPoolEntryType.getByValue(tag);
-        ClassConstantPoolEntry<?> returnObject;
-
-        // TODO there are a lot of missing cases here!
-        switch (Objects.requireNonNull(type)) {
-            case UTF8 -> returnObject = new UTF8PoolEntry(rawData);
-            case INTEGER -> returnObject = new IntegerPoolEntry(rawData);
-            case LONG -> returnObject = new LongPoolEntry(rawData);
-            case CLASS -> returnObject = new ClassPoolEntry(rawData);
-            case STRING -> returnObject = new StringPoolEntry(rawData);
-            case FIELD_REF -> returnObject = new FieldRefPoolEntry(rawData);
-            case METHOD_REF -> returnObject = new MethodRefPoolEntry(rawData);
-            case NAME_AND_TYPE -> returnObject = new NameAndTypePoolEntry(rawData);
-            case METHOD_HANDLE -> returnObject = new MethodHandlePoolEntry(rawData);
-            case METHOD_TYPE -> returnObject = new MethodTypePoolEntry(rawData);
-            case INVOKE_DYNAMIC -> returnObject = new InvokeDynamicPoolEntry(rawData);
-            default -> returnObject = new ClassConstantPoolEntry<>(rawData);
-        }
-
-        return returnObject;
+    /**
+     * The constructor shared by every {@link ClassConstantPoolEntry} implementation
+     */
+    @FunctionalInterface
+    private interface EntryConstructor {
+        ClassConstantPoolEntry<?> make(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool);
+    }
+
+    private static final EntryConstructor[] CONSTRUCTORS = new EntryConstructor[256];
+    static {
+        CONSTRUCTORS[ClassConstantPoolEntryType.UTF8.getValue()] = UTF8PoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.INTEGER.getValue()] = IntegerPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.FLOAT.getValue()] = FloatPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.LONG.getValue()] = LongPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.DOUBLE.getValue()] = DoublePoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.CLASS.getValue()] = ClassPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.STRING.getValue()] = StringPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.FIELD_REF.getValue()] = FieldRefPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.METHOD_REF.getValue()] = MethodRefPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.INTERFACE_METHOD_REF.getValue()] = InterfaceMethodRefPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.NAME_AND_TYPE.getValue()] = NameAndTypePoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.METHOD_HANDLE.getValue()] = MethodHandlePoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.METHOD_TYPE.getValue()] = MethodTypePoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.DYNAMIC.getValue()] = DynamicPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.INVOKE_DYNAMIC.getValue()] = InvokeDynamicPoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.MODULE.getValue()] = ModulePoolEntry::new;
+        CONSTRUCTORS[ClassConstantPoolEntryType.PACKAGE.getValue()] = PackagePoolEntry::new;
+    }
+
+    /**
+     * Creates the entry starting at {@code offset} in the class bytes, using the implementation registered for its
+     * tag.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance the entry belongs to
+     * @return A new instance of the implementation matching the entry's tag
+     * @throws ClassFormatError If the tag of the entry is not a valid constant pool tag
+     */
+    public static ClassConstantPoolEntry<?> make(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        final int tag = ByteUtil.readByte(classBuffer, offset);
+        final EntryConstructor constructor = CONSTRUCTORS[tag];
+
+        if (constructor == null) throw new ClassFormatError("invalid constant pool entry type: " + tag);
+
+        return constructor.make(classBuffer, offset, parentPool);
     }
 }
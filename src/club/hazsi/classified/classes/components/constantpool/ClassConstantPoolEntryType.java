@@ -1,9 +1,13 @@
 package club.hazsi.classified.classes.components.constantpool;
 
 import club.hazsi.classified.classes.components.ClassMajorVersion;
+import club.hazsi.classified.util.ByteUtil;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 // TODO write javadoc
 public enum ClassConstantPoolEntryType {
     UNKNOWN(0, 0),
@@ -25,6 +29,33 @@ public enum ClassConstantPoolEntryType {
     MODULE(19, 2, 53),          // Requires Java 9 or later
     PACKAGE(20, 2, 53);         // Requires Java 9 or later
 
+    private static final ClassConstantPoolEntryType[] BY_VALUE = new ClassConstantPoolEntryType[256];
+    private static final int[] ALLOWED_TAGS;    // The bitset of tags allowed in each major version, up to the last
+                                                // version which allowed new tags; later versions allow every tag
+    private static final int KNOWN_TAGS;
+    static {
+        Arrays.fill(BY_VALUE, UNKNOWN);
+        int latestVersion = 0;
+        int knownTags = 0;
+
+        for (ClassConstantPoolEntryType type : values()) {
+            if (type == UNKNOWN) continue;
+            BY_VALUE[type.value] = type;
+            latestVersion = Math.max(latestVersion, type.minimumMajorClassVersion);
+            knownTags |= 1 << type.value;
+        }
+
+        ALLOWED_TAGS = new int[latestVersion + 1];
+        KNOWN_TAGS = knownTags;
+
+        for (ClassConstantPoolEntryType type : values()) {
+            if (type == UNKNOWN) continue;
+            for (int version = type.minimumMajorClassVersion; version <= latestVersion; version++) {
+                ALLOWED_TAGS[version] |= 1 << type.value;
+            }
+        }
+    }
+
     private final int value;
     private final int dataSize;
     private final int minimumMajorClassVersion;
@@ -67,16 +98,57 @@ public enum ClassConstantPoolEntryType {
 
     /**
      * Returns a ClassConstantPoolType value based on the tag byte (raw hexadecimal value used to represent the tag or
-     * data type). This method is used when parsing constant pool entries, as the tag/type is stored in this format
+     * data type). This method is used when parsing constant pool entries, as the tag/type is stored in this format,
+     * and is a single lookup in a table indexed by tag byte rather than a search through {@link #values()}
      * @param value The tag byte used to identify the tag/type
      * @return The ClassConstantPoolType value associated with {@code value}, or
      * {@link ClassConstantPoolEntryType#UNKNOWN} if none is found
      */
     public static ClassConstantPoolEntryType getByValue(int value) {
-        for (ClassConstantPoolEntryType type : values()) {
-            if (type.getValue() == value) return type;
-        }
-        return UNKNOWN;
+        return (value & ~0xFF) == 0 ? BY_VALUE[value] : UNKNOWN;
+    }
+
+    /**
+     * Returns the tags allowed in a class of the given major version as a bitset, in which the tag {@code t} is allowed
+     * if bit {@code 1 << t} is set. Every tag is below 32. The bitsets are computed once, so checking the tag of an
+     * entry is a single table read and a bit test:
+     *
+     * <pre>{@code
+     * (tag & ~31) == 0 && (allowedTags & 1 << tag) != 0
+     * }</pre>
+     *
+     * @param majorVersion The major version of the class
+     * @return The bitset of the tags allowed in the class, which is empty below major version 45
+     */
+    public static int getAllowedTags(int majorVersion) {
+        return majorVersion < ALLOWED_TAGS.length ? ALLOWED_TAGS[majorVersion] : KNOWN_TAGS;
+    }
+
+    /**
+     * @return The bitset of every known tag, whatever the class version, see {@link #getAllowedTags(int)}
+     */
+    public static int getKnownTags() {
+        return KNOWN_TAGS;
+    }
+
+    /**
+     * Returns the full size of an entry of this type, including its tag byte. For every type except UTF-8 this is
+     * constant; for UTF-8 entries the length bytes of the entry are read from the class bytes.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @return The amount of bytes taken up by the entry
+     */
+    public int getEntrySize(ByteBuffer classBuffer, int offset) {
+        return 1 + (this == UTF8 ? ByteUtil.readWORD(classBuffer, offset + 1) + 2 : this.dataSize);
+    }
+
+    /**
+     * @return Whether entries of this type take up two slots in the constant pool table, which is only the case for
+     * long and double entries (see section 4.4.5 of the class file format specifications)
+     */
+    public boolean isWide() {
+        return this == LONG || this == DOUBLE;
     }
 
     public int getValue() {
@@ -0,0 +1,300 @@
+package club.hazsi.classified.classes.components.constantpool;
+
+import club.hazsi.classified.util.LongIntMap;
+import club.hazsi.classified.util.ModifiedUTF8;
+
+import java.util.HashMap;
+
+/**
+ * Finds or adds entries in a {@link ClassConstantPool}. Rewriting a class usually means referring to constants which
+ * may or may not already be in the pool; searching the pool for an equivalent entry on every insertion makes bulk
+ * rewrites quadratic. The builder instead keeps hash indexes of the pool keyed by tag and content, so that each of
+ * its methods returns the index of an existing equivalent entry, or appends a new one, in constant time:
+ *
+ * <pre>{@code
+ * final ConstantPoolBuilder builder = new ConstantPoolBuilder(classFile.getAttributes().getConstantPool());
+ * final int println = builder.methodRef("java/io/PrintStream", "println", "(Ljava/lang/String;)V");
+ * }</pre>
+ *
+ * The indexes are built once, on construction, with a single pass over the pool. Entries are appended to the pool
+ * itself with {@link ClassConstantPool#appendEntry(byte[])}, so they are visible through the pool straight away and
+ * are written out with the rest of the class. Entries appended to the pool directly, rather than through the builder,
+ * are picked up on the next call.<br><br>
+ *
+ * Long and double entries take up two indexes in the pool, which is accounted for by the pool itself. When a pool
+ * holds two equivalent entries, the one with the lowest index is returned.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ConstantPoolBuilder {
+    private final ClassConstantPool constantPool;
+
+    private final HashMap<String, Integer> utf8Index = new HashMap<>();
+    private final LongIntMap entryIndex = new LongIntMap();     // Keyed by tag << 32 | up to four bytes of content
+    private final LongIntMap longIndex = new LongIntMap();      // Keyed by the value of the long
+    private final LongIntMap doubleIndex = new LongIntMap();    // Keyed by the raw bits of the double
+
+    private int indexedSize;
+
+    /**
+     * Creates a builder for the provided pool, indexing every entry it currently holds.
+     *
+     * @param constantPool The pool to find and add entries in
+     */
+    public ConstantPoolBuilder(ClassConstantPool constantPool) {
+        this.constantPool = constantPool;
+        this.sync();
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Utf8} entry holding {@code value}
+     * @throws IllegalArgumentException If the encoded string would be longer than 65535 bytes
+     */
+    public int utf8(String value) {
+        this.sync();
+
+        final Integer existing = this.utf8Index.get(value);
+        if (existing != null) return existing;
+
+        final byte[] encoded = ModifiedUTF8.encode(value);
+        final byte[] entry = new byte[encoded.length + 3];
+
+        entry[0] = (byte) ClassConstantPoolEntryType.UTF8.getValue();
+        entry[1] = (byte) (encoded.length >> 8);
+        entry[2] = (byte) encoded.length;
+        System.arraycopy(encoded, 0, entry, 3, encoded.length);
+
+        final int index = this.append(entry);
+        this.utf8Index.put(value, index);
+        return index;
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Integer} entry holding {@code value}
+     */
+    public int intConstant(int value) {
+        return this.find(ClassConstantPoolEntryType.INTEGER, value);
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Float} entry holding {@code value}, compared by its raw bits
+     */
+    public int floatConstant(float value) {
+        return this.find(ClassConstantPoolEntryType.FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Long} entry holding {@code value}
+     */
+    public int longConstant(long value) {
+        return this.findWide(ClassConstantPoolEntryType.LONG, this.longIndex, value);
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Double} entry holding {@code value}, compared by its raw bits
+     */
+    public int doubleConstant(double value) {
+        return this.findWide(ClassConstantPoolEntryType.DOUBLE, this.doubleIndex, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_String} entry holding {@code value}
+     */
+    public int string(String value) {
+        return this.find(ClassConstantPoolEntryType.STRING, this.utf8(value));
+    }
+
+    /**
+     * @param internalName The internal name of the class, such as {@code java/lang/Object}, or the descriptor of an
+     *                     array class
+     * @return The index of a {@code CONSTANT_Class} entry naming the class
+     */
+    public int classRef(String internalName) {
+        return this.find(ClassConstantPoolEntryType.CLASS, this.utf8(internalName));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_NameAndType} entry holding the provided name and descriptor
+     */
+    public int nameAndType(String name, String descriptor) {
+        return this.find(ClassConstantPoolEntryType.NAME_AND_TYPE, this.utf8(name) << 16 | this.utf8(descriptor));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Fieldref} entry referring to the provided field
+     */
+    public int fieldRef(String owner, String name, String descriptor) {
+        return this.find(ClassConstantPoolEntryType.FIELD_REF,
+                this.classRef(owner) << 16 | this.nameAndType(name, descriptor));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Methodref} entry referring to the provided method
+     */
+    public int methodRef(String owner, String name, String descriptor) {
+        return this.find(ClassConstantPoolEntryType.METHOD_REF,
+                this.classRef(owner) << 16 | this.nameAndType(name, descriptor));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_InterfaceMethodref} entry referring to the provided interface method
+     */
+    public int interfaceMethodRef(String owner, String name, String descriptor) {
+        return this.find(ClassConstantPoolEntryType.INTERFACE_METHOD_REF,
+                this.classRef(owner) << 16 | this.nameAndType(name, descriptor));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_MethodType} entry holding the provided method descriptor
+     */
+    public int methodType(String descriptor) {
+        return this.find(ClassConstantPoolEntryType.METHOD_TYPE, this.utf8(descriptor));
+    }
+
+    /**
+     * @param kind The kind of the method handle, from 1 to 9, see table 5.4.3.5-A of the Java virtual machine
+     *             specifications
+     * @param referenceIndex The constant pool index of the member reference the handle points to
+     * @return The index of a {@code CONSTANT_MethodHandle} entry
+     */
+    public int methodHandle(int kind, int referenceIndex) {
+        return this.find(ClassConstantPoolEntryType.METHOD_HANDLE, (kind & 0xFF) << 16 | referenceIndex);
+    }
+
+    /**
+     * @param bootstrapMethodIndex The index of the bootstrap method in the BootstrapMethods attribute of the class
+     * @return The index of a {@code CONSTANT_Dynamic} entry
+     */
+    public int dynamic(int bootstrapMethodIndex, String name, String descriptor) {
+        return this.find(ClassConstantPoolEntryType.DYNAMIC,
+                bootstrapMethodIndex << 16 | this.nameAndType(name, descriptor));
+    }
+
+    /**
+     * @param bootstrapMethodIndex The index of the bootstrap method in the BootstrapMethods attribute of the class
+     * @return The index of a {@code CONSTANT_InvokeDynamic} entry
+     */
+    public int invokeDynamic(int bootstrapMethodIndex, String name, String descriptor) {
+        return this.find(ClassConstantPoolEntryType.INVOKE_DYNAMIC,
+                bootstrapMethodIndex << 16 | this.nameAndType(name, descriptor));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Module} entry naming the provided module
+     */
+    public int moduleRef(String name) {
+        return this.find(ClassConstantPoolEntryType.MODULE, this.utf8(name));
+    }
+
+    /**
+     * @return The index of a {@code CONSTANT_Package} entry naming the provided package, in internal form
+     */
+    public int packageRef(String internalName) {
+        return this.find(ClassConstantPoolEntryType.PACKAGE, this.utf8(internalName));
+    }
+
+    /**
+     * @return The pool this builder finds and adds entries in
+     */
+    public ClassConstantPool getConstantPool() {
+        return this.constantPool;
+    }
+
+    /**
+     * Finds or appends an entry whose content fits in four bytes. The content is laid out exactly as it is in the
+     * class file, so it doubles as the encoded entry.
+     */
+    private int find(ClassConstantPoolEntryType type, int content) {
+        this.sync();
+
+        final long key = (long) type.getValue() << 32 | (content & 0xFFFFFFFFL);
+        final int existing = this.entryIndex.get(key);
+        if (existing != 0) return existing;
+
+        final int dataSize = type.getDataSize();
+        final byte[] entry = new byte[dataSize + 1];
+
+        entry[0] = (byte) type.getValue();
+        for (int byteIndex = 0; byteIndex < dataSize; byteIndex++) {
+            entry[dataSize - byteIndex] = (byte) (content >>> (byteIndex * 8));     // Big-endian
+        }
+
+        final int index = this.append(entry);
+        this.entryIndex.put(key, index);
+        return index;
+    }
+
+    /**
+     * Finds or appends a long or double entry
+     */
+    private int findWide(ClassConstantPoolEntryType type, LongIntMap index, long bits) {
+        this.sync();
+
+        final int existing = index.get(bits);
+        if (existing != 0) return existing;
+
+        final byte[] entry = new byte[9];
+
+        entry[0] = (byte) type.getValue();
+        for (int byteIndex = 0; byteIndex < 8; byteIndex++) entry[8 - byteIndex] = (byte) (bits >>> (byteIndex * 8));
+
+        final int appendedIndex = this.append(entry);
+        index.put(bits, appendedIndex);
+        return appendedIndex;
+    }
+
+    /**
+     * Appends an entry which is known not to be in the indexes yet, and marks it as indexed
+     */
+    private int append(byte[] entry) {
+        final int index = this.constantPool.appendEntry(entry);
+        this.indexedSize = this.constantPool.getTableSize();
+        return index;
+    }
+
+    /**
+     * Indexes any entries added to the pool since it was last indexed
+     */
+    private void sync() {
+        final ClassConstantPool pool = this.constantPool;
+        final int tableSize = pool.getTableSize();
+
+        for (int index = this.indexedSize + 1; index <= tableSize; index++) {
+            final ClassConstantPoolEntryType type = ClassConstantPoolEntryType.getByValue(pool.getTag(index));
+
+            final int content = switch (type) {
+                case UTF8 -> {
+                    this.utf8Index.putIfAbsent(pool.getUtf8(index), index);
+                    yield -1;
+                }
+                case LONG -> {
+                    this.longIndex.putIfAbsent(pool.getLong(index), index);
+                    yield -1;
+                }
+                case DOUBLE -> {
+                    this.doubleIndex.putIfAbsent(Double.doubleToRawLongBits(pool.getDouble(index)), index);
+                    yield -1;
+                }
+                case INTEGER -> pool.getInt(index);
+                case FLOAT -> Float.floatToRawIntBits(pool.getFloat(index));
+                case CLASS, MODULE, PACKAGE -> pool.getClassNameIndex(index);
+                case STRING -> pool.getStringIndex(index);
+                case METHOD_TYPE -> pool.getMethodTypeDescriptorIndex(index);
+                case NAME_AND_TYPE -> pool.getNameAndType(index);
+                case FIELD_REF, METHOD_REF, INTERFACE_METHOD_REF ->
+                        pool.getRefOwner(index) << 16 | pool.getRefNameAndType(index);
+                case DYNAMIC, INVOKE_DYNAMIC ->
+                        pool.getBootstrapMethodIndex(index) << 16 | pool.getRefNameAndType(index);
+                case METHOD_HANDLE -> pool.getMethodHandleKind(index) << 16 | pool.getMethodHandleReference(index);
+                case UNKNOWN -> -1;     // Index 0, or the second slot of a long or double
+            };
+
+            if (type.getDataSize() > 0 && !type.isWide()) {
+                this.entryIndex.putIfAbsent((long) type.getValue() << 32 | (content & 0xFFFFFFFFL), index);
+            }
+        }
+
+        this.indexedSize = tableSize;
+    }
+}
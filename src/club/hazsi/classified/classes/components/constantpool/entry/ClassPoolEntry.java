@@ -1,27 +1,30 @@
 package club.hazsi.classified.classes.components.constantpool.entry;
 
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
+import club.hazsi.classified.util.ByteUtil;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 public class ClassPoolEntry extends ClassConstantPoolEntry<Integer> {
 
     /**
-     * Constructs a ClassConstantPoolEntry instance from the raw bytes that make it up. Since the length of this data
-     * depends on the tag type and other data which is calculated here, the length of the data provided is irrelevant;
-     * the data provided here is expected to be from the start of the entry to the end of the file, as everything after
-     * the entry's data is disregarded. <br><br>
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. <br><br>
      * <p>
      * The offset for the next entry can be found with the
      * {@code ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
      * accurately resemble a constant pool entry (plus any amount of arbitrary class data afterwards) may result in
      * undocumented behaviour.
      *
-     * @param rawData The data representing the pool entry (type/tag data size + 1 for the tag itself), plus any
-     *                number of arbitrary bytes afterwards which are disregarded
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
      */
-    public ClassPoolEntry(byte[] rawData) {
-        super(rawData);
+    public ClassPoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        super(classBuffer, offset, parentPool);
     }
 
     /**
@@ -31,6 +34,6 @@ public class ClassPoolEntry extends ClassConstantPoolEntry<Integer> {
      */
     @Override
     public Integer getParsedData() {
-        return Byte.toUnsignedInt(this.getData()[1]);
+        return ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset());
     }
 }
\ No newline at end of file
@@ -1,16 +1,20 @@
 package club.hazsi.classified.classes.components.constantpool.entry;
 
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
+import club.hazsi.classified.util.ByteUtil;
 import club.hazsi.classified.util.Tuple2;
 
+import java.nio.ByteBuffer;
+
 // TODO write javadoc for all entry types
 // first int refers to a class, second int refers to a name and type descriptor
 public class FieldRefPoolEntry extends ClassConstantPoolEntry<Tuple2<Integer, Integer>> {
     /**
-     * Constructs a ClassConstantPoolEntry instance from the raw bytes that make it up. Since the length of this data
-     * depends on the tag type and other data which is calculated here, the length of the data provided is irrelevant;
-     * the data provided here is expected to be from the start of the entry to the end of the file, as everything after
-     * the entry's data is disregarded. <br><br>
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. <br><br>
      * <p>
      * The offset for the next entry can be found with the
      * {@code ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
@@ -21,11 +25,12 @@ public class FieldRefPoolEntry extends ClassConstantPoolEntry<Tuple2<Integer, In
      * should almost never be used; instead, the {@code factory(byte[])} method should be used instead to return a
      * new instance of the appropriate implementation of this class
      *
-     * @param rawData The data representing the pool entry (type/tag data size + 1 for the tag itself), plus any
-     *                number of arbitrary bytes afterwards which are disregarded
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
      */
-    public FieldRefPoolEntry(byte[] rawData) {
-        super(rawData);
+    public FieldRefPoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        super(classBuffer, offset, parentPool);
     }
 
     /**
@@ -35,6 +40,9 @@ public class FieldRefPoolEntry extends ClassConstantPoolEntry<Tuple2<Integer, In
      */
     @Override
     public Tuple2<Integer, Integer> getParsedData() {
-        return new Tuple2<>(Byte.toUnsignedInt(this.getData()[1]), Byte.toUnsignedInt(this.getData()[3]));
+        return new Tuple2<>(
+                ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset()),
+                ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset() + 2)
+        );
     }
 }
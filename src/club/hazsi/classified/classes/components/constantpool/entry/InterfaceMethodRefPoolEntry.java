@@ -0,0 +1,53 @@
+package club.hazsi.classified.classes.components.constantpool.entry;
+
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
+import club.hazsi.classified.util.ByteUtil;
+import club.hazsi.classified.util.Tuple2;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code CONSTANT_InterfaceMethodref} entry, a reference to a method declared by an interface, as used by
+ * {@code invokeinterface} and by calls to static and private interface methods.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public class InterfaceMethodRefPoolEntry extends ClassConstantPoolEntry<Tuple2<Integer, Integer>> {
+    /**
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. <br><br>
+     * <p>
+     * The offset for the next entry can be found with the
+     * {@code ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
+     * accurately resemble a constant pool entry (plus any amount of arbitrary class data afterwards) may result in
+     * undocumented behaviour.<br><br>
+     * <p>
+     * This constructor should only be used privately and by implementations of this method, this raw class itself
+     * should almost never be used; instead, the {@code factory(byte[])} method should be used instead to return a
+     * new instance of the appropriate implementation of this class
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
+     */
+    public InterfaceMethodRefPoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        super(classBuffer, offset, parentPool);
+    }
+
+    /**
+     * @return A tuple of the {@code class_index}, the constant pool index of the class entry of the interface declaring
+     * the method, and the {@code name_and_type_index}, the constant pool index of the name and type entry holding the
+     * name and descriptor of the method
+     */
+    @Override
+    public Tuple2<Integer, Integer> getParsedData() {
+        return new Tuple2<>(
+                ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset()),
+                ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset() + 2)
+        );
+    }
+}
@@ -1,27 +1,31 @@
 package club.hazsi.classified.classes.components.constantpool.entry;
 
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
 import club.hazsi.classified.util.ByteUtil;
-import club.hazsi.classified.util.Tuple3;
+import club.hazsi.classified.util.Tuple2;
 
-public class InvokeDynamicPoolEntry extends ClassConstantPoolEntry<Tuple3<Integer, Integer, Integer>> {
+import java.nio.ByteBuffer;
+
+public class InvokeDynamicPoolEntry extends ClassConstantPoolEntry<Tuple2<Integer, Integer>> {
 
     /**
-     * Constructs a ClassConstantPoolEntry instance from the raw bytes that make it up. Since the length of this data
-     * depends on the tag type and other data which is calculated here, the length of the data provided is irrelevant;
-     * the data provided here is expected to be from the start of the entry to the end of the file, as everything after
-     * the entry's data is disregarded. <br><br>
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. <br><br>
      * <p>
      * The offset for the next entry can be found with the
      * {@link ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
      * accurately resemble a constant pool entry (plus any amount of arbitrary class data afterwards) may result in
      * undocumented behaviour.
      *
-     * @param rawData The data representing the pool entry (type/tag data size + 1 for the tag itself), plus any
-     *                number of arbitrary bytes afterwards which are disregarded
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
      */
-    public InvokeDynamicPoolEntry(byte[] rawData) {
-        super(rawData);
+    public InvokeDynamicPoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        super(classBuffer, offset, parentPool);
     }
 
     /**
@@ -30,11 +34,10 @@ public class InvokeDynamicPoolEntry extends ClassConstantPoolEntry<Tuple3<Intege
      * @return A parsed representation of the {@code data} field according to tag format
      */
     @Override
-    public Tuple3<Integer, Integer, Integer> getParsedData() {
-        return new Tuple3<>(
-                ByteUtil.readByte(this.getData(), 0),
-                ByteUtil.readByte(this.getData(), 1),
-                ByteUtil.readWORD(this.getData(), 2)
+    public Tuple2<Integer, Integer> getParsedData() {
+        return new Tuple2<>(
+                ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset()),
+                ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset() + 2)
         );
     }
 }
\ No newline at end of file
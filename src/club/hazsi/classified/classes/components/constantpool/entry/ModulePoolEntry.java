@@ -0,0 +1,41 @@
+package club.hazsi.classified.classes.components.constantpool.entry;
+
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
+import club.hazsi.classified.util.ByteUtil;
+
+import java.nio.ByteBuffer;
+
+// the int refers to the UTF-8 entry holding the module name
+public class ModulePoolEntry extends ClassConstantPoolEntry<Integer> {
+    /**
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. <br><br>
+     * <p>
+     * The offset for the next entry can be found with the
+     * {@code ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
+     * accurately resemble a constant pool entry (plus any amount of arbitrary class data afterwards) may result in
+     * undocumented behaviour.<br><br>
+     * <p>
+     * This constructor should only be used privately and by implementations of this method, this raw class itself
+     * should almost never be used; instead, the {@code factory(byte[])} method should be used instead to return a
+     * new instance of the appropriate implementation of this class
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
+     */
+    public ModulePoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        super(classBuffer, offset, parentPool);
+    }
+
+    /**
+     * @return The {@code name_index}, the constant pool index of the UTF-8 entry holding the name of the module
+     */
+    @Override
+    public Integer getParsedData() {
+        return ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset());
+    }
+}
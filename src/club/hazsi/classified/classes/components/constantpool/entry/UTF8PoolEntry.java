@@ -1,36 +1,49 @@
 package club.hazsi.classified.classes.components.constantpool.entry;
 
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
+import club.hazsi.classified.util.ByteUtil;
+import club.hazsi.classified.util.ModifiedUTF8;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 public class UTF8PoolEntry extends ClassConstantPoolEntry<String> {
+    private String value;   // Decoded on the first call to getParsedData()
 
     /**
-     * Constructs a ClassConstantPoolEntry instance from the raw bytes that make it up. Since the length of this data
-     * depends on the tag type and other data which is calculated here, the length of the data provided is irrelevant;
-     * the data provided here is expected to be from the start of the entry to the end of the file, as everything after
-     * the entry's data is disregarded. <br><br>
+     * Constructs a ClassConstantPoolEntry instance from the raw bytes of its class, starting at the entry's tag byte.
+     * Since the length of this data depends on the tag type and other data which is calculated here, no end bound is
+     * needed; the entry is read in place from the shared class buffer, and everything after the entry's data is
+     * disregarded. <br><br>
      * <p>
      * The offset for the next entry can be found with the
      * {@code ClassConstantPoolEntry#getSize()} method. Calling this constructor with erroneous data that doesn't
      * accurately resemble a constant pool entry (plus any amount of arbitrary class data afterwards) may result in
      * undocumented behaviour.
      *
-     * @param rawData The data representing the pool entry (type/tag data size + 1 for the tag itself), plus any
-     *                number of arbitrary bytes afterwards which are disregarded
+     * @param classBuffer The buffer holding the raw bytes of the class file containing the pool entry
+     * @param offset The offset of the entry's tag byte within {@code classBuffer}
+     * @param parentPool The {@link ClassConstantPool} instance this entry belongs to
      */
-    public UTF8PoolEntry(byte[] rawData) {
-        super(rawData);
+    public UTF8PoolEntry(ByteBuffer classBuffer, int offset, ClassConstantPool parentPool) {
+        super(classBuffer, offset, parentPool);
     }
 
     /**
-     * Parses the {@code data} byte array as according to the specification of the tag/type format. Directly calling
-     * this method on {@link ClassConstantPoolEntry} is not allowed, and must be implemented by a subclass.
-     * @return A parsed representation of the {@code data} field according to tag format
+     * Decodes the modified UTF-8 bytes of this entry, see {@link ModifiedUTF8}. The string is decoded on the first
+     * call and the same instance is returned afterwards.
+     * @return The decoded string held by this entry
      */
     @Override
     public String getParsedData() {
-        return new String(Arrays.copyOfRange(this.getData(), 2, this.getData().length));
+        String value = this.value;
+
+        if (value == null) {    // Strings are immutable, so a racing thread decoding the value twice is harmless
+            value = ModifiedUTF8.decode(this.getClassBuffer(), this.getDataOffset() + 2,
+                    ByteUtil.readWORD(this.getClassBuffer(), this.getDataOffset()));
+            this.value = value;
+        }
+
+        return value;
     }
 }
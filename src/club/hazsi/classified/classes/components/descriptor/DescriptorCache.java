@@ -0,0 +1,98 @@
+package club.hazsi.classified.classes.components.descriptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The intern cache shared by {@link FieldDescriptor} and {@link MethodDescriptor}. The same few thousand descriptors
+ * make up nearly every descriptor of a code base, so interning them saves both parsing them again for every class and
+ * holding a copy of each for every class.<br><br>
+ *
+ * The cache is bounded and safe for concurrent use. It is made of two generations: descriptors are added to the
+ * current generation, which becomes the previous generation once it holds {@link #MAX_SIZE} / 2 descriptors, and the
+ * old previous generation is dropped. Descriptors found in the previous generation are moved back to the current one,
+ * so descriptors in use survive while the ones no longer requested are eventually evicted, at the cost of a single
+ * map lookup per hit.<br><br>
+ *
+ * When two threads parse the same descriptor at the same time, or a descriptor has been evicted, a new instance may
+ * be returned for a descriptor which was interned before. Interning is an optimization, not a guarantee.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class DescriptorCache {
+    /**
+     * The maximum amount of descriptors held by the cache
+     */
+    public static final int MAX_SIZE = 65536;
+
+    private static volatile ConcurrentHashMap<String, Object> current = new ConcurrentHashMap<>();
+    private static volatile ConcurrentHashMap<String, Object> previous = new ConcurrentHashMap<>();
+
+    private DescriptorCache() {
+    }
+
+    /**
+     * @return The interned form of a field descriptor, parsed and interned if it was not cached yet
+     * @throws IllegalArgumentException If the descriptor is malformed
+     */
+    public static FieldDescriptor field(String descriptor) {
+        final Object cached = get(descriptor);
+        if (cached instanceof FieldDescriptor) return (FieldDescriptor) cached;
+
+        return (FieldDescriptor) put(descriptor, FieldDescriptor.parse(descriptor));
+    }
+
+    /**
+     * @return The interned form of a method descriptor, parsed and interned if it was not cached yet
+     * @throws IllegalArgumentException If the descriptor is malformed
+     */
+    public static MethodDescriptor method(String descriptor) {
+        final Object cached = get(descriptor);
+        if (cached instanceof MethodDescriptor) return (MethodDescriptor) cached;
+
+        return (MethodDescriptor) put(descriptor, MethodDescriptor.parse(descriptor));
+    }
+
+    /**
+     * @return The amount of descriptors currently held by the cache
+     */
+    public static int size() {
+        return current.size() + previous.size();
+    }
+
+    /**
+     * Drops every interned descriptor
+     */
+    public static synchronized void clear() {
+        previous = new ConcurrentHashMap<>();
+        current = new ConcurrentHashMap<>();
+    }
+
+    private static Object get(String descriptor) {
+        final ConcurrentHashMap<String, Object> current = DescriptorCache.current;
+        final Object cached = current.get(descriptor);
+        if (cached != null) return cached;
+
+        final Object promoted = previous.get(descriptor);
+        if (promoted != null) put(descriptor, promoted);   // Still in use, so keep it around
+        return promoted;
+    }
+
+    private static Object put(String descriptor, Object parsed) {
+        ConcurrentHashMap<String, Object> current = DescriptorCache.current;
+
+        if (current.size() >= MAX_SIZE / 2) {
+            synchronized (DescriptorCache.class) {
+                if (DescriptorCache.current.size() >= MAX_SIZE / 2) {
+                    previous = DescriptorCache.current;
+                    DescriptorCache.current = new ConcurrentHashMap<>();
+                }
+
+                current = DescriptorCache.current;
+            }
+        }
+
+        final Object existing = current.putIfAbsent(descriptor, parsed);
+        return existing != null ? existing : parsed;
+    }
+}
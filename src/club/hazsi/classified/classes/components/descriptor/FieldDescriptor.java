@@ -0,0 +1,160 @@
+package club.hazsi.classified.classes.components.descriptor;
+
+import lombok.Getter;
+
+/**
+ * A parsed field descriptor, as defined in section 4.3.2 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>. A
+ * field descriptor describes a single type, which is either a primitive type, a class type such as
+ * {@code Ljava/lang/String;}, or an array type such as {@code [[I}. Field descriptors are also used for the argument
+ * and return types of a {@link MethodDescriptor}, where the return type may additionally be {@link #VOID}.<br><br>
+ *
+ * Descriptors are immutable and interned in {@link DescriptorCache}, so equal descriptors obtained through
+ * {@link #of(String)} or a constant pool are usually (but not always) the same instance. Compare them with
+ * {@link #equals(Object)}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class FieldDescriptor {
+    /**
+     * The {@code V} return type of methods which return nothing. Not a valid field descriptor by itself.
+     */
+    public static final FieldDescriptor VOID = new FieldDescriptor("V", 'V', 0, null);
+
+    private final String descriptor;    // The descriptor as it appears in the class file
+    private final char sort;            // The first character of the descriptor, such as I, L or [
+    private final int dimensions;       // The amount of array dimensions, 0 for non-array types
+    private final String internalName;  // The internal name of the class, or of the element class of an array
+
+    private FieldDescriptor(String descriptor, char sort, int dimensions, String internalName) {
+        this.descriptor = descriptor;
+        this.sort = sort;
+        this.dimensions = dimensions;
+        this.internalName = internalName;
+    }
+
+    /**
+     * Returns the parsed form of a field descriptor, from {@link DescriptorCache} if it was parsed before.
+     *
+     * @param descriptor A field descriptor, such as {@code J} or {@code [Ljava/lang/Object;}
+     * @return The parsed descriptor
+     * @throws IllegalArgumentException If the descriptor is malformed
+     */
+    public static FieldDescriptor of(String descriptor) {
+        return DescriptorCache.field(descriptor);
+    }
+
+    /**
+     * Parses the field descriptor starting at {@code start}, without consulting the cache
+     *
+     * @return The offset directly after the descriptor
+     */
+    static int end(String descriptor, int start) {
+        int offset = start;
+        while (offset < descriptor.length() && descriptor.charAt(offset) == '[') offset++;
+
+        if (offset - start > 255) throw invalid(descriptor, "more than 255 array dimensions");
+        if (offset >= descriptor.length()) throw invalid(descriptor, "missing type");
+
+        switch (descriptor.charAt(offset)) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z' -> {
+                return offset + 1;
+            }
+            case 'L' -> {
+                final int end = descriptor.indexOf(';', offset);
+                if (end <= offset + 1) throw invalid(descriptor, "malformed class name");
+
+                for (int charIndex = offset + 1; charIndex < end; charIndex++) {
+                    final char character = descriptor.charAt(charIndex);
+                    if (character == '.' || character == '[' || character == '(' || character == ')') {
+                        throw invalid(descriptor, "malformed class name");
+                    }
+                }
+
+                return end + 1;
+            }
+            default -> throw invalid(descriptor, "unknown type '" + descriptor.charAt(offset) + "'");
+        }
+    }
+
+    /**
+     * Parses a complete field descriptor, without consulting the cache
+     */
+    static FieldDescriptor parse(String descriptor) {
+        if (descriptor.equals("V")) return VOID;
+        if (end(descriptor, 0) != descriptor.length()) throw invalid(descriptor, "trailing characters");
+
+        int dimensions = 0;
+        while (descriptor.charAt(dimensions) == '[') dimensions++;
+
+        final char elementSort = descriptor.charAt(dimensions);
+        final String internalName = elementSort == 'L' ?
+                descriptor.substring(dimensions + 1, descriptor.length() - 1) : null;
+
+        return new FieldDescriptor(descriptor, descriptor.charAt(0), dimensions, internalName);
+    }
+
+    static IllegalArgumentException invalid(String descriptor, String reason) {
+        return new IllegalArgumentException("invalid descriptor \"" + descriptor + "\": " + reason);
+    }
+
+    /**
+     * @return The amount of local variable and operand stack slots a value of this type takes up: 2 for longs and
+     * doubles, 0 for {@link #VOID}, and 1 for everything else
+     */
+    public int getSlotSize() {
+        return switch (this.sort) {
+            case 'J', 'D' -> 2;
+            case 'V' -> 0;
+            default -> 1;
+        };
+    }
+
+    /**
+     * @return Whether the type is a primitive type. {@link #VOID} is not.
+     */
+    public boolean isPrimitive() {
+        return this.sort != 'L' && this.sort != '[' && this.sort != 'V';
+    }
+
+    /**
+     * @return Whether the type is an array type
+     */
+    public boolean isArray() {
+        return this.sort == '[';
+    }
+
+    /**
+     * @return Whether the type is a class or array type
+     */
+    public boolean isReference() {
+        return this.sort == 'L' || this.sort == '[';
+    }
+
+    /**
+     * @return The type of the elements of an array type, with one dimension less
+     * @throws IllegalStateException If the type is not an array type
+     */
+    public FieldDescriptor getComponentType() {
+        if (this.sort != '[') throw new IllegalStateException(this.descriptor + " is not an array type");
+        return DescriptorCache.field(this.descriptor.substring(1));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof FieldDescriptor && this.descriptor.equals(
+                ((FieldDescriptor) other).descriptor));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.descriptor.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.descriptor;
+    }
+}
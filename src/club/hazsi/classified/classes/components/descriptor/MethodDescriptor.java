@@ -0,0 +1,108 @@
+package club.hazsi.classified.classes.components.descriptor;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed method descriptor, as defined in section 4.3.3 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>, such
+ * as {@code (Ljava/lang/String;I)V}. The argument and return types are {@link FieldDescriptor}s, and are interned
+ * along with the method descriptor itself.<br><br>
+ *
+ * Descriptors are immutable and interned in {@link DescriptorCache}, so equal descriptors obtained through
+ * {@link #of(String)} or a constant pool are usually (but not always) the same instance. Compare them with
+ * {@link #equals(Object)}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class MethodDescriptor {
+    private final String descriptor;                    // The descriptor as it appears in the class file
+    private final List<FieldDescriptor> argumentTypes;  // Unmodifiable
+    private final FieldDescriptor returnType;           // FieldDescriptor.VOID for methods which return nothing
+    private final int argumentSlotSize;                 // Excluding the receiver of instance methods
+
+    private MethodDescriptor(String descriptor, List<FieldDescriptor> argumentTypes, FieldDescriptor returnType,
+                             int argumentSlotSize) {
+        this.descriptor = descriptor;
+        this.argumentTypes = argumentTypes;
+        this.returnType = returnType;
+        this.argumentSlotSize = argumentSlotSize;
+    }
+
+    /**
+     * Returns the parsed form of a method descriptor, from {@link DescriptorCache} if it was parsed before.
+     *
+     * @param descriptor A method descriptor, such as {@code (IJ)Ljava/lang/String;}
+     * @return The parsed descriptor
+     * @throws IllegalArgumentException If the descriptor is malformed
+     */
+    public static MethodDescriptor of(String descriptor) {
+        return DescriptorCache.method(descriptor);
+    }
+
+    /**
+     * Parses a complete method descriptor, interning its argument and return types but not the descriptor itself
+     */
+    static MethodDescriptor parse(String descriptor) {
+        if (descriptor.isEmpty() || descriptor.charAt(0) != '(') throw FieldDescriptor.invalid(descriptor, "missing (");
+
+        final ArrayList<FieldDescriptor> argumentTypes = new ArrayList<>();
+        int argumentSlotSize = 0;
+        int offset = 1;
+
+        while (offset < descriptor.length() && descriptor.charAt(offset) != ')') {
+            final int end = FieldDescriptor.end(descriptor, offset);
+            final FieldDescriptor argumentType = DescriptorCache.field(descriptor.substring(offset, end));
+
+            argumentTypes.add(argumentType);
+            argumentSlotSize += argumentType.getSlotSize();
+            offset = end;
+        }
+
+        if (offset >= descriptor.length()) throw FieldDescriptor.invalid(descriptor, "missing )");
+        if (argumentSlotSize > 255) throw FieldDescriptor.invalid(descriptor, "more than 255 argument slots");
+
+        final FieldDescriptor returnType = DescriptorCache.field(descriptor.substring(offset + 1));
+        argumentTypes.trimToSize();
+
+        return new MethodDescriptor(descriptor, argumentTypes.isEmpty() ? Collections.emptyList() :
+                Collections.unmodifiableList(argumentTypes), returnType, argumentSlotSize);
+    }
+
+    /**
+     * @return The amount of arguments of the method, excluding the receiver of instance methods
+     */
+    public int getArgumentCount() {
+        return this.argumentTypes.size();
+    }
+
+    /**
+     * @param isStatic Whether the method is static, in which case it has no receiver
+     * @return The amount of local variable slots taken up by the arguments of the method when it is invoked,
+     * including the receiver of instance methods
+     */
+    public int getArgumentSlotSize(boolean isStatic) {
+        return isStatic ? this.argumentSlotSize : this.argumentSlotSize + 1;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof MethodDescriptor && this.descriptor.equals(
+                ((MethodDescriptor) other).descriptor));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.descriptor.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.descriptor;
+    }
+}
@@ -1,30 +1,141 @@
 package club.hazsi.classified.classes.components.fieldtable;
 
+import club.hazsi.classified.classes.components.ClassMemberEntry;
+import club.hazsi.classified.classes.components.MemberIndex;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 // TODO write this javadoc
 @Getter
 public class ClassFieldTable {
-    private final ArrayList<ClassFieldTableEntry> fields = new ArrayList<>();
-    private final int length;
+    private final ArrayList<ClassFieldTableEntry> fields;
+    private int length;
+
+    @Getter(AccessLevel.NONE) private ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private int offset;
+    @Getter(AccessLevel.NONE) private final MemberIndex<ClassFieldTableEntry> index;
+    @Getter(AccessLevel.NONE) private final ClassConstantPool constantPool;
+    @Getter(AccessLevel.NONE) private final boolean parseAttributes;
 
     // TODO write this javadoc
-    public ClassFieldTable(byte[] classBytes) {
-        final int tableSize = Byte.toUnsignedInt(classBytes[1]);
+    public ClassFieldTable(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool) {
+        this(classBuffer, offset, constantPool, true);
+    }
+
+    /**
+     * Parses the table starting at {@code offset}, optionally skipping the attributes of every entry. Skipped
+     * attributes are stepped over using their declared lengths, and every entry is left with an empty attribute list.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the two table size bytes within {@code classBuffer}
+     * @param constantPool The constant pool of the class, used to resolve the names of attributes
+     * @param parseAttributes Whether the attributes of every entry should be parsed
+     */
+    public ClassFieldTable(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool,
+                           boolean parseAttributes) {
+        final int tableSize = ByteUtil.readWORD(classBuffer, offset);
 
-        int offset = 2;
+        this.index = new MemberIndex<>(constantPool);
+        this.fields = this.index.getMembers();
+
+        int entryOffset = offset + 2;
 
         for (int currentTableIndex = 1; currentTableIndex <= tableSize; currentTableIndex++) {
-            ClassFieldTableEntry currentTableEntry = new ClassFieldTableEntry(
-                    Arrays.copyOfRange(classBytes, offset, classBytes.length));
+            ClassFieldTableEntry currentTableEntry = new ClassFieldTableEntry(classBuffer, entryOffset,
+                    constantPool, parseAttributes);
 
             this.fields.add(currentTableEntry);
-            offset += currentTableEntry.getLength();
+            entryOffset += currentTableEntry.getLength();
         }
 
-        this.length = offset + 2;
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.length = entryOffset - offset;     // Includes the two table size bytes
+        this.constantPool = constantPool;
+        this.parseAttributes = parseAttributes;
+    }
+
+    /**
+     * Finds a field by name and descriptor in constant time, see {@link MemberIndex}. No constant pool strings are
+     * decoded to answer the lookup.
+     *
+     * @param name The name of the field
+     * @param descriptor The descriptor of the field, such as {@code Ljava/lang/String;}
+     * @return The field, or {@code null} if the class declares no such field
+     */
+    public ClassFieldTableEntry getField(String name, String descriptor) {
+        return this.index.find(name, descriptor);
+    }
+
+    /**
+     * Finds a field by the constant pool indexes of its name and descriptor in constant time. The indexes are
+     * compared by the content of their UTF-8 entries, not by value.
+     *
+     * @param nameIndex The constant pool index of the name of the field
+     * @param descriptorIndex The constant pool index of the descriptor of the field
+     * @return The field, or {@code null} if the class declares no such field
+     */
+    public ClassFieldTableEntry getField(int nameIndex, int descriptorIndex) {
+        return this.index.find(nameIndex, descriptorIndex);
+    }
+
+    /**
+     * Discards the lookup index of the table. Only needed after renaming fields, see {@link MemberIndex}.
+     */
+    public void invalidateIndex() {
+        this.index.invalidate();
+    }
+
+    /**
+     * @return Whether the table has changed since it was read, see {@link ClassMemberEntry#isTableDirty}
+     */
+    public boolean isDirty() {
+        return ClassMemberEntry.isTableDirty(this.fields, this.classBuffer, this.offset);
+    }
+
+    /**
+     * @return The amount of bytes the table takes up once written, including the two table size bytes
+     */
+    public int getSerializedLength() {
+        return ClassMemberEntry.getSerializedLength(this.fields);
+    }
+
+    /**
+     * Writes the table to {@code out}, copying runs of unchanged fields in bulk, see
+     * {@link ClassMemberEntry#writeTable}. Afterwards, the table and its entries refer to the written bytes.
+     *
+     * @param out The buffer to write to
+     * @param offset The offset within {@code out} to write the two table size bytes at
+     * @return The offset directly after the written table
+     */
+    public int writeTo(ByteBuffer out, int offset) {
+        final int end = ClassMemberEntry.writeTable(this.fields, out, offset);
+
+        this.classBuffer = out;
+        this.offset = offset;
+        this.length = end - offset;
+        return end;
+    }
+
+    /**
+     * Re-reads the table from other class bytes sharing the same constant pool, reusing every field whose bytes did not
+     * change, see {@link ClassMemberEntry#updateTable}. The table must not be dirty.
+     *
+     * @param classBuffer The buffer holding the other class bytes
+     * @param offset The offset of the two table size bytes within {@code classBuffer}
+     * @param entryOffsets The offsets of the entries of the other table, see {@link ClassMemberEntry#scanTable}
+     */
+    public void update(ByteBuffer classBuffer, int offset, int[] entryOffsets) {
+        ClassMemberEntry.updateTable(this.fields, classBuffer, entryOffsets, (buffer, entryOffset) ->
+                new ClassFieldTableEntry(buffer, entryOffset, this.constantPool, this.parseAttributes));
+
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.length = entryOffsets[entryOffsets.length - 1] - offset;
     }
 }
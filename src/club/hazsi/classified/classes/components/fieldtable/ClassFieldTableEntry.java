@@ -1,11 +1,12 @@
 package club.hazsi.classified.classes.components.fieldtable;
 
 import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.classes.components.ClassMemberEntry;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
-import club.hazsi.classified.util.ByteUtil;
+import club.hazsi.classified.classes.components.descriptor.FieldDescriptor;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a single entry in the classes field table. As per section 4.5 of the Java
@@ -35,49 +36,60 @@ import java.util.Arrays;
  * @author Hazsi
  * @since 1.0
  */
-public class ClassFieldTableEntry {
-    private final int length;
-    private final int accessFlags; // TODO move this to an ArrayList of FieldAccessFlags instead of just the raw bitfield
-    private final int nameIndex;
-    private final int descriptorIndex;
-    private final ArrayList<AttributeInfo> attributeInfos = new ArrayList<>();
+public class ClassFieldTableEntry extends ClassMemberEntry {
 
     // TODO write this javadoc
-    public ClassFieldTableEntry(byte[] classBytes) {
-
-        final int attributeInfoCount = ByteUtil.readByte(classBytes, 7);
-        int offset = 8;
-
-        for (int currentAttributeIndex = 0; currentAttributeIndex < attributeInfoCount; currentAttributeIndex++) {
-            AttributeInfo currentAttributeInfo = new AttributeInfo(Arrays.copyOfRange(classBytes, offset, classBytes.length));
-
-            this.attributeInfos.add(currentAttributeInfo);
-            offset += currentAttributeInfo.getLength();
-        }
-
-        this.accessFlags = ByteUtil.readWORD(classBytes, 0);
-        this.nameIndex = ByteUtil.readWORD(classBytes, 2);
-        this.descriptorIndex = ByteUtil.readWORD(classBytes, 4);
-        this.length = offset;
+    public ClassFieldTableEntry(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool) {
+        this(classBuffer, offset, constantPool, true);
     }
 
-    public int getLength() {
-        return length;
+    /**
+     * Parses the entry starting at {@code offset}, optionally skipping its attributes. Skipped attributes are stepped
+     * over using their declared lengths, leaving the entry with an empty attribute list.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the entry's access flags within {@code classBuffer}
+     * @param constantPool The constant pool of the class, used to resolve the names of attributes
+     * @param parseAttributes Whether the attributes of the entry should be parsed
+     */
+    public ClassFieldTableEntry(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool,
+                                boolean parseAttributes) {
+        super(classBuffer, offset, constantPool, parseAttributes);
     }
 
-    public int getAccessFlags() {
-        return accessFlags;
+    /**
+     * Creates a new entry without any attributes, to be added to the table of a class. See
+     * {@link ClassMemberEntry#ClassMemberEntry(int, int, int)}.
+     *
+     * @param accessFlags The access flags bitfield of the field
+     * @param nameIndex The constant pool index of the name of the field
+     * @param descriptorIndex The constant pool index of the descriptor of the field
+     */
+    public ClassFieldTableEntry(int accessFlags, int nameIndex, int descriptorIndex) {
+        super(accessFlags, nameIndex, descriptorIndex);
     }
 
-    public int getNameIndex() {
-        return nameIndex;
+    /**
+     * Creates a new entry without any attributes, whose name and descriptor can be resolved through the provided
+     * constant pool. See {@link ClassMemberEntry#ClassMemberEntry(ClassConstantPool, int, int, int)}.
+     *
+     * @param constantPool The constant pool of the class the field will belong to
+     * @param accessFlags The access flags bitfield of the field
+     * @param nameIndex The constant pool index of the name of the field
+     * @param descriptorIndex The constant pool index of the descriptor of the field
+     */
+    public ClassFieldTableEntry(ClassConstantPool constantPool, int accessFlags, int nameIndex, int descriptorIndex) {
+        super(constantPool, accessFlags, nameIndex, descriptorIndex);
     }
 
-    public int getDescriptorIndex() {
-        return descriptorIndex;
+    /**
+     * @return The parsed descriptor of the field, shared with every other field with the same descriptor, see
+     * {@link ClassConstantPool#getFieldDescriptor(int)}
+     * @throws ClassFormatError If the descriptor is malformed
+     * @throws IllegalStateException If the entry was created without a constant pool
+     */
+    public FieldDescriptor getFieldDescriptor() {
+        return this.requireConstantPool().getFieldDescriptor(this.getDescriptorIndex());
     }
 
-    public ArrayList<AttributeInfo> getAttributeInfos() {
-        return attributeInfos;
-    }
-}
\ No newline at end of file
+}
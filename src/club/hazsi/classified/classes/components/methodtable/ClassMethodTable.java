@@ -1,31 +1,142 @@
 package club.hazsi.classified.classes.components.methodtable;
 
+import club.hazsi.classified.classes.components.ClassMemberEntry;
+import club.hazsi.classified.classes.components.MemberIndex;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.fieldtable.ClassFieldTableEntry;
+import club.hazsi.classified.util.ByteUtil;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 // TODO write this javadoc
 @Getter
 public class ClassMethodTable {
-    private final ArrayList<ClassMethodTableEntry> methods = new ArrayList<>();
-    private final int length;
+    private final ArrayList<ClassMethodTableEntry> methods;
+    private int length;
+
+    @Getter(AccessLevel.NONE) private ByteBuffer classBuffer;
+    @Getter(AccessLevel.NONE) private int offset;
+    @Getter(AccessLevel.NONE) private final MemberIndex<ClassMethodTableEntry> index;
+    @Getter(AccessLevel.NONE) private final ClassConstantPool constantPool;
+    @Getter(AccessLevel.NONE) private final boolean parseAttributes;
 
     // TODO write this javadoc
-    public ClassMethodTable(byte[] classBytes) {
-        final int tableSize = Byte.toUnsignedInt(classBytes[1]);
+    public ClassMethodTable(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool) {
+        this(classBuffer, offset, constantPool, true);
+    }
+
+    /**
+     * Parses the table starting at {@code offset}, optionally skipping the attributes of every entry. Skipped
+     * attributes are stepped over using their declared lengths, and every entry is left with an empty attribute list.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the two table size bytes within {@code classBuffer}
+     * @param constantPool The constant pool of the class, used to resolve the names of attributes
+     * @param parseAttributes Whether the attributes of every entry should be parsed
+     */
+    public ClassMethodTable(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool,
+                            boolean parseAttributes) {
+        final int tableSize = ByteUtil.readWORD(classBuffer, offset);
 
-        int offset = 2;
+        this.index = new MemberIndex<>(constantPool);
+        this.methods = this.index.getMembers();
+
+        int entryOffset = offset + 2;
 
         for (int currentTableIndex = 1; currentTableIndex <= tableSize; currentTableIndex++) {
-            ClassMethodTableEntry currentTableEntry = new ClassMethodTableEntry(
-                    Arrays.copyOfRange(classBytes, offset, classBytes.length));
+            ClassMethodTableEntry currentTableEntry = new ClassMethodTableEntry(classBuffer, entryOffset,
+                    constantPool, parseAttributes);
 
             this.methods.add(currentTableEntry);
-            offset += currentTableEntry.getLength();
+            entryOffset += currentTableEntry.getLength();
         }
 
-        this.length = offset + 2;
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.length = entryOffset - offset;     // Includes the two table size bytes
+        this.constantPool = constantPool;
+        this.parseAttributes = parseAttributes;
+    }
+
+    /**
+     * Finds a method by name and descriptor in constant time, see {@link MemberIndex}. No constant pool strings are
+     * decoded to answer the lookup.
+     *
+     * @param name The name of the method
+     * @param descriptor The descriptor of the method, such as {@code (Ljava/lang/String;)V}
+     * @return The method, or {@code null} if the class declares no such method
+     */
+    public ClassMethodTableEntry getMethod(String name, String descriptor) {
+        return this.index.find(name, descriptor);
+    }
+
+    /**
+     * Finds a method by the constant pool indexes of its name and descriptor in constant time. The indexes are
+     * compared by the content of their UTF-8 entries, not by value.
+     *
+     * @param nameIndex The constant pool index of the name of the method
+     * @param descriptorIndex The constant pool index of the descriptor of the method
+     * @return The method, or {@code null} if the class declares no such method
+     */
+    public ClassMethodTableEntry getMethod(int nameIndex, int descriptorIndex) {
+        return this.index.find(nameIndex, descriptorIndex);
+    }
+
+    /**
+     * Discards the lookup index of the table. Only needed after renaming methods, see {@link MemberIndex}.
+     */
+    public void invalidateIndex() {
+        this.index.invalidate();
+    }
+
+    /**
+     * @return Whether the table has changed since it was read, see {@link ClassMemberEntry#isTableDirty}
+     */
+    public boolean isDirty() {
+        return ClassMemberEntry.isTableDirty(this.methods, this.classBuffer, this.offset);
+    }
+
+    /**
+     * @return The amount of bytes the table takes up once written, including the two table size bytes
+     */
+    public int getSerializedLength() {
+        return ClassMemberEntry.getSerializedLength(this.methods);
+    }
+
+    /**
+     * Writes the table to {@code out}, copying runs of unchanged methods in bulk, see
+     * {@link ClassMemberEntry#writeTable}. Afterwards, the table and its entries refer to the written bytes.
+     *
+     * @param out The buffer to write to
+     * @param offset The offset within {@code out} to write the two table size bytes at
+     * @return The offset directly after the written table
+     */
+    public int writeTo(ByteBuffer out, int offset) {
+        final int end = ClassMemberEntry.writeTable(this.methods, out, offset);
+
+        this.classBuffer = out;
+        this.offset = offset;
+        this.length = end - offset;
+        return end;
+    }
+
+    /**
+     * Re-reads the table from other class bytes sharing the same constant pool, reusing every method whose bytes did
+     * not change, see {@link ClassMemberEntry#updateTable}. The table must not be dirty.
+     *
+     * @param classBuffer The buffer holding the other class bytes
+     * @param offset The offset of the two table size bytes within {@code classBuffer}
+     * @param entryOffsets The offsets of the entries of the other table, see {@link ClassMemberEntry#scanTable}
+     */
+    public void update(ByteBuffer classBuffer, int offset, int[] entryOffsets) {
+        ClassMemberEntry.updateTable(this.methods, classBuffer, entryOffsets, (buffer, entryOffset) ->
+                new ClassMethodTableEntry(buffer, entryOffset, this.constantPool, this.parseAttributes));
+
+        this.classBuffer = classBuffer;
+        this.offset = offset;
+        this.length = entryOffsets[entryOffsets.length - 1] - offset;
     }
 }
@@ -1,13 +1,15 @@
 package club.hazsi.classified.classes.components.methodtable;
 
 import club.hazsi.classified.classes.components.AttributeInfo;
+import club.hazsi.classified.classes.components.ClassMemberEntry;
+import club.hazsi.classified.classes.components.attribute.CodeAttribute;
+import club.hazsi.classified.classes.components.code.CodeIterator;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
 import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntry;
+import club.hazsi.classified.classes.components.descriptor.MethodDescriptor;
 import club.hazsi.classified.classes.components.fieldtable.ClassFieldTable;
-import club.hazsi.classified.util.ByteUtil;
-import lombok.Getter;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a single entry in the classes method table. As per section 4.6 of the Java
@@ -38,30 +40,85 @@ import java.util.Arrays;
  * @author Hazsi
  * @since 11/19/22
  */
-@Getter
-public class ClassMethodTableEntry {
-    private final int length;
-    private final int accessFlags; // TODO move this to an ArrayList of MethodAccessFlags instead of just the raw bitfield
-    private final int nameIndex;
-    private final int descriptorIndex;
-    private final ArrayList<AttributeInfo> attributeInfos = new ArrayList<>();
+public class ClassMethodTableEntry extends ClassMemberEntry {
 
     // TODO write this javadoc
-    public ClassMethodTableEntry(byte[] classBytes) {
+    public ClassMethodTableEntry(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool) {
+        this(classBuffer, offset, constantPool, true);
+    }
 
-        final int attributeInfoCount = classBytes[7];
-        int offset = 8;
+    /**
+     * Parses the entry starting at {@code offset}, optionally skipping its attributes. Skipped attributes are stepped
+     * over using their declared lengths, leaving the entry with an empty attribute list.
+     *
+     * @param classBuffer The buffer holding the raw bytes of the class file
+     * @param offset The offset of the entry's access flags within {@code classBuffer}
+     * @param constantPool The constant pool of the class, used to resolve the names of attributes
+     * @param parseAttributes Whether the attributes of the entry should be parsed
+     */
+    public ClassMethodTableEntry(ByteBuffer classBuffer, int offset, ClassConstantPool constantPool,
+                                 boolean parseAttributes) {
+        super(classBuffer, offset, constantPool, parseAttributes);
+    }
 
-        for (int currentAttributeIndex = 0; currentAttributeIndex < attributeInfoCount; currentAttributeIndex++) {
-            AttributeInfo currentAttributeInfo = new AttributeInfo(Arrays.copyOfRange(classBytes, offset, classBytes.length));
+    /**
+     * Creates a new entry without any attributes, to be added to the table of a class. See
+     * {@link ClassMemberEntry#ClassMemberEntry(int, int, int)}.
+     *
+     * @param accessFlags The access flags bitfield of the method
+     * @param nameIndex The constant pool index of the name of the method
+     * @param descriptorIndex The constant pool index of the descriptor of the method
+     */
+    public ClassMethodTableEntry(int accessFlags, int nameIndex, int descriptorIndex) {
+        super(accessFlags, nameIndex, descriptorIndex);
+    }
+
+    /**
+     * Creates a new entry without any attributes, whose name and descriptor can be resolved through the provided
+     * constant pool. See {@link ClassMemberEntry#ClassMemberEntry(ClassConstantPool, int, int, int)}.
+     *
+     * @param constantPool The constant pool of the class the method will belong to
+     * @param accessFlags The access flags bitfield of the method
+     * @param nameIndex The constant pool index of the name of the method
+     * @param descriptorIndex The constant pool index of the descriptor of the method
+     */
+    public ClassMethodTableEntry(ClassConstantPool constantPool, int accessFlags, int nameIndex, int descriptorIndex) {
+        super(constantPool, accessFlags, nameIndex, descriptorIndex);
+    }
 
-            this.attributeInfos.add(currentAttributeInfo);
-            offset += currentAttributeInfo.getLength();
+    /**
+     * @return The parsed descriptor of the method, shared with every other method with the same descriptor, see
+     * {@link ClassConstantPool#getMethodDescriptor(int)}
+     * @throws ClassFormatError If the descriptor is malformed
+     * @throws IllegalStateException If the entry was created without a constant pool
+     */
+    public MethodDescriptor getMethodDescriptor() {
+        return this.requireConstantPool().getMethodDescriptor(this.getDescriptorIndex());
+    }
+
+    /**
+     * @return The decoded Code attribute of the method, or {@code null} if the method has none (abstract and native
+     * methods) or its attributes were not parsed
+     * @throws ClassFormatError If the Code attribute is malformed
+     */
+    public CodeAttribute getCode() {
+        for (AttributeInfo attribute : this.getAttributeInfos()) {
+            if (CodeAttribute.NAME.equals(attribute.getName())) return attribute.getDecoded(CodeAttribute.class);
         }
 
-        this.accessFlags = ByteUtil.readWORD(classBytes, 0);
-        this.nameIndex = ByteUtil.readWORD(classBytes, 2);
-        this.descriptorIndex = ByteUtil.readWORD(classBytes, 4);
-        this.length = offset;
+        return null;
+    }
+
+    /**
+     * Creates an iterator over the instructions of the method. When walking many methods, prefer a single
+     * {@link CodeIterator} reset with {@link CodeIterator#reset(CodeAttribute)} for every method.
+     *
+     * @return An iterator positioned before the first instruction of the method, or {@code null} if the method has no
+     * Code attribute or its attributes were not parsed
+     * @throws ClassFormatError If the Code attribute is malformed
+     */
+    public CodeIterator getCodeIterator() {
+        final CodeAttribute code = this.getCode();
+        return code == null ? null : new CodeIterator().reset(code);
     }
-}
\ No newline at end of file
+}
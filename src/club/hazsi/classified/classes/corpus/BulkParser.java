@@ -0,0 +1,193 @@
+package club.hazsi.classified.classes.corpus;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Parses every class of a {@link ClassCorpus} in parallel. Classes are independent of each other, so parsing them
+ * scales with the amount of cores, as long as reading them does not become the bottleneck.<br><br>
+ *
+ * Work is split across a {@link ForkJoinPool}, the common pool unless another one is provided, by recursively halving
+ * the list of sources so that idle workers steal from busy ones; a corpus mixing huge and tiny classes still keeps
+ * every core busy. Any other {@link Executor} can be provided instead, in which case one worker per core is submitted
+ * to it, each taking the next unparsed source until none are left.<br><br>
+ *
+ * A source which cannot be read or parsed is reported as a {@link ParseFailure}, and the rest of the batch carries on.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class BulkParser {
+    private static final int SPLIT_THRESHOLD = 16;  // Sources parsed by a fork/join task without splitting it further
+
+    private final ParseOptions parseOptions;
+    private final Executor executor;
+
+    /**
+     * Creates a parser which fully parses classes on the common {@link ForkJoinPool}.
+     */
+    public BulkParser() {
+        this(ParseOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a parser which parses classes on the common {@link ForkJoinPool}.
+     *
+     * @param parseOptions The options controlling how much of every class is parsed
+     */
+    public BulkParser(ParseOptions parseOptions) {
+        this(parseOptions, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param parseOptions The options controlling how much of every class is parsed
+     * @param executor The executor to parse classes on, ideally a {@link ForkJoinPool}
+     */
+    public BulkParser(ParseOptions parseOptions, Executor executor) {
+        this.parseOptions = Objects.requireNonNull(parseOptions);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Parses every class of the corpus on the executor of this parser, and waits for all of them to be parsed. When
+     * several sources hold a class with the same name, the first one in corpus order is kept, like a class loader
+     * searching a classpath would.
+     *
+     * @param corpus The classes to parse, which must stay open until this returns
+     * @return The parsed classes keyed by internal name, and the failures
+     */
+    public CorpusParseResult parse(ClassCorpus corpus) {
+        final List<ClassSource> sources = corpus.getSources();
+        final ClassFile[] classes = new ClassFile[sources.size()];
+        final ParseFailure[] failures = new ParseFailure[sources.size()];
+
+        if (this.executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) this.executor).invoke(new ParseTask(sources, classes, failures, 0, sources.size()));
+        } else {
+            this.parseOnExecutor(sources, classes, failures);
+        }
+
+        final LinkedHashMap<String, ClassFile> classMap = new LinkedHashMap<>(classes.length * 2);
+        final ArrayList<ParseFailure> failureList = new ArrayList<>(corpus.getFailures());
+        int duplicateCount = 0;
+
+        for (int index = 0; index < classes.length; index++) {  // Assembled in order, so the result does not depend
+            if (failures[index] != null) {                      // on which thread finished first
+                failureList.add(failures[index]);
+                continue;
+            }
+
+            if (classMap.putIfAbsent(classes[index].getAttributes().getClassName(), classes[index]) != null) {
+                duplicateCount++;
+            }
+        }
+
+        return new CorpusParseResult(Collections.unmodifiableMap(classMap), Collections.unmodifiableList(failureList),
+                duplicateCount);
+    }
+
+    /**
+     * Returns a parallel stream of the classes of the corpus, parsed as the stream is consumed. Parallel streams run
+     * on the common {@link ForkJoinPool} (or the pool the terminal operation is invoked from), not on the executor of
+     * this parser. Duplicate class names are not filtered out, and the classes are not kept by the parser, which
+     * suits corpora too large to hold in memory at once.
+     *
+     * @param corpus The classes to parse, which must stay open until the stream has been consumed
+     * @param failureHandler Called with every source which could not be read or parsed, possibly from several threads
+     *                       at once. Failures of inputs the corpus could not list are not included.
+     * @return A parallel stream of the parsed classes
+     */
+    public Stream<ClassFile> stream(ClassCorpus corpus, Consumer<ParseFailure> failureHandler) {
+        return corpus.getSources().parallelStream().map(source -> {
+            try {
+                return this.parse(source);
+            } catch (IOException | RuntimeException | LinkageError exception) {
+                failureHandler.accept(new ParseFailure(source.toString(), source, exception));
+                return null;
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    private ClassFile parse(ClassSource source) throws IOException {
+        return ClassFile.fromBytes(source.read(), this.parseOptions);
+    }
+
+    private void parseOne(List<ClassSource> sources, ClassFile[] classes, ParseFailure[] failures, int index) {
+        final ClassSource source = sources.get(index);
+
+        try {
+            classes[index] = this.parse(source);
+        } catch (IOException | RuntimeException | LinkageError exception) {   // ClassFormatError is a LinkageError
+            failures[index] = new ParseFailure(source.toString(), source, exception);
+        }
+    }
+
+    /**
+     * Runs one worker per core on a plain executor, each taking the next source until none are left
+     */
+    private void parseOnExecutor(List<ClassSource> sources, ClassFile[] classes, ParseFailure[] failures) {
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final int workerCount = Math.min(Runtime.getRuntime().availableProcessors(), Math.max(1, sources.size()));
+        final CompletableFuture<?>[] workers = new CompletableFuture<?>[workerCount];
+
+        for (int worker = 0; worker < workerCount; worker++) {
+            workers[worker] = CompletableFuture.runAsync(() -> {
+                for (int index = nextIndex.getAndIncrement(); index < sources.size();
+                     index = nextIndex.getAndIncrement()) {
+                    this.parseOne(sources, classes, failures, index);
+                }
+            }, this.executor);
+        }
+
+        CompletableFuture.allOf(workers).join();    // Completing the futures also publishes the parsed classes
+    }
+
+    /**
+     * Parses a range of sources, splitting it in halves until it is small enough
+     */
+    @SuppressWarnings("serial")     // Tasks are never serialized
+    private final class ParseTask extends RecursiveAction {
+        private final List<ClassSource> sources;
+        private final ClassFile[] classes;
+        private final ParseFailure[] failures;
+        private final int from;
+        private final int to;
+
+        private ParseTask(List<ClassSource> sources, ClassFile[] classes, ParseFailure[] failures, int from, int to) {
+            this.sources = sources;
+            this.classes = classes;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= SPLIT_THRESHOLD) {
+                for (int index = this.from; index < this.to; index++) {
+                    parseOne(this.sources, this.classes, this.failures, index);
+                }
+
+                return;
+            }
+
+            final int middle = (this.from + this.to) >>> 1;
+            invokeAll(new ParseTask(this.sources, this.classes, this.failures, this.from, middle),
+                    new ParseTask(this.sources, this.classes, this.failures, middle, this.to));
+        }
+    }
+}
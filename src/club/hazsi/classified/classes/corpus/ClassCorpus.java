@@ -0,0 +1,166 @@
+package club.hazsi.classified.classes.corpus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A set of class files to be parsed together by a {@link BulkParser}, such as a whole classpath. A corpus is opened
+ * from any mix of the following inputs:
+ *
+ * <ul>
+ *     <li>Directories, which are walked recursively for {@code .class} files and for JAR files</li>
+ *     <li>JAR files (or any other zip files, recognized by a {@code .jar} or {@code .zip} extension), whose
+ *     {@code .class} entries are all included, except for those under {@code META-INF/} such as the versioned
+ *     classes of multi-release JARs</li>
+ *     <li>Any other file, which is taken to be a class file</li>
+ * </ul>
+ *
+ * Opening a corpus lists its classes, in the order of the inputs, without reading them. JAR files are kept open so
+ * that their entries can be read in parallel, and are closed when the corpus is closed:
+ *
+ * <pre>{@code
+ * try (ClassCorpus corpus = ClassCorpus.open(Path.of("build/classes"), Path.of("lib/guava.jar"))) {
+ *     final CorpusParseResult result = new BulkParser().parse(corpus);
+ * }
+ * }</pre>
+ *
+ * Inputs which cannot be listed (a missing file, or a corrupt JAR) don't prevent the corpus from opening; they are
+ * reported by {@link #getFailures()} instead.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ClassCorpus implements Closeable {
+    private final List<ClassSource> sources = new ArrayList<>();
+    private final List<ParseFailure> failures = new ArrayList<>();
+    private final List<ZipFile> archives = new ArrayList<>();
+
+    private ClassCorpus() {
+    }
+
+    /**
+     * Opens a corpus of the provided directories, JAR files and class files.
+     *
+     * @param inputs The inputs of the corpus
+     * @return The opened corpus, which must be closed once it is no longer needed
+     */
+    public static ClassCorpus open(Path... inputs) {
+        return open(Arrays.asList(inputs));
+    }
+
+    /**
+     * Opens a corpus of the provided directories, JAR files and class files, see {@link #open(Path...)}.
+     *
+     * @param inputs The inputs of the corpus, in order
+     * @return The opened corpus, which must be closed once it is no longer needed
+     */
+    public static ClassCorpus open(Collection<Path> inputs) {
+        final ClassCorpus corpus = new ClassCorpus();
+        for (Path input : inputs) corpus.add(input);
+        return corpus;
+    }
+
+    private void add(Path input) {
+        if (Files.isDirectory(input)) {
+            final List<Path> files;
+            try (Stream<Path> walk = Files.walk(input)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();    // Sorted, so the order is stable
+            } catch (IOException | RuntimeException exception) {
+                this.failures.add(new ParseFailure(input.toString(), null, exception));
+                return;
+            }
+
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(".class")) this.sources.add(new ClassSource(file));
+                else if (isArchive(name)) this.addArchive(file);
+            }
+
+            return;
+        }
+
+        if (isArchive(input.getFileName().toString())) this.addArchive(input);
+        else this.sources.add(new ClassSource(input));
+    }
+
+    private void addArchive(Path path) {
+        final ZipFile archive;
+        try {
+            archive = new ZipFile(path.toFile());
+        } catch (IOException | RuntimeException exception) {
+            this.failures.add(new ParseFailure(path.toString(), null, exception));
+            return;
+        }
+
+        this.archives.add(archive);
+
+        final Enumeration<? extends ZipEntry> entries = archive.entries();
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            final String name = entry.getName();
+
+            if (!entry.isDirectory() && name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                this.sources.add(new ClassSource(path, archive, entry));
+            }
+        }
+    }
+
+    private static boolean isArchive(String fileName) {
+        return fileName.endsWith(".jar") || fileName.endsWith(".zip");
+    }
+
+    /**
+     * @return Every class of the corpus, in the order of the inputs. The list is unmodifiable, and splits well for
+     * parallel streams.
+     */
+    public List<ClassSource> getSources() {
+        return Collections.unmodifiableList(this.sources);
+    }
+
+    /**
+     * @return The inputs which could not be listed when the corpus was opened
+     */
+    public List<ParseFailure> getFailures() {
+        return Collections.unmodifiableList(this.failures);
+    }
+
+    /**
+     * @return The amount of classes in the corpus
+     */
+    public int size() {
+        return this.sources.size();
+    }
+
+    /**
+     * Closes every JAR file of the corpus, after which their entries can no longer be read.
+     *
+     * @throws IOException If a JAR file could not be closed. Every JAR file is closed regardless.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+
+        for (ZipFile archive : this.archives) {
+            try {
+                archive.close();
+            } catch (IOException exception) {
+                if (failure == null) failure = exception;
+                else failure.addSuppressed(exception);
+            }
+        }
+
+        this.archives.clear();
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,72 @@
+package club.hazsi.classified.classes.corpus;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A single class file of a {@link ClassCorpus}, either a file on disk or an entry of a JAR file. A source only
+ * records where the class is; its bytes are read by {@link #read()}, which is safe to call from several threads at
+ * once, even for entries of the same JAR.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class ClassSource {
+    private final Path path;            // The class file, or the JAR file holding the class
+    private final String entryName;     // The name of the entry within the JAR file, or null for class files
+
+    @Getter(AccessLevel.NONE) private final ZipFile archive;
+    @Getter(AccessLevel.NONE) private final ZipEntry entry;
+
+    ClassSource(Path path) {
+        this.path = path;
+        this.entryName = null;
+        this.archive = null;
+        this.entry = null;
+    }
+
+    ClassSource(Path path, ZipFile archive, ZipEntry entry) {
+        this.path = path;
+        this.entryName = entry.getName();
+        this.archive = archive;
+        this.entry = entry;
+    }
+
+    /**
+     * Reads the bytes of the class. Entries of a JAR file can only be read until the {@link ClassCorpus} they belong
+     * to is closed.
+     *
+     * @return The bytes of the class file
+     * @throws IOException If the file or entry cannot be read
+     */
+    public byte[] read() throws IOException {
+        if (this.archive == null) return Files.readAllBytes(this.path);
+
+        try (InputStream input = this.archive.getInputStream(this.entry)) {
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * @return Whether the class is an entry of a JAR file
+     */
+    public boolean isArchiveEntry() {
+        return this.archive != null;
+    }
+
+    /**
+     * @return The path of the class file, or the path of the JAR file followed by {@code !/} and the entry name
+     */
+    @Override
+    public String toString() {
+        return this.entryName == null ? this.path.toString() : this.path + "!/" + this.entryName;
+    }
+}
@@ -0,0 +1,27 @@
+package club.hazsi.classified.classes.corpus;
+
+import club.hazsi.classified.classes.ClassFile;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of {@link BulkParser#parse(ClassCorpus)}: every successfully parsed class keyed by its internal name,
+ * along with every failure.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class CorpusParseResult {
+    private final Map<String, ClassFile> classes;   // Unmodifiable, iterated in corpus order
+    private final List<ParseFailure> failures;      // Unmodifiable, including inputs the corpus could not list
+    private final int duplicateCount;               // Classes skipped because an earlier source had the same name
+
+    CorpusParseResult(Map<String, ClassFile> classes, List<ParseFailure> failures, int duplicateCount) {
+        this.classes = classes;
+        this.failures = failures;
+        this.duplicateCount = duplicateCount;
+    }
+}
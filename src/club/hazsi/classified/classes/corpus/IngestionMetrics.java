@@ -0,0 +1,56 @@
+package club.hazsi.classified.classes.corpus;
+
+import lombok.Getter;
+
+/**
+ * The throughput and queue depth figures of one {@link IngestionPipeline} run.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class IngestionMetrics {
+    private final boolean virtualThreads;   // Whether the I/O stage ran on virtual threads
+    private final long classesParsed;
+    private final long failureCount;
+    private final long bytesRead;
+    private final long elapsedNanos;
+    private final int queueCapacity;
+    private final int maxQueueDepth;        // The deepest the queue between both stages got
+    private final double averageQueueDepth; // Sampled every time a read class was queued
+
+    IngestionMetrics(boolean virtualThreads, long classesParsed, long failureCount, long bytesRead, long elapsedNanos,
+                     int queueCapacity, int maxQueueDepth, double averageQueueDepth) {
+        this.virtualThreads = virtualThreads;
+        this.classesParsed = classesParsed;
+        this.failureCount = failureCount;
+        this.bytesRead = bytesRead;
+        this.elapsedNanos = elapsedNanos;
+        this.queueCapacity = queueCapacity;
+        this.maxQueueDepth = maxQueueDepth;
+        this.averageQueueDepth = averageQueueDepth;
+    }
+
+    /**
+     * @return The amount of classes parsed per second, over the whole run
+     */
+    public double getClassesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.classesParsed * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * @return The amount of class bytes read per second, in megabytes, over the whole run
+     */
+    public double getMegabytesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.bytesRead * 1e9 / this.elapsedNanos / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d classes (%d failed), %.1f MB in %.1f ms: %.0f classes/s, %.1f MB/s, queue depth " +
+                        "avg %.1f max %d of %d%s", this.classesParsed, this.failureCount, this.bytesRead / 1048576.0,
+                this.elapsedNanos / 1e6, this.getClassesPerSecond(), this.getMegabytesPerSecond(),
+                this.averageQueueDepth, this.maxQueueDepth, this.queueCapacity,
+                this.virtualThreads ? ", virtual threads" : "");
+    }
+}
@@ -0,0 +1,332 @@
+package club.hazsi.classified.classes.corpus;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseOptions;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A two stage pipeline for ingesting corpora whose classes are slow to read, such as class files on a network mount.
+ * A pool sized for the CPU leaves such a disk mostly idle, as every thread spends its time waiting for a read; this
+ * pipeline instead reads many classes at once on a separate I/O stage, and parses them on a fixed amount of parser
+ * threads:
+ *
+ * <pre>{@code
+ *   sources --> I/O stage --> bounded queue --> parser threads --> sink
+ *              (up to maxInFlightReads reads)   (parserThreads)
+ * }</pre>
+ *
+ * On Java 21 and later, the I/O stage runs every read on its own virtual thread. The library targets an older release,
+ * so virtual threads are looked up reflectively; when they are not available, the I/O stage falls back to a pool of
+ * {@code maxInFlightReads} platform threads, which behaves the same at a higher cost per thread.<br><br>
+ *
+ * Memory stays flat regardless of the size of the corpus: at most {@code maxInFlightReads} classes are being read, at
+ * most {@code queueCapacity} read classes wait for a parser (reads block while the queue is full), and parsed classes
+ * are handed to the sink rather than kept. Classes which cannot be read or parsed are reported to a handler and never
+ * stop the run; anything else going wrong, such as the sink or the handler throwing, cancels the run instead.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class IngestionPipeline {
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+    private static final QueuedClass END_OF_INPUT = new QueuedClass(null, null);
+
+    private final ParseOptions parseOptions;
+    private final int parserThreads;
+    private final int maxInFlightReads;
+    private final int queueCapacity;
+
+    private volatile BlockingQueue<QueuedClass> activeQueue;
+
+    /**
+     * Creates a pipeline which fully parses classes on one parser thread per core, with up to 128 reads in flight
+     * and up to 256 read classes queued.
+     */
+    public IngestionPipeline() {
+        this(ParseOptions.DEFAULT, Runtime.getRuntime().availableProcessors(), 128, 256);
+    }
+
+    /**
+     * @param parseOptions The options controlling how much of every class is parsed
+     * @param parserThreads The amount of threads parsing classes, usually the amount of cores
+     * @param maxInFlightReads The maximum amount of classes being read at once
+     * @param queueCapacity The maximum amount of read classes waiting to be parsed
+     * @throws IllegalArgumentException If any of the amounts is less than 1
+     */
+    public IngestionPipeline(ParseOptions parseOptions, int parserThreads, int maxInFlightReads, int queueCapacity) {
+        if (parserThreads < 1 || maxInFlightReads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("thread counts and queue capacity must be at least 1");
+        }
+
+        this.parseOptions = Objects.requireNonNull(parseOptions);
+        this.parserThreads = parserThreads;
+        this.maxInFlightReads = maxInFlightReads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return Whether the I/O stage runs on virtual threads in this JVM
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Ingests class files from disk, like calling {@link ClassFile#fromDisk(Path, ParseOptions)} on each of them.
+     *
+     * @see #run(List, Consumer, Consumer)
+     */
+    public IngestionMetrics run(Collection<Path> classFiles, Consumer<ClassFile> sink,
+                                Consumer<ParseFailure> failureHandler) throws InterruptedException {
+        final List<ClassSource> sources = new ArrayList<>(classFiles.size());
+        for (Path classFile : classFiles) sources.add(new ClassSource(classFile));
+        return this.run(sources, sink, failureHandler);
+    }
+
+    /**
+     * Ingests every class of a corpus. Failures of inputs the corpus could not list are not included.
+     *
+     * @see #run(List, Consumer, Consumer)
+     */
+    public IngestionMetrics run(ClassCorpus corpus, Consumer<ClassFile> sink, Consumer<ParseFailure> failureHandler)
+            throws InterruptedException {
+        return this.run(corpus.getSources(), sink, failureHandler);
+    }
+
+    /**
+     * Reads and parses every source, handing every parsed class to {@code sink}, and waits for all of them to be
+     * done.
+     *
+     * @param sources The classes to ingest
+     * @param sink Called with every parsed class, from the parser threads
+     * @param failureHandler Called with every class which could not be read or parsed, possibly from several threads
+     *                       at once
+     * @return The metrics of the run
+     * @throws InterruptedException If the calling thread is interrupted, in which case the run is cancelled
+     * @throws RuntimeException If the sink or the failure handler throws, in which case the run is cancelled and the
+     * first exception thrown is rethrown. An {@link Error} thrown while reading or parsing, other than the
+     * {@link LinkageError}s reported for malformed classes, is rethrown the same way.
+     */
+    public IngestionMetrics run(List<ClassSource> sources, Consumer<ClassFile> sink,
+                                Consumer<ParseFailure> failureHandler) throws InterruptedException {
+        final long start = System.nanoTime();
+        final ExecutorService readers = newReaderExecutor(this.maxInFlightReads);
+        final boolean virtualThreads = !(readers instanceof ThreadPoolExecutor);    // The fallback is a plain pool
+        final ExecutorService parsers = Executors.newFixedThreadPool(this.parserThreads, daemonThreads("parser"));
+        final BlockingQueue<QueuedClass> queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        final Semaphore readPermits = new Semaphore(this.maxInFlightReads);
+        final Counters counters = new Counters();
+        final Cancellation cancellation = new Cancellation();
+
+        this.activeQueue = queue;
+
+        try {
+            for (int parser = 0; parser < this.parserThreads; parser++) {
+                parsers.execute(() -> this.parse(queue, sink, failureHandler, counters, cancellation));
+            }
+
+            for (ClassSource source : sources) {
+                readPermits.acquire();      // Bounds the reads in flight, rather than submitting the whole corpus
+                readers.execute(() -> {
+                    try {
+                        this.read(source, queue, failureHandler, counters);
+                    } catch (Throwable throwable) {
+                        cancellation.cancel(throwable);
+                    } finally {
+                        readPermits.release();
+                    }
+                });
+            }
+
+            readPermits.acquire(this.maxInFlightReads);     // Every read is done once every permit is back
+            for (int parser = 0; parser < this.parserThreads; parser++) queue.put(END_OF_INPUT);
+
+            parsers.shutdown();
+            parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);   // The parsers stop at the end of input
+        } catch (InterruptedException exception) {
+            if (!cancellation.isCancelled()) throw exception;      // Otherwise, a failed stage interrupted this thread
+        } finally {
+            cancellation.finish();
+            readers.shutdownNow();
+            parsers.shutdownNow();
+            queue.clear();          // Drops the classes nobody will parse anymore
+            this.activeQueue = null;
+        }
+
+        cancellation.rethrow();
+
+        final long queued = counters.queuedCount.get();
+        return new IngestionMetrics(virtualThreads, counters.parsedCount.get(), counters.failureCount.get(),
+                counters.bytesRead.get(), System.nanoTime() - start, this.queueCapacity, counters.maxQueueDepth.get(),
+                queued == 0 ? 0 : (double) counters.queueDepthSum.get() / queued);
+    }
+
+    /**
+     * @return The amount of read classes currently waiting for a parser, or 0 if no run is in progress. Can be
+     * polled from another thread while {@code run} is in progress.
+     */
+    public int getQueueDepth() {
+        final BlockingQueue<QueuedClass> queue = this.activeQueue;
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void read(ClassSource source, BlockingQueue<QueuedClass> queue, Consumer<ParseFailure> failureHandler,
+                      Counters counters) {
+        final byte[] classBytes;
+        try {
+            classBytes = source.read();
+        } catch (IOException | RuntimeException exception) {
+            counters.failureCount.incrementAndGet();
+            failureHandler.accept(new ParseFailure(source.toString(), source, exception));
+            return;
+        }
+
+        counters.bytesRead.addAndGet(classBytes.length);
+
+        try {
+            queue.put(new QueuedClass(source, classBytes));     // Blocks while the parsers are behind
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();                 // The run was cancelled
+            return;
+        }
+
+        final int depth = queue.size();
+        counters.queuedCount.incrementAndGet();
+        counters.queueDepthSum.addAndGet(depth);
+        counters.maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    private void parse(BlockingQueue<QueuedClass> queue, Consumer<ClassFile> sink,
+                       Consumer<ParseFailure> failureHandler, Counters counters, Cancellation cancellation) {
+        try {
+            while (true) {
+                final QueuedClass queued = queue.take();
+                if (queued == END_OF_INPUT) return;
+
+                final ClassFile classFile;
+                try {
+                    classFile = ClassFile.fromBytes(queued.classBytes, this.parseOptions);
+                } catch (RuntimeException | LinkageError exception) {   // ClassFormatError is a LinkageError
+                    counters.failureCount.incrementAndGet();
+                    failureHandler.accept(new ParseFailure(queued.source.toString(), queued.source, exception));
+                    continue;
+                }
+
+                counters.parsedCount.incrementAndGet();
+                sink.accept(classFile);
+            }
+        } catch (InterruptedException exception) {
+            // The run was cancelled
+        } catch (Throwable throwable) {
+            cancellation.cancel(throwable);     // Nothing replaces this parser, so the run cannot finish
+        }
+    }
+
+    private static ExecutorService newReaderExecutor(int threads) {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Fall back to platform threads
+            }
+        }
+
+        return Executors.newFixedThreadPool(threads, daemonThreads("reader"));
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ((ExecutorService) factory.invoke(null)).shutdown();     // Throws if virtual threads are a disabled preview
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String stage) {
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "classified-ingestion-" + stage + "-" +
+                    threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A read class waiting to be parsed
+     */
+    private static final class QueuedClass {
+        private final ClassSource source;
+        private final byte[] classBytes;
+
+        private QueuedClass(ClassSource source, byte[] classBytes) {
+            this.source = source;
+            this.classBytes = classBytes;
+        }
+    }
+
+    /**
+     * The first exception which stopped a stage of a run. Recording it interrupts the thread running the run, which
+     * may be waiting for that stage, so that the run is cancelled rather than waiting forever. Once the run is
+     * finished, stages still winding down can no longer interrupt that thread.
+     */
+    private static final class Cancellation {
+        private final Thread caller = Thread.currentThread();
+        private Throwable error;
+        private boolean finished;
+
+        private synchronized void cancel(Throwable throwable) {
+            if (this.error != null || this.finished) return;
+
+            this.error = throwable;
+            this.caller.interrupt();
+        }
+
+        private synchronized boolean isCancelled() {
+            return this.error != null;
+        }
+
+        private synchronized void finish() {
+            this.finished = true;
+        }
+
+        private synchronized void rethrow() {
+            if (this.error == null) return;
+
+            Thread.interrupted();   // Clears the interrupt of cancel, if no wait of the run received it
+            if (this.error instanceof RuntimeException) throw (RuntimeException) this.error;
+            if (this.error instanceof Error) throw (Error) this.error;
+            throw new IllegalStateException("ingestion was cancelled", this.error);    // Only sneaky checked exceptions
+        }
+    }
+
+    private static final class Counters {
+        private final AtomicLong parsedCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong queuedCount = new AtomicLong();
+        private final AtomicLong queueDepthSum = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    }
+}
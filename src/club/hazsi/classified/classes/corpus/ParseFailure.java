@@ -0,0 +1,28 @@
+package club.hazsi.classified.classes.corpus;
+
+import lombok.Getter;
+
+/**
+ * A class, JAR file or directory of a {@link ClassCorpus} which could not be read or parsed. Failures are reported
+ * alongside the successfully parsed classes, and never abort the rest of the batch.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class ParseFailure {
+    private final String location;      // The path of the input, see ClassSource#toString()
+    private final ClassSource source;   // The source which failed, or null if an input could not be listed
+    private final Throwable cause;      // An IOException, ClassFormatError or other exception thrown while parsing
+
+    ParseFailure(String location, ClassSource source, Throwable cause) {
+        this.location = location;
+        this.source = source;
+        this.cause = cause;
+    }
+
+    @Override
+    public String toString() {
+        return this.location + ": " + this.cause;
+    }
+}
@@ -0,0 +1,455 @@
+package club.hazsi.classified.classes.hierarchy;
+
+import club.hazsi.classified.classes.ClassAttributes;
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.components.ClassAccessFlags;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.summary.ClassSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An index of the class hierarchy of many classes, such as a whole classpath, answering "what are all the supertypes
+ * / subtypes of X" and "is A assignable to B" without walking class files. The index only holds the this_class,
+ * super_class and interface table of every class, so it stays small, and it is built in a single pass with
+ * {@link #add(ClassFile)}; classes only need to be parsed up to
+ * {@link club.hazsi.classified.classes.ParseLevel#HEADER}.<br><br>
+ *
+ * Every class name, whether it was added or only referenced as a supertype, is given a dense int ID, and the
+ * hierarchy is stored as arrays of IDs. Queries can be made by ID, which is the fastest, or by internal name, such as
+ * {@code java/util/List}.<br><br>
+ *
+ * Transitive closures are computed on first use and memoized, and are returned as sorted arrays of IDs, so that
+ * {@link #isAssignable(int, int)} is a binary search. Classes can be added, replaced and removed at any time; this
+ * only discards the memoized closures which it affects: the supertypes of the class and of its subtypes, and the
+ * subtypes of the class and of its supertypes.<br><br>
+ *
+ * Since class files can be inconsistent, a cyclic hierarchy is tolerated: closures simply stop at classes already
+ * visited. The index is not safe for concurrent use, including concurrent queries, as they memoize.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class HierarchyIndex {
+    private static final int[] NO_IDS = new int[0];
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> names = new ArrayList<>();
+
+    private int[] superclasses = new int[64];           // The ID of the direct superclass, or -1
+    private int[][] interfaces = new int[64][];         // The IDs of the direct superinterfaces
+    private int[] accessFlags = new int[64];
+    private boolean[] declared = new boolean[64];       // Whether the class itself was added, not only referenced
+    private IntList[] directSubtypes = new IntList[64];
+
+    private int[][] supertypeClosures = new int[64][];  // Memoized, sorted
+    private int[][] subtypeClosures = new int[64][];    // Memoized, sorted
+    private int memoizedCount;
+
+    private int[] visitStamps = new int[64];            // Used by closure walks to mark visited IDs without clearing
+    private int visitStamp;
+    private int declaredCount;
+
+    /**
+     * Adds a class to the index, or replaces it if a class with the same name was added before. Only the header of
+     * the class is read.
+     *
+     * @param classFile The class to add
+     * @return The ID of the class
+     */
+    public int add(ClassFile classFile) {
+        final ClassAttributes attributes = classFile.getAttributes();
+        final ClassConstantPool constantPool = attributes.getConstantPool();
+        final List<Integer> interfaceIndexes = attributes.getInterfaceTable().getInterfaces();
+        final String[] interfaceNames = new String[interfaceIndexes.size()];
+
+        for (int index = 0; index < interfaceNames.length; index++) {
+            interfaceNames[index] = constantPool.getClassName(interfaceIndexes.get(index));
+        }
+
+        return this.add(attributes.getClassName(), attributes.getSuperClassName(), interfaceNames,
+                attributes.getAccessFlags());
+    }
+
+    /**
+     * Adds a class to the index from its summary, such as one served by a
+     * {@link club.hazsi.classified.classes.summary.ClassSummaryCache}, or replaces it if a class with the same name was
+     * added before.
+     *
+     * @param summary The summary of the class to add
+     * @return The ID of the class
+     */
+    public int add(ClassSummary summary) {
+        return this.add(summary.getName(), summary.getSuperName(), summary.getInterfaces().toArray(new String[0]),
+                summary.getAccessFlags());
+    }
+
+    /**
+     * Adds a class to the index from its names, or replaces it if a class with the same name was added before.
+     *
+     * @param name The internal name of the class
+     * @param superName The internal name of the superclass, or {@code null} if there is none
+     * @param interfaceNames The internal names of the direct superinterfaces
+     * @param accessFlags The access flags bitfield of the class, see {@link ClassAccessFlags}
+     * @return The ID of the class
+     */
+    public int add(String name, String superName, String[] interfaceNames, int accessFlags) {
+        final int id = this.intern(name);
+        if (this.declared[id]) this.unlink(id);
+
+        final int superId = superName == null ? -1 : this.intern(superName);
+        final int[] interfaceIds = interfaceNames.length == 0 ? NO_IDS : new int[interfaceNames.length];
+        for (int index = 0; index < interfaceIds.length; index++) {
+            interfaceIds[index] = this.intern(interfaceNames[index]);
+        }
+
+        this.superclasses[id] = superId;
+        this.interfaces[id] = interfaceIds;
+        this.accessFlags[id] = accessFlags;
+        this.declared[id] = true;
+        this.declaredCount++;
+
+        if (superId >= 0) this.subtypeList(superId).add(id);
+        for (int interfaceId : interfaceIds) this.subtypeList(interfaceId).add(id);
+
+        this.invalidate(id);
+        return id;
+    }
+
+    /**
+     * Removes a class from the index. Its name keeps its ID, as other classes may still refer to it.
+     *
+     * @param name The internal name of the class
+     * @return Whether the class was in the index
+     */
+    public boolean remove(String name) {
+        final Integer id = this.ids.get(name);
+        if (id == null || !this.declared[id]) return false;
+
+        this.unlink(id);
+        return true;
+    }
+
+    /**
+     * Removes the edges of a declared class to its supertypes
+     */
+    private void unlink(int id) {
+        this.invalidate(id);    // Before the edges are gone, as the affected closures are found through them
+
+        if (this.superclasses[id] >= 0) this.directSubtypes[this.superclasses[id]].remove(id);
+        for (int interfaceId : this.interfaces[id]) this.directSubtypes[interfaceId].remove(id);
+
+        this.superclasses[id] = -1;
+        this.interfaces[id] = NO_IDS;
+        this.accessFlags[id] = 0;
+        this.declared[id] = false;
+        this.declaredCount--;
+    }
+
+    /**
+     * Discards the memoized closures a change to the edges of {@code id} affects
+     */
+    private void invalidate(int id) {
+        if (this.memoizedCount == 0) return;    // Nothing to discard, which keeps bulk builds linear
+
+        for (int subtype : this.walk(id, false)) this.discardSupertypes(subtype);
+        for (int supertype : this.walk(id, true)) this.discardSubtypes(supertype);
+
+        this.discardSupertypes(id);
+        this.discardSubtypes(id);
+    }
+
+    private void discardSupertypes(int id) {
+        if (this.supertypeClosures[id] == null) return;
+
+        this.supertypeClosures[id] = null;
+        this.memoizedCount--;
+    }
+
+    private void discardSubtypes(int id) {
+        if (this.subtypeClosures[id] == null) return;
+
+        this.subtypeClosures[id] = null;
+        this.memoizedCount--;
+    }
+
+    /**
+     * @param name The internal name of a class
+     * @return The ID of the class, or -1 if the class was never added or referenced
+     */
+    public int getId(String name) {
+        final Integer id = this.ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return The internal name of the class
+     */
+    public String getName(int id) {
+        return this.names.get(id);
+    }
+
+    /**
+     * @return The amount of IDs handed out, including names which were only referenced
+     */
+    public int getIdCount() {
+        return this.names.size();
+    }
+
+    /**
+     * @return The amount of classes added to the index, and not removed since
+     */
+    public int size() {
+        return this.declaredCount;
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return Whether the class itself was added to the index, rather than only referenced by added classes
+     */
+    public boolean isDeclared(int id) {
+        return this.declared[id];
+    }
+
+    /**
+     * @param id The ID of a declared class
+     * @return Whether the class is an interface
+     */
+    public boolean isInterface(int id) {
+        return (this.accessFlags[id] & ClassAccessFlags.INTERFACE.getValue()) != 0;
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return The ID of the direct superclass, or -1 if there is none or the class was not added
+     */
+    public int getSuperclass(int id) {
+        return this.superclasses[id];
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return The IDs of the direct superinterfaces, in declaration order
+     */
+    public int[] getInterfaces(int id) {
+        final int[] interfaceIds = this.interfaces[id];
+        return interfaceIds == null ? NO_IDS : interfaceIds.clone();
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return The IDs of the classes directly extending or implementing the class
+     */
+    public int[] getDirectSubtypes(int id) {
+        final IntList subtypes = this.directSubtypes[id];
+        return subtypes == null ? NO_IDS : subtypes.toArray();
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return The IDs of every direct and indirect superclass and superinterface of the class, sorted, excluding the
+     * class itself
+     */
+    public int[] getSupertypes(int id) {
+        return this.supertypeClosure(id).clone();
+    }
+
+    /**
+     * @param id The ID of a class
+     * @return The IDs of every class directly or indirectly extending or implementing the class, sorted, excluding
+     * the class itself
+     */
+    public int[] getSubtypes(int id) {
+        return this.subtypeClosure(id).clone();
+    }
+
+    /**
+     * @param name The internal name of a class
+     * @return The internal names of every supertype of the class, see {@link #getSupertypes(int)}
+     */
+    public List<String> getSupertypes(String name) {
+        final int id = this.getId(name);
+        return id < 0 ? List.of() : this.namesOf(this.supertypeClosure(id));
+    }
+
+    /**
+     * @param name The internal name of a class
+     * @return The internal names of every subtype of the class, see {@link #getSubtypes(int)}
+     */
+    public List<String> getSubtypes(String name) {
+        final int id = this.getId(name);
+        return id < 0 ? List.of() : this.namesOf(this.subtypeClosure(id));
+    }
+
+    /**
+     * Checks whether a value of type {@code from} can be assigned to type {@code to}, following the class hierarchy.
+     * Every class is assignable to {@code java/lang/Object}, and to itself.
+     *
+     * @param from The ID of the type being assigned
+     * @param to The ID of the type being assigned to
+     * @return Whether {@code to} is {@code from} or one of its supertypes
+     */
+    public boolean isAssignable(int from, int to) {
+        if (from == to || "java/lang/Object".equals(this.names.get(to))) return true;
+        return Arrays.binarySearch(this.supertypeClosure(from), to) >= 0;
+    }
+
+    /**
+     * @param from The internal name of the type being assigned
+     * @param to The internal name of the type being assigned to
+     * @return Whether {@code to} is {@code from} or one of its supertypes, see {@link #isAssignable(int, int)}
+     */
+    public boolean isAssignable(String from, String to) {
+        if (from.equals(to) || to.equals("java/lang/Object")) return true;
+
+        final int fromId = this.getId(from);
+        final int toId = this.getId(to);
+        return fromId >= 0 && toId >= 0 && this.isAssignable(fromId, toId);
+    }
+
+    private int[] supertypeClosure(int id) {
+        int[] closure = this.supertypeClosures[id];
+
+        if (closure == null) {
+            closure = this.walk(id, true);
+            this.supertypeClosures[id] = closure;
+            this.memoizedCount++;
+        }
+
+        return closure;
+    }
+
+    private int[] subtypeClosure(int id) {
+        int[] closure = this.subtypeClosures[id];
+
+        if (closure == null) {
+            closure = this.walk(id, false);
+            this.subtypeClosures[id] = closure;
+            this.memoizedCount++;
+        }
+
+        return closure;
+    }
+
+    /**
+     * Collects every ID reachable from {@code id} through supertype or subtype edges, excluding {@code id} itself
+     *
+     * @return The reachable IDs, sorted
+     */
+    private int[] walk(int id, boolean upwards) {
+        if (++this.visitStamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.visitStamps, 0);
+            this.visitStamp = 1;
+        }
+
+        final IntList reached = new IntList();
+        final IntList pending = new IntList();
+
+        this.visitStamps[id] = this.visitStamp;
+        pending.add(id);
+
+        while (pending.size > 0) {
+            final int current = pending.values[--pending.size];
+
+            if (upwards) {
+                final int superId = this.superclasses[current];
+                if (superId >= 0) this.visit(superId, reached, pending);
+
+                final int[] interfaceIds = this.interfaces[current];
+                if (interfaceIds == null) continue;     // Only referenced, never added
+
+                for (int interfaceId : interfaceIds) this.visit(interfaceId, reached, pending);
+            } else {
+                final IntList subtypes = this.directSubtypes[current];
+                if (subtypes == null) continue;
+
+                for (int index = 0; index < subtypes.size; index++) {
+                    this.visit(subtypes.values[index], reached, pending);
+                }
+            }
+        }
+
+        final int[] closure = reached.toArray();
+        Arrays.sort(closure);
+        return closure;
+    }
+
+    private void visit(int id, IntList reached, IntList pending) {
+        if (this.visitStamps[id] == this.visitStamp) return;   // Already visited, or part of a cycle
+
+        this.visitStamps[id] = this.visitStamp;
+        reached.add(id);
+        pending.add(id);
+    }
+
+    private List<String> namesOf(int[] ids) {
+        final String[] names = new String[ids.length];
+        for (int index = 0; index < ids.length; index++) names[index] = this.names.get(ids[index]);
+        return List.of(names);
+    }
+
+    private IntList subtypeList(int id) {
+        IntList subtypes = this.directSubtypes[id];
+        if (subtypes == null) {
+            subtypes = new IntList();
+            this.directSubtypes[id] = subtypes;
+        }
+
+        return subtypes;
+    }
+
+    private int intern(String name) {
+        final Integer existing = this.ids.get(name);
+        if (existing != null) return existing;
+
+        final int id = this.names.size();
+        this.names.add(name);
+        this.ids.put(name, id);
+
+        if (id == this.superclasses.length) {
+            final int capacity = id * 2;
+            this.superclasses = Arrays.copyOf(this.superclasses, capacity);
+            this.interfaces = Arrays.copyOf(this.interfaces, capacity);
+            this.accessFlags = Arrays.copyOf(this.accessFlags, capacity);
+            this.declared = Arrays.copyOf(this.declared, capacity);
+            this.directSubtypes = Arrays.copyOf(this.directSubtypes, capacity);
+            this.supertypeClosures = Arrays.copyOf(this.supertypeClosures, capacity);
+            this.subtypeClosures = Arrays.copyOf(this.subtypeClosures, capacity);
+            this.visitStamps = Arrays.copyOf(this.visitStamps, capacity);
+        }
+
+        this.superclasses[id] = -1;
+        return id;
+    }
+
+    /**
+     * A growable array of ints, to avoid boxing the edges of the hierarchy
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (this.size == this.values.length) this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = value;
+        }
+
+        private void remove(int value) {
+            for (int index = 0; index < this.size; index++) {
+                if (this.values[index] == value) {
+                    System.arraycopy(this.values, index + 1, this.values, index, this.size - index - 1);
+                    this.size--;
+                    return;
+                }
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
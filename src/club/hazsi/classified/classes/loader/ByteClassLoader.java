@@ -1,7 +1,44 @@
 package club.hazsi.classified.classes.loader;
 
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.metrics.ClassOperation;
+import club.hazsi.classified.classes.metrics.Instrumentation;
+import club.hazsi.classified.classes.metrics.OperationRecorder;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
 /**
- * A simple utility class to load a class -- stored as a byte array -- into the current JVM
+ * A class loader which defines classes from their bytes. It can be used in two ways:
+ *
+ * <ul>
+ *     <li>Through the static {@link #load(byte[])} methods, which define a single class at once in a shared
+ *     instance.</li>
+ *     <li>As a loader of a batch of classes, which may refer to each other: classes added with
+ *     {@link #addClasses(Collection)} are indexed by name, and each is only defined when it is first loaded, through
+ *     {@link #findClass(String)}. Defining a class makes the JVM load its superclass and interfaces, which are then
+ *     defined in turn, so classes can be added in any order. {@link #defineAll()} defines a whole batch at
+ *     once.</li>
+ * </ul>
+ *
+ * The loader is registered as parallel capable, so the JVM locks class loading per class name rather than on the
+ * whole loader, and separate threads can define unrelated classes at the same time. Throwaway classes, which should
+ * be unloaded as soon as they are no longer used, can instead be defined as hidden classes with
+ * {@link #defineHidden(MethodHandles.Lookup, ClassFile, boolean, MethodHandles.Lookup.ClassOption...)}.<br><br>
+ *
+ * The time the JVM took to define each added class is recorded, see {@link #getDefineTimes()}. If
+ * {@link Instrumentation#ENABLED} is set, every definition, including those of hidden classes, is also reported as a
+ * {@link ClassOperation#LOAD}.
  *
  * @since 1.0
  * @author Hazsi
@@ -9,10 +46,29 @@ package club.hazsi.classified.classes.loader;
 public class ByteClassLoader extends ClassLoader {
 
     private static final ByteClassLoader INSTANCE;
+    private static final ThreadLocal<long[]> NESTED_DEFINE_TIME = ThreadLocal.withInitial(() -> new long[1]);
     static {
+        registerAsParallelCapable();    // Must happen before the first instance is created
         INSTANCE = new ByteClassLoader();
     }
 
+    private final Map<String, ClassFile> pendingClasses = new ConcurrentHashMap<>();
+    private final Map<String, Long> defineTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a loader delegating to the system class loader.
+     */
+    public ByteClassLoader() {
+        super(ClassLoader.getSystemClassLoader());
+    }
+
+    /**
+     * @param parent The loader classes are first looked up in, before the classes added to this loader
+     */
+    public ByteClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
     /**
      * Loads a class -- as defined by an array of the class bytes -- into the current JVM using the
      * {@code ByteClassLoader} instance.
@@ -23,6 +79,219 @@ public class ByteClassLoader extends ClassLoader {
      * or the class bytes make up a class with a {@code java.} package.
      */
     public static void load(byte[] clazz) throws ClassFormatError, SecurityException {
-        INSTANCE.defineClass(null, clazz, 0, clazz.length);
+        final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.LOAD) : null;
+        final Class<?> defined = INSTANCE.defineClass(null, clazz, 0, clazz.length);
+
+        if (Instrumentation.ENABLED) recorder.end(internalName(defined), clazz.length);
+    }
+
+    /**
+     * Loads a class -- as defined by the remaining bytes of a buffer -- into the current JVM using the
+     * {@code ByteClassLoader} instance. The buffer may be direct or memory-mapped, in which case the class bytes are
+     * handed to the JVM without first being copied onto the heap.
+     *
+     * @param clazz The class to load, as defined by the bytes between the buffer's position and limit
+     * @throws ClassFormatError If the bytes provided do not comprise a valid class
+     * @throws SecurityException If the class was added to a package containing classes with different certificates,
+     * or the class bytes make up a class with a {@code java.} package.
+     */
+    public static void load(ByteBuffer clazz) throws ClassFormatError, SecurityException {
+        final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.LOAD) : null;
+        final int length = clazz.remaining();     // Defining the class consumes the buffer
+        final Class<?> defined = INSTANCE.defineClass(null, clazz, null);
+
+        if (Instrumentation.ENABLED) recorder.end(internalName(defined), length);
+    }
+
+    /**
+     * Defines a class as a hidden class of the lookup class's package, see
+     * {@link MethodHandles.Lookup#defineHiddenClass(byte[], boolean, MethodHandles.Lookup.ClassOption...)}. The
+     * hidden class belongs to the loader of the lookup class, not to any {@code ByteClassLoader}; it cannot be found
+     * by name, and is unloaded once it is no longer reachable (unless {@link MethodHandles.Lookup.ClassOption#STRONG}
+     * is given), which suits throwaway generated classes. Its define time is only reported through
+     * {@link Instrumentation}.
+     *
+     * @param lookup A lookup with full privileges on a class of the same package as the hidden class
+     * @param classFile The class to define
+     * @param initialize Whether the class should be initialized right away
+     * @param options The options of the hidden class
+     * @return The lookup of the hidden class, whose {@link MethodHandles.Lookup#lookupClass()} is the class
+     * @throws IllegalAccessException If the lookup does not have full privileges
+     * @throws IllegalArgumentException If the class is not in the package of the lookup class
+     * @throws LinkageError If the class could not be defined
+     */
+    public static MethodHandles.Lookup defineHidden(MethodHandles.Lookup lookup, ClassFile classFile,
+                                                    boolean initialize, MethodHandles.Lookup.ClassOption... options)
+            throws IllegalAccessException {
+        final byte[] classBytes = classFile.getRawBytes();
+        final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.LOAD) : null;
+        final MethodHandles.Lookup hiddenLookup = lookup.defineHiddenClass(classBytes, initialize, options);
+
+        if (Instrumentation.ENABLED) recorder.end(internalName(hiddenLookup.lookupClass()), classBytes.length);
+        return hiddenLookup;
+    }
+
+    /**
+     * Adds a class to be defined by this loader the first time it is loaded. See {@link #addClasses(Collection)}.
+     *
+     * @param classFile The class to add
+     * @throws IllegalArgumentException If a class with the same name was already added to this loader
+     */
+    public void addClass(ClassFile classFile) {
+        final String name = classFile.getAttributes().getClassName().replace('/', '.');
+
+        synchronized (this.getClassLoadingLock(name)) {
+            if (this.findLoadedClass(name) != null || this.pendingClasses.putIfAbsent(name, classFile) != null) {
+                throw new IllegalArgumentException("class " + name + " was already added");
+            }
+        }
+    }
+
+    /**
+     * Adds a batch of classes to be defined by this loader, each the first time it is loaded. Nothing is defined
+     * yet; classes are only indexed by name. The classes must not be modified until they are defined.
+     *
+     * @param classFiles The classes to add, in any order
+     * @throws IllegalArgumentException If a class with the same name was already added to this loader. The classes
+     * before it in the batch are still added.
+     */
+    public void addClasses(Collection<ClassFile> classFiles) {
+        for (ClassFile classFile : classFiles) this.addClass(classFile);
+    }
+
+    /**
+     * Defines a class added to this loader. Called by {@link ClassLoader#loadClass(String)} once the parent loader
+     * did not find the class, while holding the lock of the class name.
+     *
+     * @param name The binary name of the class, such as {@code com.example.Foo$Bar}
+     * @return The defined class
+     * @throws ClassNotFoundException If no class of that name was added to this loader
+     */
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        final ClassFile classFile = this.pendingClasses.get(name);
+        if (classFile == null) throw new ClassNotFoundException(name);
+
+        final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.LOAD) : null;
+        final ByteBuffer classBuffer = classFile.getClassBuffer();
+        final long[] nestedTime = NESTED_DEFINE_TIME.get();
+        final long outerNestedTime = nestedTime[0];
+        final long start = System.nanoTime();
+        nestedTime[0] = 0;
+
+        final Class<?> clazz;
+        final long defineTime;
+        try {
+            clazz = this.defineClass(name, classBuffer.duplicate(), null);
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            defineTime = elapsed - nestedTime[0];       // Excludes the supertypes defined meanwhile
+            nestedTime[0] = outerNestedTime + elapsed;
+        }
+
+        this.defineTimes.put(name, defineTime);         // Only once the class was defined
+        this.pendingClasses.remove(name);
+
+        if (Instrumentation.ENABLED) recorder.end(internalName(clazz), classBuffer.limit());
+        return clazz;
+    }
+
+    /**
+     * Defines every class added to this loader which was not defined yet, on the calling thread.
+     *
+     * @return Every class defined by this loader from an added class, by binary name
+     * @throws LinkageError If a class could not be defined, for example because its superclass could not be found, or
+     * if a class of the same name is found through the parent loader, which then takes precedence over the added class
+     */
+    public Map<String, Class<?>> defineAll() {
+        for (String name : new ArrayList<>(this.pendingClasses.keySet())) this.loadAdded(name);
+        return this.getDefinedClasses();
+    }
+
+    /**
+     * Defines every class added to this loader which was not defined yet, on one worker per core submitted to an
+     * executor. Classes sharing a superclass wait for whichever thread defines it first.
+     *
+     * @param executor The executor to define classes on
+     * @return Every class defined by this loader from an added class, by binary name
+     * @throws LinkageError If a class could not be defined, for example because its superclass could not be found, or
+     * if a class of the same name is found through the parent loader, which then takes precedence over the added class
+     */
+    public Map<String, Class<?>> defineAll(Executor executor) {
+        final List<String> names = new ArrayList<>(this.pendingClasses.keySet());
+        final int workerCount = Math.min(Runtime.getRuntime().availableProcessors(), Math.max(1, names.size()));
+        final CompletableFuture<?>[] workers = new CompletableFuture<?>[workerCount];
+
+        for (int worker = 0; worker < workerCount; worker++) {
+            final int firstIndex = worker;
+            workers[worker] = CompletableFuture.runAsync(() -> {
+                for (int index = firstIndex; index < names.size(); index += workerCount) {
+                    this.loadAdded(names.get(index));
+                }
+            }, executor);
+        }
+
+        try {
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof LinkageError) throw (LinkageError) exception.getCause();
+            throw exception;
+        }
+
+        return this.getDefinedClasses();
+    }
+
+    private void loadAdded(String name) {
+        final Class<?> clazz;
+        try {
+            clazz = this.loadClass(name);
+        } catch (ClassNotFoundException exception) {    // Cannot happen, as the class is either pending or defined
+            throw new NoClassDefFoundError(name);
+        }
+
+        // The parent is asked first, and a class of the same name it finds is returned as is
+        if (clazz.getClassLoader() != this) {
+            throw new LinkageError("class " + name + " was added to this loader, but is shadowed by the class of the " +
+                    "same name of " + clazz.getClassLoader());
+        }
+    }
+
+    /**
+     * @return Every class defined by this loader from an added class so far, by binary name
+     */
+    public Map<String, Class<?>> getDefinedClasses() {
+        final Map<String, Class<?>> classes = new LinkedHashMap<>();
+
+        for (String name : this.defineTimes.keySet()) {
+            final Class<?> clazz = this.findLoadedClass(name);
+            if (clazz != null) classes.put(name, clazz);
+        }
+
+        return classes;
+    }
+
+    /**
+     * @return The names of the classes added to this loader which were not defined yet
+     */
+    public Collection<String> getPendingClassNames() {
+        return Collections.unmodifiableCollection(this.pendingClasses.keySet());
+    }
+
+    /**
+     * Returns how long the JVM took to define every added class defined by this loader. Hidden classes are not
+     * included, see {@link #defineHidden}. The time of a class excludes the time spent defining the supertypes it
+     * caused to be loaded, so that no time is counted twice when summing the times of a batch.
+     *
+     * @return The define time of every class, in nanoseconds, by binary name
+     */
+    public Map<String, Long> getDefineTimes() {
+        return Collections.unmodifiableMap(this.defineTimes);
+    }
+
+    /**
+     * @return The internal name of a class, such as {@code java/lang/String}, as reported by the instrumentation
+     */
+    private static String internalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package club.hazsi.classified.classes.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event recorded for every class defined through a
+ * {@link club.hazsi.classified.classes.loader.ByteClassLoader}. Defining a class may define its supertypes first, in
+ * which case their events are nested within this one.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Name("club.hazsi.classified.Load")
+@Label("Class Load")
+@Description("A class defined in the JVM by a ByteClassLoader")
+public final class ClassLoadEvent extends ClassOperationEvent {
+}
@@ -0,0 +1,26 @@
+package club.hazsi.classified.classes.metrics;
+
+/**
+ * The operations on a class which are instrumented, see {@link Instrumentation}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public enum ClassOperation {
+
+    /**
+     * Parsing class bytes into a {@link club.hazsi.classified.classes.ClassAttributes}, made up of the
+     * {@link ParsePhase}s
+     */
+    PARSE,
+
+    /**
+     * Defining a class in the JVM through a {@link club.hazsi.classified.classes.loader.ByteClassLoader}
+     */
+    LOAD,
+
+    /**
+     * Writing modified class attributes back to class bytes
+     */
+    SERIALIZE
+}
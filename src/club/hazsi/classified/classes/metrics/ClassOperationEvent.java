@@ -0,0 +1,27 @@
+package club.hazsi.classified.classes.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * The fields shared by the Flight Recorder events of every {@link ClassOperation}. The duration of the event is the
+ * duration of the operation.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Category("Classified")
+@StackTrace(false)
+abstract class ClassOperationEvent extends jdk.jfr.Event {
+    @Label("Class Name")
+    @Description("The internal name of the class, such as java/lang/String")
+    String className;
+
+    @Label("Class Size")
+    @Description("The length of the class bytes read, defined or written")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,76 @@
+package club.hazsi.classified.classes.metrics;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event recorded for every class parsed, with the time, bytes and entries of each
+ * {@link ParsePhase}. Phases which were skipped are left at 0.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Name("club.hazsi.classified.Parse")
+@Label("Class Parse")
+@Description("A class parsed into ClassAttributes")
+public final class ClassParseEvent extends ClassOperationEvent {
+    @Label("Constant Pool Time") @Timespan long constantPoolTime;
+    @Label("Constant Pool Size") @DataAmount long constantPoolBytes;
+    @Label("Constant Pool Slots") int constantPoolEntries;
+
+    @Label("Interfaces Time") @Timespan long interfacesTime;
+    @Label("Interfaces Size") @DataAmount long interfacesBytes;
+    @Label("Interface Count") int interfaceCount;
+
+    @Label("Fields Time") @Timespan long fieldsTime;
+    @Label("Fields Size") @DataAmount long fieldsBytes;
+    @Label("Field Count") int fieldCount;
+
+    @Label("Methods Time") @Timespan long methodsTime;
+    @Label("Methods Size") @DataAmount long methodsBytes;
+    @Label("Method Count") int methodCount;
+
+    @Label("Attributes Time") @Timespan long attributesTime;
+    @Label("Attributes Size") @DataAmount long attributesBytes;
+    @Label("Attribute Count") int attributeCount;
+
+    @Label("Validation Time") @Timespan long validationTime;
+    @Label("Validated References") int validatedReferences;
+
+    void setPhase(ParsePhase phase, long nanos, long bytes, int entries) {
+        switch (phase) {
+            case CONSTANT_POOL:
+                this.constantPoolTime = nanos;
+                this.constantPoolBytes = bytes;
+                this.constantPoolEntries = entries;
+                break;
+            case INTERFACES:
+                this.interfacesTime = nanos;
+                this.interfacesBytes = bytes;
+                this.interfaceCount = entries;
+                break;
+            case FIELDS:
+                this.fieldsTime = nanos;
+                this.fieldsBytes = bytes;
+                this.fieldCount = entries;
+                break;
+            case METHODS:
+                this.methodsTime = nanos;
+                this.methodsBytes = bytes;
+                this.methodCount = entries;
+                break;
+            case ATTRIBUTES:
+                this.attributesTime = nanos;
+                this.attributesBytes = bytes;
+                this.attributeCount = entries;
+                break;
+            case VALIDATION:
+                this.validationTime = nanos;
+                this.validatedReferences = entries;
+                break;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package club.hazsi.classified.classes.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event recorded every time modified class attributes are written back to class bytes.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Name("club.hazsi.classified.Serialize")
+@Label("Class Serialize")
+@Description("Modified ClassAttributes written back to class bytes")
+public final class ClassSerializeEvent extends ClassOperationEvent {
+}
@@ -0,0 +1,102 @@
+package club.hazsi.classified.classes.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsRegistry} keeping running totals for every {@link ParsePhase} and {@link ClassOperation}. Counters
+ * are {@link LongAdder}s, so threads parsing in parallel do not contend on them. Totals are read as snapshots with
+ * {@link #getPhase(ParsePhase)} and {@link #getOperation(ClassOperation)}; the activity between two points in time is
+ * the difference of two snapshots.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class CumulativeMetricsRegistry implements MetricsRegistry {
+    private static final ParsePhase[] PHASES = ParsePhase.values();
+    private static final ClassOperation[] OPERATIONS = ClassOperation.values();
+
+    private final Counters[] phases = new Counters[PHASES.length];
+    private final Counters[] operations = new Counters[OPERATIONS.length];
+
+    public CumulativeMetricsRegistry() {
+        for (int index = 0; index < this.phases.length; index++) this.phases[index] = new Counters();
+        for (int index = 0; index < this.operations.length; index++) this.operations[index] = new Counters();
+    }
+
+    @Override
+    public void recordPhase(ParsePhase phase, long nanos, long bytes, int entries) {
+        this.phases[phase.ordinal()].add(nanos, bytes, entries);
+    }
+
+    @Override
+    public void recordOperation(ClassOperation operation, long nanos, long bytes) {
+        this.operations[operation.ordinal()].add(nanos, bytes, 0);
+    }
+
+    /**
+     * @param phase The parse phase to read the totals of
+     * @return A snapshot of the totals of the phase
+     */
+    public MetricsSnapshot getPhase(ParsePhase phase) {
+        return this.phases[phase.ordinal()].snapshot();
+    }
+
+    /**
+     * @param operation The operation to read the totals of
+     * @return A snapshot of the totals of the operation, whose entry count is always 0
+     */
+    public MetricsSnapshot getOperation(ClassOperation operation) {
+        return this.operations[operation.ordinal()].snapshot();
+    }
+
+    /**
+     * Sets every total back to 0. Operations reported meanwhile may be partly cleared.
+     */
+    public void reset() {
+        for (Counters counters : this.phases) counters.reset();
+        for (Counters counters : this.operations) counters.reset();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+
+        for (ClassOperation operation : OPERATIONS) {
+            builder.append(operation).append(": ").append(this.getOperation(operation)).append('\n');
+        }
+
+        for (ParsePhase phase : PHASES) {
+            builder.append("  ").append(phase).append(": ").append(this.getPhase(phase)).append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * The totals of one phase or operation
+     */
+    private static final class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder entries = new LongAdder();
+
+        void add(long nanos, long bytes, int entries) {
+            this.count.increment();
+            this.nanos.add(nanos);
+            this.bytes.add(bytes);
+            if (entries != 0) this.entries.add(entries);
+        }
+
+        MetricsSnapshot snapshot() {
+            return new MetricsSnapshot(this.count.sum(), this.nanos.sum(), this.bytes.sum(), this.entries.sum());
+        }
+
+        void reset() {
+            this.count.reset();
+            this.nanos.reset();
+            this.bytes.reset();
+            this.entries.reset();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package club.hazsi.classified.classes.metrics;
+
+/**
+ * The switch and registry of the parse, load and serialization instrumentation. Instrumentation is off unless the JVM
+ * is started with {@code -Dclassified.instrumentation=true}. The switch is a {@code static final} field, so when it
+ * is off the JIT removes every instrumented branch and the only cost left is a few unused bytecodes.<br><br>
+ *
+ * When it is on, every parse, load and serialization of a class is timed, along with each phase of parsing (see
+ * {@link ParsePhase}), and reported in two ways:
+ *
+ * <ul>
+ *     <li>As JDK Flight Recorder events, see {@link ClassParseEvent}, {@link ClassLoadEvent} and
+ *     {@link ClassSerializeEvent}. These are only committed while a recording with the events enabled is running,
+ *     such as one started with {@code -XX:StartFlightRecording}.</li>
+ *     <li>To the {@link MetricsRegistry} set with {@link #setRegistry(MetricsRegistry)}, which by default is a
+ *     {@link CumulativeMetricsRegistry} keeping running totals.</li>
+ * </ul>
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class Instrumentation {
+
+    /**
+     * Whether instrumentation is on, read once from the {@code classified.instrumentation} system property
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("classified.instrumentation");
+
+    private static volatile MetricsRegistry registry = new CumulativeMetricsRegistry();
+
+    private Instrumentation() {
+    }
+
+    /**
+     * @return The registry instrumented operations are reported to, or {@code null} if they are only reported as
+     * Flight Recorder events
+     */
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Sets the registry instrumented operations are reported to, for example to forward them to a metrics library.
+     * This has no effect unless {@link #ENABLED} is set.
+     *
+     * @param registry The registry to report to, or {@code null} to only report Flight Recorder events
+     */
+    public static void setRegistry(MetricsRegistry registry) {
+        Instrumentation.registry = registry;
+    }
+
+    /**
+     * Starts recording an operation. Callers must check {@link #ENABLED} first, so that nothing is allocated when
+     * instrumentation is off:
+     *
+     * <pre>{@code
+     * final OperationRecorder recorder = Instrumentation.ENABLED ? Instrumentation.begin(ClassOperation.LOAD) : null;
+     * ...
+     * if (Instrumentation.ENABLED) recorder.end(className, length);
+     * }</pre>
+     *
+     * @param operation The operation about to start
+     * @return The recorder timing the operation
+     */
+    public static OperationRecorder begin(ClassOperation operation) {
+        return new OperationRecorder(operation);
+    }
+}
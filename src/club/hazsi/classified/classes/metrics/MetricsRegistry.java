@@ -0,0 +1,28 @@
+package club.hazsi.classified.classes.metrics;
+
+/**
+ * Receives the measurements of instrumented operations, see {@link Instrumentation}. Measurements are reported on
+ * the thread which did the work, right after it is done, so implementations must be thread safe and should be
+ * cheap, such as incrementing counters. Phases are reported before the parse they belong to, and only once the whole
+ * class was parsed successfully.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public interface MetricsRegistry {
+
+    /**
+     * @param phase The parse phase which ended
+     * @param nanos The time the phase took, in nanoseconds
+     * @param bytes The amount of class bytes read by the phase
+     * @param entries The amount of entries read by the phase, as described by each {@link ParsePhase}
+     */
+    void recordPhase(ParsePhase phase, long nanos, long bytes, int entries);
+
+    /**
+     * @param operation The operation which ended
+     * @param nanos The time the operation took, in nanoseconds
+     * @param bytes The length of the class bytes read, defined or written
+     */
+    void recordOperation(ClassOperation operation, long nanos, long bytes);
+}
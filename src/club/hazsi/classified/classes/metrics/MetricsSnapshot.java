@@ -0,0 +1,46 @@
+package club.hazsi.classified.classes.metrics;
+
+import lombok.Getter;
+
+/**
+ * The totals of one {@link ParsePhase} or {@link ClassOperation}, taken by
+ * {@link CumulativeMetricsRegistry#getPhase(ParsePhase)} or {@link CumulativeMetricsRegistry#getOperation}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class MetricsSnapshot {
+    private final long count;       // The amount of times the phase or operation was recorded
+    private final long nanos;       // The total time taken, in nanoseconds
+    private final long bytes;       // The total amount of class bytes processed
+    private final long entries;     // The total amount of entries read, always 0 for operations
+
+    MetricsSnapshot(long count, long nanos, long bytes, long entries) {
+        this.count = count;
+        this.nanos = nanos;
+        this.bytes = bytes;
+        this.entries = entries;
+    }
+
+    /**
+     * @return The average time taken, in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getAverageNanos() {
+        return this.count == 0 ? 0 : (double) this.nanos / this.count;
+    }
+
+    /**
+     * @return The amount of bytes processed per second, in megabytes, or 0 if nothing was recorded
+     */
+    public double getMegabytesPerSecond() {
+        return this.nanos == 0 ? 0 : this.bytes * 1e9 / this.nanos / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d times, %.1f ms, %.1f MB (%.1f MB/s), %d entries, %.0f ns avg", this.count,
+                this.nanos / 1e6, this.bytes / 1048576.0, this.getMegabytesPerSecond(), this.entries,
+                this.getAverageNanos());
+    }
+}
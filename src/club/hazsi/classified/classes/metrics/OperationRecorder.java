@@ -0,0 +1,103 @@
+package club.hazsi.classified.classes.metrics;
+
+/**
+ * Times one instrumented operation, and its phases if it is a parse, then reports it as a Flight Recorder event and
+ * to the {@link MetricsRegistry}. Recorders are obtained from {@link Instrumentation#begin(ClassOperation)}, used by
+ * a single thread, and discarded once the operation ends. An operation which fails is simply never ended, and
+ * nothing of it is reported.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class OperationRecorder {
+    private static final ParsePhase[] PHASES = ParsePhase.values();
+
+    private final ClassOperation operation;
+    private final ClassOperationEvent event;
+    private final long start;
+
+    private long phaseStart;
+    private int recordedPhases;     // A bitset of the phases ended so far, by ordinal
+    private long[] phaseNanos;      // The following are only allocated for parses
+    private long[] phaseBytes;
+    private int[] phaseEntries;
+
+    OperationRecorder(ClassOperation operation) {
+        this.operation = operation;
+
+        switch (operation) {
+            case PARSE:
+                this.event = new ClassParseEvent();
+                this.phaseNanos = new long[PHASES.length];
+                this.phaseBytes = new long[PHASES.length];
+                this.phaseEntries = new int[PHASES.length];
+                break;
+            case LOAD:
+                this.event = new ClassLoadEvent();
+                break;
+            default:
+                this.event = new ClassSerializeEvent();
+        }
+
+        this.event.begin();
+        this.start = System.nanoTime();
+        this.phaseStart = this.start;
+    }
+
+    /**
+     * Ends a phase of a parse, which started when the previous phase ended, or when the parse started. A phase which
+     * is ended more than once, such as {@link ParsePhase#VALIDATION}, is reported once with the sum of its parts.
+     *
+     * @param phase The phase which ended
+     * @param bytes The amount of class bytes read by the phase
+     * @param entries The amount of entries read by the phase, as described by each {@link ParsePhase}
+     * @throws IllegalStateException If the operation is not a parse
+     */
+    public void endPhase(ParsePhase phase, long bytes, int entries) {
+        if (this.phaseNanos == null) throw new IllegalStateException(this.operation + " has no phases");
+
+        final long now = System.nanoTime();
+
+        this.phaseNanos[phase.ordinal()] += now - this.phaseStart;
+        this.phaseBytes[phase.ordinal()] += bytes;
+        this.phaseEntries[phase.ordinal()] += entries;
+        this.recordedPhases |= 1 << phase.ordinal();
+        this.phaseStart = now;
+    }
+
+    /**
+     * Ends the operation, and reports it along with its phases.
+     *
+     * @param className The internal name of the class, such as {@code java/lang/String}
+     * @param bytes The length of the class bytes read, defined or written
+     */
+    public void end(String className, long bytes) {
+        final long nanos = System.nanoTime() - this.start;
+        final MetricsRegistry registry = Instrumentation.getRegistry();
+
+        this.event.end();
+
+        if (this.event.shouldCommit()) {
+            this.event.className = className;
+            this.event.bytes = bytes;
+
+            for (int index = 0; index < PHASES.length; index++) {
+                if ((this.recordedPhases & 1 << index) == 0) continue;
+                ((ClassParseEvent) this.event).setPhase(PHASES[index], this.phaseNanos[index],
+                        this.phaseBytes[index], this.phaseEntries[index]);
+            }
+
+            this.event.commit();
+        }
+
+        if (registry == null) return;
+
+        for (int index = 0; index < PHASES.length; index++) {
+            if ((this.recordedPhases & 1 << index) == 0) continue;
+            registry.recordPhase(PHASES[index], this.phaseNanos[index], this.phaseBytes[index],
+                    this.phaseEntries[index]);
+        }
+
+        registry.recordOperation(this.operation, nanos, bytes);
+    }
+}
@@ -0,0 +1,46 @@
+package club.hazsi.classified.classes.metrics;
+
+/**
+ * The phases of parsing a class, in the order they happen, except for {@link #VALIDATION}, which is interleaved with
+ * the others. Phases past the {@link club.hazsi.classified.classes.ParseLevel} of a parse are skipped and not
+ * reported.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public enum ParsePhase {
+
+    /**
+     * Indexing the constant pool, including the checks of its entries, which happen while it is indexed. Entries are
+     * counted in slots, so long and double entries count twice.
+     */
+    CONSTANT_POOL,
+
+    /**
+     * Reading the class declaration and the interface table. Entries are interfaces.
+     */
+    INTERFACES,
+
+    /**
+     * Reading the field table, including the attributes of every field at {@code FULL}. Entries are fields.
+     */
+    FIELDS,
+
+    /**
+     * Reading the method table, including the attributes of every method at {@code FULL}. Entries are methods.
+     */
+    METHODS,
+
+    /**
+     * Reading the attributes of the class itself. Entries are attributes.
+     */
+    ATTRIBUTES,
+
+    /**
+     * Checking the references of the class declaration and, at {@link
+     * club.hazsi.classified.classes.ValidationLevel#STRICT}, of the members to the constant pool, once each of those
+     * was read. Skipped at {@link club.hazsi.classified.classes.ValidationLevel#NONE}. No bytes are read; entries are
+     * the constant pool references checked.
+     */
+    VALIDATION
+}
@@ -0,0 +1,137 @@
+package club.hazsi.classified.classes.summary;
+
+import club.hazsi.classified.classes.ClassAttributes;
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.components.ClassMemberEntry;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPool;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The parts of a class which classpath-wide tools (indexers, hierarchy and dependency analyses) usually need, without
+ * any of its code: its name, superclass, interfaces and access flags, the access flags, name and descriptor of every
+ * field and method, and the names of every class its constant pool refers to. Summaries are immutable, and are what
+ * a {@link ClassSummaryCache} stores.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class ClassSummary {
+    private final String name;
+    private final String superName;                     // Null for java/lang/Object and module descriptors
+    private final List<String> interfaces;
+    private final int accessFlags;
+    private final List<MemberSummary> fields;
+    private final List<MemberSummary> methods;
+    private final List<String> referencedClasses;       // In constant pool order, excluding this class
+
+    /**
+     * @param name The internal name of the class
+     * @param superName The internal name of the superclass, or {@code null} if there is none
+     * @param interfaces The internal names of the direct superinterfaces
+     * @param accessFlags The access flags bitfield of the class
+     * @param fields The fields of the class
+     * @param methods The methods of the class
+     * @param referencedClasses The names held by the {@code CONSTANT_Class} entries of the class, which are internal
+     *                          names or array descriptors, excluding the name of the class itself
+     */
+    public ClassSummary(String name, String superName, List<String> interfaces, int accessFlags,
+                        List<MemberSummary> fields, List<MemberSummary> methods, List<String> referencedClasses) {
+        this.name = Objects.requireNonNull(name);
+        this.superName = superName;
+        this.interfaces = List.copyOf(interfaces);
+        this.accessFlags = accessFlags;
+        this.fields = List.copyOf(fields);
+        this.methods = List.copyOf(methods);
+        this.referencedClasses = List.copyOf(referencedClasses);
+    }
+
+    /**
+     * Creates a summary which takes ownership of the provided arrays rather than copying them, for summaries decoded
+     * by {@link ClassSummaryCache}
+     */
+    ClassSummary(String name, String superName, String[] interfaces, int accessFlags, MemberSummary[] fields,
+                 MemberSummary[] methods, String[] referencedClasses) {
+        this.name = Objects.requireNonNull(name);
+        this.superName = superName;
+        this.interfaces = Collections.unmodifiableList(Arrays.asList(interfaces));
+        this.accessFlags = accessFlags;
+        this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+        this.methods = Collections.unmodifiableList(Arrays.asList(methods));
+        this.referencedClasses = Collections.unmodifiableList(Arrays.asList(referencedClasses));
+    }
+
+    /**
+     * Summarizes a parsed class.
+     *
+     * @param classFile A class parsed with at least {@link ParseLevel#MEMBERS}
+     * @return The summary of the class
+     * @throws IllegalStateException If the class was parsed with {@link ParseLevel#HEADER}
+     * @throws ClassFormatError If a name in the class is malformed
+     */
+    public static ClassSummary of(ClassFile classFile) {
+        final ClassAttributes attributes = classFile.getAttributes();
+        final ClassConstantPool constantPool = attributes.getConstantPool();
+        final String name = attributes.getClassName();
+
+        final List<Integer> interfaceIndexes = attributes.getInterfaceTable().getInterfaces();
+        final List<String> interfaces = new ArrayList<>(interfaceIndexes.size());
+        for (int interfaceIndex : interfaceIndexes) interfaces.add(constantPool.getClassName(interfaceIndex));
+
+        final LinkedHashSet<String> referencedClasses = new LinkedHashSet<>();
+        final int classTag = ClassConstantPoolEntryType.CLASS.getValue();
+
+        for (int index = 1; index < constantPool.getCount(); index++) {
+            if (constantPool.getTag(index) == classTag) referencedClasses.add(constantPool.getClassName(index));
+        }
+
+        referencedClasses.remove(name);
+
+        return new ClassSummary(name, attributes.getSuperClassName(), interfaces, attributes.getAccessFlags(),
+                summarize(attributes.getFieldTable().getFields(), constantPool),
+                summarize(attributes.getMethodTable().getMethods(), constantPool), new ArrayList<>(referencedClasses));
+    }
+
+    private static List<MemberSummary> summarize(List<? extends ClassMemberEntry> entries,
+                                                 ClassConstantPool constantPool) {
+        final List<MemberSummary> members = new ArrayList<>(entries.size());
+
+        for (ClassMemberEntry entry : entries) {
+            members.add(new MemberSummary(entry.getAccessFlags(), constantPool.getUtf8(entry.getNameIndex()),
+                    constantPool.getUtf8(entry.getDescriptorIndex())));
+        }
+
+        return members;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof ClassSummary)) return false;
+
+        final ClassSummary summary = (ClassSummary) other;
+        return this.accessFlags == summary.accessFlags && this.name.equals(summary.name) &&
+                Objects.equals(this.superName, summary.superName) && this.interfaces.equals(summary.interfaces) &&
+                this.fields.equals(summary.fields) && this.methods.equals(summary.methods) &&
+                this.referencedClasses.equals(summary.referencedClasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.name.hashCode() * 31 + this.methods.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
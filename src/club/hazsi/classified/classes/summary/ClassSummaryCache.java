@@ -0,0 +1,463 @@
+package club.hazsi.classified.classes.summary;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.ParseLevel;
+import club.hazsi.classified.classes.ParseOptions;
+import club.hazsi.classified.util.ByteUtil;
+import club.hazsi.classified.util.ModifiedUTF8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A persistent cache of {@link ClassSummary summaries}, keyed by the {@link ContentHash} of the raw class bytes, so
+ * that tools which repeatedly analyze the same, mostly unchanged classpath only have to parse the classes which
+ * changed. On a hit, {@link #summarize(byte[])} costs a hash of the class bytes and a lookup, and the class is never
+ * handed to the parser.<br><br>
+ *
+ * The cache file is memory-mapped when the cache is opened, and entries are decoded from the mapping on demand, so
+ * opening a cache of any size is instant and only the summaries which are actually requested are ever decoded. Its
+ * format is compact and big-endian, like the class file format, with every string stored once:
+ *
+ * <pre>{@code
+ * cache_file {
+ *     u4   magic;                          // 0x43534D59
+ *     u2   version;
+ *     u2   reserved;
+ *     u4   entry_count;
+ *     u4   string_count;
+ *     u4   records_offset;
+ *     u4   string_offsets_offset;
+ *     u4   strings_offset;
+ *     u4   file_length;
+ *     {   u8 hash_high; u8 hash_low;       // Sorted by hash, as unsigned numbers, for a binary search
+ *         u4 record_offset; u4 record_length;
+ *     }    index[entry_count];
+ *     record {
+ *         u2 access_flags; u4 name; u4 super_name;     // String IDs; super_name is 0xFFFFFFFF if there is none
+ *         u2 interfaces_count; u4 interfaces[interfaces_count];
+ *         u2 fields_count; { u2 access_flags; u4 name; u4 descriptor; } fields[fields_count];
+ *         u2 methods_count; { u2 access_flags; u4 name; u4 descriptor; } methods[methods_count];
+ *         u2 referenced_classes_count; u4 referenced_classes[referenced_classes_count];
+ *     }    records[entry_count];
+ *     u4   string_offsets[string_count];   // Offsets of the strings from strings_offset, indexed by string ID
+ *     {   u2 length; u1 bytes[length]; }   strings[string_count];      // Modified UTF-8
+ * }
+ * }</pre>
+ *
+ * New summaries are kept in memory until {@link #save()} writes every summary to a new file, which then atomically
+ * replaces the old one; a cache in which nothing was added is not written at all. A file which is missing, truncated
+ * or of another version is treated as an empty cache, and is replaced on the next save. The file is not checksummed,
+ * but an entry whose record is out of bounds or inconsistent is treated as a miss. Stale entries of classes which
+ * no longer exist are never evicted, so a cache shared by many versions of a classpath should occasionally be
+ * deleted.<br><br>
+ *
+ * Lookups are safe from any number of threads at once, as is adding summaries; saving should not overlap with adding.
+ * A {@link java.nio.MappedByteBuffer} cannot be unmapped explicitly, so the mapping is only released once the cache
+ * is garbage collected.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ClassSummaryCache {
+    private static final int MAGIC = 0x43534D59;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 32;
+    private static final int INDEX_ENTRY_LENGTH = 24;
+    private static final int NO_SUPERCLASS = -1;
+    private static final ParseOptions PARSE_OPTIONS = ParseOptions.of(ParseLevel.MEMBERS);
+
+    private final Path file;
+    private final ByteBuffer mapped;            // Null if the cache file was missing or invalid
+    private final int entryCount;
+    private final int stringOffsetsOffset;
+    private final int stringsOffset;
+    private final String[] strings;             // Decoded on first use; racy, but every thread decodes the same string
+    private final Map<ContentHash, ClassSummary> added = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    private ClassSummaryCache(Path file, ByteBuffer mapped) {
+        this.file = file;
+
+        if (mapped != null && isValid(mapped)) {
+            this.mapped = mapped;
+            this.entryCount = ByteUtil.readDWORD(mapped, 8);
+            this.stringOffsetsOffset = ByteUtil.readDWORD(mapped, 20);
+            this.stringsOffset = ByteUtil.readDWORD(mapped, 24);
+            this.strings = new String[ByteUtil.readDWORD(mapped, 12)];
+        } else {
+            this.mapped = null;
+            this.entryCount = 0;
+            this.stringOffsetsOffset = 0;
+            this.stringsOffset = 0;
+            this.strings = new String[0];
+        }
+    }
+
+    /**
+     * Opens the cache stored in a file, mapping it into memory. The file does not need to exist.
+     *
+     * @param file The cache file, which is created by {@link #save()} if it does not exist
+     * @return The opened cache
+     * @throws IOException If the file exists but could not be mapped
+     */
+    public static ClassSummaryCache open(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return new ClassSummaryCache(file, null);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) return new ClassSummaryCache(file, null);
+
+            return new ClassSummaryCache(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Checks the header of a mapped file, so that a truncated or foreign file is ignored rather than misread
+     */
+    private static boolean isValid(ByteBuffer mapped) {
+        final int size = mapped.capacity();
+        if (ByteUtil.readDWORD(mapped, 0) != MAGIC || ByteUtil.readWORD(mapped, 4) != VERSION) return false;
+
+        final long entryCount = Integer.toUnsignedLong(ByteUtil.readDWORD(mapped, 8));
+        final long stringCount = Integer.toUnsignedLong(ByteUtil.readDWORD(mapped, 12));
+        final long recordsOffset = Integer.toUnsignedLong(ByteUtil.readDWORD(mapped, 16));
+        final long stringOffsetsOffset = Integer.toUnsignedLong(ByteUtil.readDWORD(mapped, 20));
+        final long stringsOffset = Integer.toUnsignedLong(ByteUtil.readDWORD(mapped, 24));
+
+        return ByteUtil.readDWORD(mapped, 28) == size && recordsOffset == HEADER_LENGTH + entryCount *
+                INDEX_ENTRY_LENGTH && stringOffsetsOffset >= recordsOffset &&
+                stringsOffset == stringOffsetsOffset + stringCount * 4 && stringsOffset <= size;
+    }
+
+    /**
+     * Returns the summary of a class, from the cache if a class with the same bytes was summarized before, or by
+     * parsing the class (up to {@link ParseLevel#MEMBERS}) and adding its summary to the cache otherwise.
+     *
+     * @param classBytes The raw bytes of a class file
+     * @return The summary of the class
+     * @throws ClassFormatError If the class is not cached and could not be parsed
+     */
+    public ClassSummary summarize(byte[] classBytes) throws ClassFormatError {
+        final ContentHash hash = ContentHash.of(classBytes);
+        final ClassSummary cached = this.get(hash);
+        if (cached != null) return cached;
+
+        final ClassSummary summary = ClassSummary.of(ClassFile.fromBytes(classBytes, PARSE_OPTIONS));
+        this.added.put(hash, summary);
+        return summary;
+    }
+
+    /**
+     * Looks up the summary of a class by the hash of its bytes, see {@link ContentHash#of(byte[])}.
+     *
+     * @param hash The hash of the raw bytes of the class
+     * @return The cached summary, or {@code null} if there is none. A damaged entry of the cache file is a miss.
+     */
+    public ClassSummary get(ContentHash hash) {
+        ClassSummary summary = this.added.get(hash);
+        if (summary == null) summary = this.getMapped(hash);
+
+        if (summary == null) this.missCount.increment();
+        else this.hitCount.increment();
+
+        return summary;
+    }
+
+    /**
+     * Adds a summary to the cache, to be written on the next {@link #save()}. Summaries of classes which are already
+     * cached are ignored.
+     *
+     * @param hash The hash of the raw bytes of the class
+     * @param summary The summary of the class
+     */
+    public void put(ContentHash hash, ClassSummary summary) {
+        if (this.findMapped(hash) < 0) this.added.putIfAbsent(hash, summary);
+    }
+
+    /**
+     * @return The amount of cached summaries, including those not saved yet
+     */
+    public int size() {
+        return this.entryCount + this.added.size();
+    }
+
+    /**
+     * @return The amount of lookups which found a summary since the cache was opened
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * @return The amount of lookups which found no summary since the cache was opened
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * @return The file the cache was opened from, and is saved to
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Writes every summary to the file the cache was opened from, if any summary was added since it was opened.
+     * This cache keeps serving lookups from the old mapping; open the file again to read what was saved.
+     *
+     * @throws IOException If the file could not be written, in which case the old file is left untouched
+     */
+    public void save() throws IOException {
+        if (!this.added.isEmpty()) this.save(this.file);
+    }
+
+    /**
+     * Writes every summary to a file, through a temporary file in the same directory which then replaces it.
+     *
+     * @param target The file to write to
+     * @throws IOException If the file could not be written
+     * @throws IllegalStateException If the cache file would exceed 2 GB, the largest file which can be mapped at once
+     */
+    public void save(Path target) throws IOException {
+        final HashMap<ContentHash, ClassSummary> summaries = new HashMap<>(this.size() * 2);
+
+        for (int entry = 0; entry < this.entryCount; entry++) {
+            final int indexOffset = HEADER_LENGTH + entry * INDEX_ENTRY_LENGTH;
+            final ContentHash hash = new ContentHash(ByteUtil.readQWORD(this.mapped, indexOffset),
+                    ByteUtil.readQWORD(this.mapped, indexOffset + 8));
+
+            final ClassSummary summary = this.decode(indexOffset);
+            if (summary != null) summaries.put(hash, summary);     // Damaged entries are dropped
+        }
+
+        summaries.putAll(this.added);
+
+        final List<ContentHash> hashes = new ArrayList<>(summaries.keySet());
+        hashes.sort((first, second) -> ContentHash.compare(first.getHigh(), first.getLow(), second.getHigh(),
+                second.getLow()));
+
+        final StringTable stringTable = new StringTable();
+        final Output records = new Output(1 << 16);
+        final Output index = new Output(HEADER_LENGTH + hashes.size() * INDEX_ENTRY_LENGTH);
+        final long recordsOffset = HEADER_LENGTH + (long) hashes.size() * INDEX_ENTRY_LENGTH;
+
+        index.buffer.position(HEADER_LENGTH);   // The header is written once every length is known
+
+        for (ContentHash hash : hashes) {
+            final int recordOffset = records.buffer.position();
+            writeRecord(records, summaries.get(hash), stringTable);
+
+            index.ensure(INDEX_ENTRY_LENGTH).putLong(hash.getHigh()).putLong(hash.getLow())
+                    .putInt((int) recordsOffset + recordOffset).putInt(records.buffer.position() - recordOffset);
+        }
+
+        final long stringOffsetsOffset = recordsOffset + records.buffer.position();
+        final long stringsOffset = stringOffsetsOffset + stringTable.offsets.buffer.position();
+        final long fileLength = stringsOffset + stringTable.bytes.buffer.position();
+        if (fileLength > Integer.MAX_VALUE) throw new IllegalStateException("cache file would exceed 2 GB");
+
+        index.buffer.putInt(0, MAGIC).putShort(4, (short) VERSION).putShort(6, (short) 0).putInt(8, hashes.size())
+                .putInt(12, stringTable.size()).putInt(16, (int) recordsOffset).putInt(20, (int) stringOffsetsOffset)
+                .putInt(24, (int) stringsOffset).putInt(28, (int) fileLength);
+
+        final Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                final ByteBuffer[] sections = {index.buffer.flip(), records.buffer.flip(),
+                        stringTable.offsets.buffer.flip(), stringTable.bytes.buffer.flip()};
+                while (sections[sections.length - 1].hasRemaining()) channel.write(sections);
+            }
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeRecord(Output out, ClassSummary summary, StringTable stringTable) {
+        out.ensure(10).putShort((short) summary.getAccessFlags()).putInt(stringTable.id(summary.getName()))
+                .putInt(summary.getSuperName() == null ? NO_SUPERCLASS : stringTable.id(summary.getSuperName()));
+        writeStrings(out, summary.getInterfaces(), stringTable);
+        writeMembers(out, summary.getFields(), stringTable);
+        writeMembers(out, summary.getMethods(), stringTable);
+        writeStrings(out, summary.getReferencedClasses(), stringTable);
+    }
+
+    private static void writeStrings(Output out, List<String> strings, StringTable stringTable) {
+        final ByteBuffer buffer = out.ensure(2 + strings.size() * 4).putShort((short) strings.size());
+        for (String string : strings) buffer.putInt(stringTable.id(string));
+    }
+
+    private static void writeMembers(Output out, List<MemberSummary> members, StringTable stringTable) {
+        final ByteBuffer buffer = out.ensure(2 + members.size() * 10).putShort((short) members.size());
+
+        for (MemberSummary member : members) {
+            buffer.putShort((short) member.getAccessFlags()).putInt(stringTable.id(member.getName()))
+                    .putInt(stringTable.id(member.getDescriptor()));
+        }
+    }
+
+    private ClassSummary getMapped(ContentHash hash) {
+        final int entry = this.findMapped(hash);
+        return entry < 0 ? null : this.decode(HEADER_LENGTH + entry * INDEX_ENTRY_LENGTH);
+    }
+
+    /**
+     * Binary searches the index of the cache file
+     *
+     * @return The index of the entry, or -1 if the hash is not in the file
+     */
+    private int findMapped(ContentHash hash) {
+        int low = 0;
+        int high = this.entryCount - 1;
+
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int offset = HEADER_LENGTH + middle * INDEX_ENTRY_LENGTH;
+            final int order = ContentHash.compare(ByteUtil.readQWORD(this.mapped, offset),
+                    ByteUtil.readQWORD(this.mapped, offset + 8), hash.getHigh(), hash.getLow());
+
+            if (order < 0) low = middle + 1;
+            else if (order > 0) high = middle - 1;
+            else return middle;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return The summary of the index entry at {@code indexOffset}, or {@code null} if its record is damaged
+     */
+    private ClassSummary decode(int indexOffset) {
+        final int recordOffset = ByteUtil.readDWORD(this.mapped, indexOffset + 16);
+        final int recordEnd = recordOffset + ByteUtil.readDWORD(this.mapped, indexOffset + 20);
+
+        try {
+            int offset = recordOffset;
+            final int accessFlags = ByteUtil.readWORD(this.mapped, offset);
+            final String name = this.string(ByteUtil.readDWORD(this.mapped, offset + 2));
+            final int superId = ByteUtil.readDWORD(this.mapped, offset + 6);
+            final String superName = superId == NO_SUPERCLASS ? null : this.string(superId);
+            offset += 10;
+
+            final String[] interfaces = new String[ByteUtil.readWORD(this.mapped, offset)];
+            offset = this.readStrings(offset + 2, interfaces);
+            final MemberSummary[] fields = new MemberSummary[ByteUtil.readWORD(this.mapped, offset)];
+            offset = this.readMembers(offset + 2, fields);
+            final MemberSummary[] methods = new MemberSummary[ByteUtil.readWORD(this.mapped, offset)];
+            offset = this.readMembers(offset + 2, methods);
+            final String[] referencedClasses = new String[ByteUtil.readWORD(this.mapped, offset)];
+            offset = this.readStrings(offset + 2, referencedClasses);
+
+            if (offset != recordEnd) return null;
+            return new ClassSummary(name, superName, interfaces, accessFlags, fields, methods, referencedClasses);
+        } catch (RuntimeException | ClassFormatError exception) {   // Out of bounds offsets or IDs, or bad strings
+            return null;
+        }
+    }
+
+    private int readStrings(int offset, String[] strings) {
+        for (int string = 0; string < strings.length; string++, offset += 4) {
+            strings[string] = this.string(ByteUtil.readDWORD(this.mapped, offset));
+        }
+
+        return offset;
+    }
+
+    private int readMembers(int offset, MemberSummary[] members) {
+        for (int member = 0; member < members.length; member++, offset += 10) {
+            members[member] = new MemberSummary(ByteUtil.readWORD(this.mapped, offset),
+                    this.string(ByteUtil.readDWORD(this.mapped, offset + 2)),
+                    this.string(ByteUtil.readDWORD(this.mapped, offset + 6)));
+        }
+
+        return offset;
+    }
+
+    private String string(int id) {
+        String string = this.strings[id];
+
+        if (string == null) {
+            final int offset = this.stringsOffset + ByteUtil.readDWORD(this.mapped, this.stringOffsetsOffset + id * 4);
+            string = ModifiedUTF8.decode(this.mapped, offset + 2, ByteUtil.readWORD(this.mapped, offset));
+            this.strings[id] = string;
+        }
+
+        return string;
+    }
+
+    /**
+     * The strings of a cache file being written, each stored once
+     */
+    private static final class StringTable {
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private final Output offsets = new Output(1 << 12);
+        private final Output bytes = new Output(1 << 16);
+
+        private int id(String string) {
+            final Integer existing = this.ids.get(string);
+            if (existing != null) return existing;
+
+            final byte[] encoded = ModifiedUTF8.encode(string);
+            final int id = this.ids.size();
+
+            this.ids.put(string, id);
+            this.offsets.ensure(4).putInt(this.bytes.buffer.position());
+            this.bytes.ensure(2 + encoded.length).putShort((short) encoded.length).put(encoded);
+            return id;
+        }
+
+        private int size() {
+            return this.ids.size();
+        }
+    }
+
+    /**
+     * A growable big-endian buffer, as a {@link java.io.DataOutputStream} costs a synchronized call per value
+     */
+    private static final class Output {
+        private ByteBuffer buffer;
+
+        private Output(int capacity) {
+            this.buffer = ByteBuffer.allocate(capacity);
+        }
+
+        /**
+         * @return The buffer, with room for at least {@code length} more bytes
+         */
+        private ByteBuffer ensure(int length) {
+            if (this.buffer.remaining() < length) {
+                final long capacity = Math.max(this.buffer.capacity() * 2L, this.buffer.position() + (long) length);
+                if (capacity > Integer.MAX_VALUE) throw new IllegalStateException("cache file would exceed 2 GB");
+
+                final ByteBuffer grown = ByteBuffer.allocate((int) capacity);
+                this.buffer = grown.put(this.buffer.flip());
+            }
+
+            return this.buffer;
+        }
+    }
+}
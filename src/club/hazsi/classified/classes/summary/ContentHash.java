@@ -0,0 +1,139 @@
+package club.hazsi.classified.classes.summary;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * A 128-bit hash of the raw bytes of a class file, used by {@link ClassSummaryCache} to recognize classes it has seen
+ * before. The hash is MurmurHash3 (the x64 128-bit variant), which is not cryptographic but reads 16 bytes per step
+ * and is several times faster than any message digest; hashing a class costs a fraction of parsing it. With 128 bits,
+ * accidental collisions are not a concern even for millions of classes, but a cache keyed by this hash should not be
+ * trusted with class files crafted by an adversary.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class ContentHash {
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long high;
+    private final long low;
+
+    /**
+     * @param high The upper 64 bits of the hash
+     * @param low The lower 64 bits of the hash
+     */
+    public ContentHash(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param bytes The bytes to hash
+     * @return The hash of every byte of {@code bytes}
+     */
+    public static ContentHash of(byte[] bytes) {
+        return of(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes The array holding the bytes to hash
+     * @param offset The index of the first byte to hash
+     * @param length The amount of bytes to hash
+     * @return The hash of the range
+     */
+    @SuppressWarnings("fallthrough")
+    public static ContentHash of(byte[] bytes, int offset, int length) {
+        final int blockEnd = offset + (length & ~15);
+        long h1 = 0;
+        long h2 = 0;
+
+        for (int index = offset; index < blockEnd; index += 16) {
+            h1 ^= mixK1((long) LONG_VIEW.get(bytes, index));
+            h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+            h2 ^= mixK2((long) LONG_VIEW.get(bytes, index + 8));
+            h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {      // The remaining bytes, little-endian, falling through like the reference code
+            case 15: k2 ^= (long) (bytes[blockEnd + 14] & 0xFF) << 48;
+            case 14: k2 ^= (long) (bytes[blockEnd + 13] & 0xFF) << 40;
+            case 13: k2 ^= (long) (bytes[blockEnd + 12] & 0xFF) << 32;
+            case 12: k2 ^= (long) (bytes[blockEnd + 11] & 0xFF) << 24;
+            case 11: k2 ^= (long) (bytes[blockEnd + 10] & 0xFF) << 16;
+            case 10: k2 ^= (long) (bytes[blockEnd + 9] & 0xFF) << 8;
+            case 9: k2 ^= bytes[blockEnd + 8] & 0xFF;
+                h2 ^= mixK2(k2);
+            case 8: k1 ^= (long) (bytes[blockEnd + 7] & 0xFF) << 56;
+            case 7: k1 ^= (long) (bytes[blockEnd + 6] & 0xFF) << 48;
+            case 6: k1 ^= (long) (bytes[blockEnd + 5] & 0xFF) << 40;
+            case 5: k1 ^= (long) (bytes[blockEnd + 4] & 0xFF) << 32;
+            case 4: k1 ^= (long) (bytes[blockEnd + 3] & 0xFF) << 24;
+            case 3: k1 ^= (long) (bytes[blockEnd + 2] & 0xFF) << 16;
+            case 2: k1 ^= (long) (bytes[blockEnd + 1] & 0xFF) << 8;
+            case 1: k1 ^= bytes[blockEnd] & 0xFF;
+                h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return new ContentHash(h1, h2);
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * Orders hashes as unsigned 128-bit numbers, the order of the index of a cache file
+     */
+    static int compare(long high, long low, long otherHigh, long otherLow) {
+        final int order = Long.compareUnsigned(high, otherHigh);
+        return order != 0 ? order : Long.compareUnsigned(low, otherLow);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof ContentHash && this.high == ((ContentHash) other).high &&
+                this.low == ((ContentHash) other).low);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) this.low;      // Already well mixed
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", this.high, this.low);
+    }
+}
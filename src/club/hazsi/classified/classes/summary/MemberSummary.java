@@ -0,0 +1,47 @@
+package club.hazsi.classified.classes.summary;
+
+import lombok.Getter;
+
+/**
+ * The access flags, name and descriptor of a field or method, as held by a {@link ClassSummary}.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+@Getter
+public final class MemberSummary {
+    private final int accessFlags;
+    private final String name;
+    private final String descriptor;
+
+    /**
+     * @param accessFlags The access flags bitfield of the member
+     * @param name The name of the member
+     * @param descriptor The field or method descriptor of the member
+     */
+    public MemberSummary(int accessFlags, String name, String descriptor) {
+        this.accessFlags = accessFlags;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof MemberSummary)) return false;
+
+        final MemberSummary member = (MemberSummary) other;
+        return this.accessFlags == member.accessFlags && this.name.equals(member.name) &&
+                this.descriptor.equals(member.descriptor);
+    }
+
+    @Override
+    public int hashCode() {
+        return (this.name.hashCode() * 31 + this.descriptor.hashCode()) * 31 + this.accessFlags;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + this.descriptor;
+    }
+}
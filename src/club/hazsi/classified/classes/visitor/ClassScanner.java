@@ -0,0 +1,140 @@
+package club.hazsi.classified.classes.visitor;
+
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
+import club.hazsi.classified.util.ByteUtil;
+import club.hazsi.classified.util.ClassUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Walks the raw bytes of a class once and reports its structure to a {@link ClassVisitor}. The scanner keeps no state
+ * besides a single offset cursor, allocates nothing, and never decodes a string or builds a constant pool entry;
+ * sections the visitor chooses to skip are stepped over using their declared lengths.
+ *
+ * @see ClassVisitor
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ClassScanner {
+
+    /**
+     * Scans a class held in a byte array.
+     *
+     * @param classBytes A byte array composing the class file to be scanned
+     * @param visitor The visitor to report the structure of the class to
+     * @throws ClassFormatError If the provided bytes are not a class, or are malformed
+     */
+    public static void scan(byte[] classBytes, ClassVisitor visitor) throws ClassFormatError {
+        scan(ByteBuffer.wrap(classBytes), visitor);
+    }
+
+    /**
+     * Scans a class held in a buffer, from index 0 up to its limit. The buffer may be direct or memory-mapped; its
+     * position is ignored and left untouched.
+     *
+     * @param classBuffer A big-endian buffer composing the class file to be scanned
+     * @param visitor The visitor to report the structure of the class to
+     * @throws ClassFormatError If the provided bytes are not a class, or are malformed
+     */
+    public static void scan(ByteBuffer classBuffer, ClassVisitor visitor) throws ClassFormatError {
+        if (!ClassUtil.isClassFile(classBuffer)) throw new ClassFormatError("not a valid class!");
+
+        try {
+            scanClass(classBuffer, visitor);
+        } catch (IndexOutOfBoundsException e) {
+            throw new ClassFormatError("truncated class file");
+        }
+    }
+
+    private static void scanClass(ByteBuffer classBuffer, ClassVisitor visitor) {
+        final int constantPoolCount = ByteUtil.readWORD(classBuffer, 8);
+        final boolean visitConstants = visitor.visitHeader(classBuffer,
+                ByteUtil.readWORD(classBuffer, 4), ByteUtil.readWORD(classBuffer, 6), constantPoolCount);
+
+        int offset = 10;
+
+        for (int index = 1; index < constantPoolCount; index++) {
+            final int tag = ByteUtil.readByte(classBuffer, offset);
+            final ClassConstantPoolEntryType type = ClassConstantPoolEntryType.getByValue(tag);
+
+            if (type == ClassConstantPoolEntryType.UNKNOWN) {
+                throw new ClassFormatError("invalid constant pool entry type: " + tag);
+            }
+
+            if (visitConstants) visitor.visitConstant(index, tag, offset);
+
+            offset += type.getEntrySize(classBuffer, offset);
+            if (type.isWide()) index++;
+        }
+
+        final int interfaceCount = ByteUtil.readWORD(classBuffer, offset + 6);
+        visitor.visitClass(ByteUtil.readWORD(classBuffer, offset), ByteUtil.readWORD(classBuffer, offset + 2),
+                ByteUtil.readWORD(classBuffer, offset + 4), interfaceCount);
+
+        offset += 8;
+
+        for (int index = 0; index < interfaceCount; index++, offset += 2) {
+            visitor.visitInterface(ByteUtil.readWORD(classBuffer, offset));
+        }
+
+        offset = scanMembers(classBuffer, offset, visitor, false);
+        offset = scanMembers(classBuffer, offset, visitor, true);
+
+        final int attributeCount = ByteUtil.readWORD(classBuffer, offset);
+        scanAttributes(classBuffer, offset + 2, attributeCount, visitor.visitClassAttributes(attributeCount), visitor);
+
+        visitor.visitEnd();
+    }
+
+    /**
+     * Walks a field or method table, both of which share the same layout
+     *
+     * @return The offset directly after the table
+     */
+    private static int scanMembers(ByteBuffer classBuffer, int offset, ClassVisitor visitor, boolean methods) {
+        final int memberCount = ByteUtil.readWORD(classBuffer, offset);
+        final boolean visitMembers = methods ? visitor.visitMethods(memberCount) : visitor.visitFields(memberCount);
+
+        offset += 2;
+
+        for (int index = 0; index < memberCount; index++) {
+            final int attributeCount = ByteUtil.readWORD(classBuffer, offset + 6);
+            boolean visitAttributes = false;
+
+            if (visitMembers) {
+                final int accessFlags = ByteUtil.readWORD(classBuffer, offset);
+                final int nameIndex = ByteUtil.readWORD(classBuffer, offset + 2);
+                final int descriptorIndex = ByteUtil.readWORD(classBuffer, offset + 4);
+
+                visitAttributes = methods ?
+                        visitor.visitMethod(accessFlags, nameIndex, descriptorIndex, attributeCount) :
+                        visitor.visitField(accessFlags, nameIndex, descriptorIndex, attributeCount);
+            }
+
+            offset = scanAttributes(classBuffer, offset + 8, attributeCount, visitAttributes, visitor);
+        }
+
+        return offset;
+    }
+
+    /**
+     * Walks a list of attributes, stepping over each payload using its declared length
+     *
+     * @return The offset directly after the last attribute
+     */
+    private static int scanAttributes(ByteBuffer classBuffer, int offset, int attributeCount, boolean visit,
+                                      ClassVisitor visitor) {
+        for (int index = 0; index < attributeCount; index++) {
+            final int length = ByteUtil.readDWORD(classBuffer, offset + 2);
+            if (length < 0) {
+                throw new ClassFormatError("attribute length out of range: " + Integer.toUnsignedLong(length));
+            }
+
+            if (visit) visitor.visitAttribute(ByteUtil.readWORD(classBuffer, offset), offset + 6, length);
+
+            offset += 6 + length;
+        }
+
+        return offset;
+    }
+}
@@ -0,0 +1,158 @@
+package club.hazsi.classified.classes.visitor;
+
+import club.hazsi.classified.classes.ClassFile;
+import club.hazsi.classified.classes.components.constantpool.ClassConstantPoolEntryType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A push-style ("event") alternative to {@link ClassFile} for bulk scans over many classes. A {@link ClassScanner}
+ * walks the raw bytes of a class once, from start to end, and calls back into a ClassVisitor for every structure it
+ * passes. No object tree is ever built; callbacks receive constant pool indexes, offsets into the class buffer and
+ * other primitives, and the visitor decides what (if anything) to read from the buffer itself.<br><br>
+ *
+ * Callbacks are made in class file order:
+ *
+ * <pre>{@code
+ * visitHeader
+ *     visitConstant*
+ * visitClass
+ *     visitInterface*
+ * visitFields
+ *     (visitField visitAttribute*)*
+ * visitMethods
+ *     (visitMethod visitAttribute*)*
+ * visitClassAttributes
+ *     visitAttribute*
+ * visitEnd
+ * }</pre>
+ *
+ * Every method has an empty default implementation, so implementations only override what they need. Callbacks that
+ * return a {@code boolean} allow the visitor to skip whatever follows them: returning {@code false} from
+ * {@link #visitMethod(int, int, int, int)}, for example, steps over the method's attributes (including its code)
+ * using their declared lengths, without a single callback being made for them.
+ *
+ * @see ClassScanner
+ * @author Hazsi
+ * @since 1.0
+ */
+public abstract class ClassVisitor {
+
+    /**
+     * Called first, once the magic bytes have been checked.
+     *
+     * @param classBuffer The buffer holding the class bytes, which all offsets given to this visitor are relative to.
+     *                    It must not be modified.
+     * @param minorVersion The minor version of the class
+     * @param majorVersion The major version of the class
+     * @param constantPoolCount The {@code constant_pool_count} of the class, which is the amount of slots in the
+     *                          constant pool plus one
+     * @return Whether {@link #visitConstant(int, int, int)} should be called for the entries of the constant pool.
+     * The pool is walked either way, as it does not declare its byte length.
+     */
+    public boolean visitHeader(ByteBuffer classBuffer, int minorVersion, int majorVersion, int constantPoolCount) {
+        return true;
+    }
+
+    /**
+     * Called for every entry of the constant pool, in order. The second slot of long and double entries is skipped.
+     *
+     * @param index The constant pool index of the entry
+     * @param tag The tag of the entry, see {@link ClassConstantPoolEntryType#getByValue(int)}
+     * @param offset The offset of the entry's tag byte within the class buffer
+     */
+    public void visitConstant(int index, int tag, int offset) {
+    }
+
+    /**
+     * Called after the constant pool with the class declaration.
+     *
+     * @param accessFlags The access flags bitfield of the class
+     * @param thisClassIndex The constant pool index of the class entry of this class
+     * @param superClassIndex The constant pool index of the class entry of the superclass, or 0 if there is none
+     * @param interfaceCount The amount of interfaces which will be passed to {@link #visitInterface(int)}
+     */
+    public void visitClass(int accessFlags, int thisClassIndex, int superClassIndex, int interfaceCount) {
+    }
+
+    /**
+     * Called for every direct superinterface of the class.
+     *
+     * @param classIndex The constant pool index of the class entry of the interface
+     */
+    public void visitInterface(int classIndex) {
+    }
+
+    /**
+     * Called once before the field table.
+     *
+     * @param fieldCount The amount of fields declared by the class
+     * @return Whether {@link #visitField(int, int, int, int)} should be called for the fields of the class
+     */
+    public boolean visitFields(int fieldCount) {
+        return true;
+    }
+
+    /**
+     * Called for every field of the class.
+     *
+     * @param accessFlags The access flags bitfield of the field
+     * @param nameIndex The constant pool index of the name of the field
+     * @param descriptorIndex The constant pool index of the descriptor of the field
+     * @param attributeCount The amount of attributes the field has
+     * @return Whether {@link #visitAttribute(int, int, int)} should be called for the attributes of the field
+     */
+    public boolean visitField(int accessFlags, int nameIndex, int descriptorIndex, int attributeCount) {
+        return true;
+    }
+
+    /**
+     * Called once before the method table.
+     *
+     * @param methodCount The amount of methods declared by the class
+     * @return Whether {@link #visitMethod(int, int, int, int)} should be called for the methods of the class
+     */
+    public boolean visitMethods(int methodCount) {
+        return true;
+    }
+
+    /**
+     * Called for every method of the class.
+     *
+     * @param accessFlags The access flags bitfield of the method
+     * @param nameIndex The constant pool index of the name of the method
+     * @param descriptorIndex The constant pool index of the descriptor of the method
+     * @param attributeCount The amount of attributes the method has
+     * @return Whether {@link #visitAttribute(int, int, int)} should be called for the attributes of the method,
+     * which include its Code attribute
+     */
+    public boolean visitMethod(int accessFlags, int nameIndex, int descriptorIndex, int attributeCount) {
+        return true;
+    }
+
+    /**
+     * Called once before the attributes of the class itself.
+     *
+     * @param attributeCount The amount of attributes the class has
+     * @return Whether {@link #visitAttribute(int, int, int)} should be called for the attributes of the class
+     */
+    public boolean visitClassAttributes(int attributeCount) {
+        return true;
+    }
+
+    /**
+     * Called for every attribute of the field, method or class most recently visited.
+     *
+     * @param nameIndex The constant pool index of the name of the attribute
+     * @param payloadOffset The offset of the first byte of the attribute's payload within the class buffer
+     * @param length The length of the attribute's payload, in bytes
+     */
+    public void visitAttribute(int nameIndex, int payloadOffset, int length) {
+    }
+
+    /**
+     * Called last, once the whole class has been walked.
+     */
+    public void visitEnd() {
+    }
+}
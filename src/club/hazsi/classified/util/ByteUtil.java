@@ -1,12 +1,31 @@
 package club.hazsi.classified.util;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 /**
- * A collection of simple bitwise logic utilities to read raw unsigned bytes into friendly Java formats.
+ * A collection of simple bitwise logic utilities to read raw unsigned bytes into friendly Java formats. Each read is
+ * provided for both byte arrays and {@link ByteBuffer}s, and the matching writes are provided for buffers.
+ * Multi-byte reads go through big-endian views (a {@link VarHandle} for arrays, the absolute getters of the buffer
+ * otherwise), which the JIT compiles to a single load rather than a byte-by-byte shift and mask.<br><br>
+ *
+ * The buffer variants always use absolute indexes, so the position of the buffer is never read or moved. Buffers
+ * are expected to be in big-endian byte order, the default order of any new or sliced {@link ByteBuffer} and the byte
+ * order of the class file format.
  *
  * @author Hazsi
  * @since 1.0
  */
 public final class ByteUtil {
+    private static final VarHandle SHORT_VIEW =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
     /**
      * Reads a single unsigned byte as a 4-bit integer
@@ -27,8 +46,7 @@ public final class ByteUtil {
      * @since 1.0
      */
     public static int readWORD(byte[] bytes, int startingIndex) {
-        return (readByte(bytes, startingIndex) << 8) |
-                readByte(bytes, startingIndex + 1);
+        return ((short) SHORT_VIEW.get(bytes, startingIndex)) & 0xFFFF;
     }
 
     /**
@@ -39,8 +57,7 @@ public final class ByteUtil {
      * @since 1.0
      */
     public static int readDWORD(byte[] bytes, int startingIndex) {
-        return (readWORD(bytes, startingIndex) << 16) |
-                readWORD(bytes, startingIndex + 2);
+        return (int) INT_VIEW.get(bytes, startingIndex);
     }
 
     /**
@@ -51,7 +68,108 @@ public final class ByteUtil {
      * @since 1.0
      */
     public static long readQWORD(byte[] bytes, int startingIndex) {
-        return ((long) readDWORD(bytes, startingIndex) << 32) |
-                (long) readDWORD(bytes, startingIndex + 4);
+        return (long) LONG_VIEW.get(bytes, startingIndex);
+    }
+
+    /**
+     * Reads a single unsigned byte from a buffer, see {@link #readByte(byte[], int)}
+     * @param buffer The big-endian buffer to read from
+     * @param index The absolute index of the byte to read at
+     * @return The integer value of the unsigned byte
+     */
+    public static int readByte(ByteBuffer buffer, int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    /**
+     * Reads two unsigned bytes from a buffer, see {@link #readWORD(byte[], int)}
+     * @param buffer The big-endian buffer to read from
+     * @param startingIndex The absolute index of the byte to start reading at
+     * @return The integer value of the unsigned bytes
+     */
+    public static int readWORD(ByteBuffer buffer, int startingIndex) {
+        return buffer.getShort(startingIndex) & 0xFFFF;
+    }
+
+    /**
+     * Reads four bytes from a buffer, see {@link #readDWORD(byte[], int)}
+     * @param buffer The big-endian buffer to read from
+     * @param startingIndex The absolute index of the byte to start reading at
+     * @return The integer value of the bytes
+     */
+    public static int readDWORD(ByteBuffer buffer, int startingIndex) {
+        return buffer.getInt(startingIndex);
+    }
+
+    /**
+     * Reads eight bytes from a buffer, see {@link #readQWORD(byte[], int)}
+     * @param buffer The big-endian buffer to read from
+     * @param startingIndex The absolute index of the byte to start reading at
+     * @return The long value of the bytes
+     */
+    public static long readQWORD(ByteBuffer buffer, int startingIndex) {
+        return buffer.getLong(startingIndex);
+    }
+
+    /**
+     * Writes the lower 16 bits of an integer as two big-endian bytes, see {@link #readWORD(ByteBuffer, int)}
+     * @param buffer The big-endian buffer to write to
+     * @param startingIndex The absolute index of the byte to start writing at
+     * @param value The value to write
+     */
+    public static void writeWORD(ByteBuffer buffer, int startingIndex, int value) {
+        buffer.putShort(startingIndex, (short) value);
+    }
+
+    /**
+     * Writes an integer as four big-endian bytes, see {@link #readDWORD(ByteBuffer, int)}
+     * @param buffer The big-endian buffer to write to
+     * @param startingIndex The absolute index of the byte to start writing at
+     * @param value The value to write
+     */
+    public static void writeDWORD(ByteBuffer buffer, int startingIndex, int value) {
+        buffer.putInt(startingIndex, value);
+    }
+
+    /**
+     * Compares two ranges of bytes, which may belong to the same buffer. Array-backed buffers are compared without
+     * allocating, other buffers through slices; both use the JDK's vectorized mismatch.
+     * @param buffer The first buffer
+     * @param offset The absolute index of the first byte of the range within {@code buffer}
+     * @param otherBuffer The second buffer
+     * @param otherOffset The absolute index of the first byte of the range within {@code otherBuffer}
+     * @param length The amount of bytes to compare
+     * @return Whether both ranges hold the same bytes
+     */
+    public static boolean rangeEquals(ByteBuffer buffer, int offset, ByteBuffer otherBuffer, int otherOffset,
+                                      int length) {
+        if (buffer.hasArray() && otherBuffer.hasArray()) {
+            final int start = buffer.arrayOffset() + offset;
+            final int otherStart = otherBuffer.arrayOffset() + otherOffset;
+            return Arrays.equals(buffer.array(), start, start + length, otherBuffer.array(), otherStart,
+                    otherStart + length);
+        }
+
+        return buffer.slice(offset, length).equals(otherBuffer.slice(otherOffset, length));
+    }
+
+    /**
+     * Finds the first byte at which two ranges of bytes differ, see {@link #rangeEquals}
+     * @param buffer The first buffer
+     * @param offset The absolute index of the first byte of the range within {@code buffer}
+     * @param otherBuffer The second buffer
+     * @param otherOffset The absolute index of the first byte of the range within {@code otherBuffer}
+     * @param length The amount of bytes to compare
+     * @return The index of the first differing byte relative to the start of the ranges, or -1 if they are equal
+     */
+    public static int mismatch(ByteBuffer buffer, int offset, ByteBuffer otherBuffer, int otherOffset, int length) {
+        if (buffer.hasArray() && otherBuffer.hasArray()) {
+            final int start = buffer.arrayOffset() + offset;
+            final int otherStart = otherBuffer.arrayOffset() + otherOffset;
+            return Arrays.mismatch(buffer.array(), start, start + length, otherBuffer.array(), otherStart,
+                    otherStart + length);
+        }
+
+        return buffer.slice(offset, length).mismatch(otherBuffer.slice(otherOffset, length));
     }
 }
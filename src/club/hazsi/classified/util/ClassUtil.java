@@ -1,6 +1,10 @@
 package club.hazsi.classified.util;
 
-import java.io.*;
+import club.hazsi.classified.agent.ClassCaptureAgent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author Hazsi
@@ -25,18 +29,50 @@ public final class ClassUtil {
     }
 
     /**
-     * Converts a class into an array of bytes comprising the class file.
+     * Checks if the contents of a buffer, from index 0 up to its limit, make up a Java class file by checking for the
+     * presence of the {@code 0xCAFEBABE} magic bytes. The same caveats as {@link #isClassFile(byte[])} apply.
      *
-     * @param clazz The class to retrieve data from
+     * @param classBuffer The big-endian buffer to check
+     * @return Whether the provided buffer holds a class file, without checking in depth for validity
+     */
+    public static boolean isClassFile(ByteBuffer classBuffer) {
+        return classBuffer.limit() >= 4 && ByteUtil.readDWORD(classBuffer, 0) == 0xCAFEBABE;
+    }
+
+    /**
+     * Returns the class file of a loaded class. If the {@link ClassCaptureAgent} is installed and captured the class,
+     * the captured bytes are returned, which are exactly the bytes the class was defined with. Otherwise, the class
+     * file is read from the resources of the class, as {@code /java/lang/String.class} for example, which returns the
+     * bytes on disk rather than those of the loaded class if an agent transformed it.
+     *
+     * @param clazz The class to retrieve the class file of
      * @return The class file corresponding to {@code clazz}, in byte array form
-     * @throws IOException If an IO error occurs while reading and converting the raw class data
+     * @throws IOException If the class file could not be found or read. Arrays, primitive types and hidden classes
+     * have no class file to be found, and neither do classes defined at runtime which were not captured.
      */
     public static byte[] getClassBytes(Class<?> clazz) throws IOException {
-        try (ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectStream = new ObjectOutputStream(byteArrayStream)) {
+        final byte[] capturedBytes = ClassCaptureAgent.getCapturedBytes(clazz);
+        if (capturedBytes != null) return capturedBytes;
+
+        if (clazz.isArray() || clazz.isPrimitive() || clazz.isHidden()) {
+            throw new IOException("no class file exists for " + clazz.getName());
+        }
+
+        final String resourceName = clazz.getName().replace('.', '/') + ".class";
+
+        // Class.getResourceAsStream searches the module of the class, which also finds classes of named modules
+        InputStream classStream = clazz.getResourceAsStream("/" + resourceName);
+
+        if (classStream == null) {
+            final ClassLoader loader = clazz.getClassLoader();
+            classStream = loader == null ? ClassLoader.getSystemResourceAsStream(resourceName) :
+                    loader.getResourceAsStream(resourceName);
+        }
+
+        if (classStream == null) throw new IOException("class file of " + clazz.getName() + " not found");
 
-            objectStream.writeObject(clazz);
-            return byteArrayStream.toByteArray();
+        try (InputStream stream = classStream) {
+            return stream.readAllBytes();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package club.hazsi.classified.util;
+
+/**
+ * A minimal open addressing hash map from {@code long} keys to positive {@code int} values, used to index constant
+ * pool entries and class members without boxing either. Since constant pool indexes and the positions stored by
+ * callers are never 0, a value of 0 marks an empty slot and is returned for missing keys.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class LongIntMap {
+    private long[] keys = new long[64];
+    private int[] values = new int[64];
+    private int size;
+
+    /**
+     * @return The value mapped to {@code key}, or 0 if there is none
+     */
+    public int get(long key) {
+        final int mask = this.keys.length - 1;
+
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final int value = this.values[slot];
+            if (value == 0 || this.keys[slot] == key) return value;
+        }
+    }
+
+    /**
+     * Maps {@code key} to {@code value}, replacing any previous value
+     *
+     * @param value The value, which must not be 0
+     */
+    public void put(long key, int value) {
+        if ((this.size + 1) * 2 > this.keys.length) this.resize();
+
+        final int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (this.values[slot] != 0 && this.keys[slot] != key) slot = (slot + 1) & mask;
+        if (this.values[slot] == 0) this.size++;
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+    }
+
+    /**
+     * Maps {@code key} to {@code value}, unless {@code key} is already mapped
+     *
+     * @param value The value, which must not be 0
+     */
+    public void putIfAbsent(long key, int value) {
+        if (this.get(key) == 0) this.put(key, value);
+    }
+
+    /**
+     * @return The amount of keys in the map
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private void resize() {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new int[oldValues.length * 2];
+        this.size = 0;
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldValues[slot] != 0) this.put(oldKeys[slot], oldValues[slot]);
+        }
+    }
+
+    private static int hash(long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;     // Fibonacci hashing spreads packed indexes
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
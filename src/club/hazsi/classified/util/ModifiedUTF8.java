@@ -0,0 +1,217 @@
+package club.hazsi.classified.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A decoder and encoder for the "modified UTF-8" encoding used by {@code CONSTANT_Utf8} entries, as defined in
+ * section 4.4.7 of the Java
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">class file format specifications</a>.
+ * Modified UTF-8 differs from standard UTF-8 in two ways, which is why the platform charset (or even
+ * {@link StandardCharsets#UTF_8}) can't be used to decode it:
+ *
+ * <ul>
+ *     <li>The null character U+0000 is encoded as the two bytes {@code 0xC0 0x80} rather than a single zero
+ *     byte.</li>
+ *     <li>Supplementary characters are not encoded as a single four byte sequence, but as two separately encoded
+ *     surrogate characters of three bytes each.</li>
+ * </ul>
+ *
+ * Almost every string in a class file (class, member and descriptor names) is plain ASCII, so the decoder first
+ * checks whether every byte is below {@code 0x80}. If so, the string is built straight from the byte range without
+ * any further decoding.
+ *
+ * @author Hazsi
+ * @since 1.0
+ */
+public final class ModifiedUTF8 {
+
+    /**
+     * Decodes a range of modified UTF-8 bytes held in a buffer. Heap buffers are decoded straight from their backing
+     * array; other buffers have the range copied out first.
+     *
+     * @param buffer The buffer holding the encoded bytes
+     * @param offset The absolute index of the first encoded byte
+     * @param length The amount of encoded bytes
+     * @return The decoded string
+     * @throws ClassFormatError If the bytes are not valid modified UTF-8
+     */
+    public static String decode(ByteBuffer buffer, int offset, int length) throws ClassFormatError {
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return decode(bytes, 0, length);
+    }
+
+    /**
+     * Decodes a range of modified UTF-8 bytes held in an array.
+     *
+     * @param bytes The array holding the encoded bytes
+     * @param offset The index of the first encoded byte
+     * @param length The amount of encoded bytes
+     * @return The decoded string
+     * @throws ClassFormatError If the bytes are not valid modified UTF-8
+     */
+    public static String decode(byte[] bytes, int offset, int length) throws ClassFormatError {
+        final int end = offset + length;
+        int index = offset;
+
+        while (index < end && bytes[index] >= 0) index++;   // ASCII bytes are the only positive ones
+
+        if (index == end) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);  // ASCII is a subset of latin-1
+        }
+
+        final char[] chars = new char[length];      // Every character takes at least one byte
+        int charCount = 0;
+
+        for (int asciiIndex = offset; asciiIndex < index; asciiIndex++) {
+            chars[charCount++] = (char) bytes[asciiIndex];
+        }
+
+        while (index < end) {
+            final int first = bytes[index] & 0xFF;
+
+            if (first < 0x80) {                                 // 0xxxxxxx
+                chars[charCount++] = (char) first;
+                index++;
+            } else if ((first & 0xE0) == 0xC0) {                // 110xxxxx 10xxxxxx
+                final int second = continuation(bytes, index + 1, end);
+                chars[charCount++] = (char) (((first & 0x1F) << 6) | second);
+                index += 2;
+            } else if ((first & 0xF0) == 0xE0) {                // 1110xxxx 10xxxxxx 10xxxxxx
+                final int second = continuation(bytes, index + 1, end);
+                final int third = continuation(bytes, index + 2, end);
+                chars[charCount++] = (char) (((first & 0x0F) << 12) | (second << 6) | third);
+                index += 3;
+            } else {
+                throw new ClassFormatError("malformed modified UTF-8 string: illegal byte " + first);
+            }
+        }
+
+        return new String(chars, 0, charCount);
+    }
+
+    /**
+     * Checks that a range of bytes held in a buffer is valid modified UTF-8, without decoding it. This is stricter
+     * than {@link #decode(ByteBuffer, int, int)}, which accepts anything it can decode: no byte may be 0 or lie in
+     * the range {@code 0xF0} to {@code 0xFF}, as required by section 4.4.7 of the class file format specifications.
+     *
+     * @param buffer The buffer holding the encoded bytes
+     * @param offset The absolute index of the first encoded byte
+     * @param length The amount of encoded bytes
+     * @throws ClassFormatError If the bytes are not valid modified UTF-8, or run past the limit of the buffer
+     */
+    public static void validate(ByteBuffer buffer, int offset, int length) throws ClassFormatError {
+        checkRange(offset, length, buffer.limit());
+
+        if (buffer.hasArray()) {
+            validate(buffer.array(), buffer.arrayOffset() + offset, length);
+            return;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        validate(bytes, 0, length);
+    }
+
+    /**
+     * Checks that a range of bytes held in an array is valid modified UTF-8, see
+     * {@link #validate(ByteBuffer, int, int)}.
+     *
+     * @param bytes The array holding the encoded bytes
+     * @param offset The index of the first encoded byte
+     * @param length The amount of encoded bytes
+     * @throws ClassFormatError If the bytes are not valid modified UTF-8, or run past the end of the array
+     */
+    public static void validate(byte[] bytes, int offset, int length) throws ClassFormatError {
+        checkRange(offset, length, bytes.length);
+
+        final int end = offset + length;
+        int index = offset;
+
+        while (index < end) {
+            final int first = bytes[index] & 0xFF;
+
+            if (first != 0 && first < 0x80) {                   // 0xxxxxxx, except 0
+                index++;
+            } else if ((first & 0xE0) == 0xC0) {                // 110xxxxx 10xxxxxx
+                continuation(bytes, index + 1, end);
+                index += 2;
+            } else if ((first & 0xF0) == 0xE0) {                // 1110xxxx 10xxxxxx 10xxxxxx
+                continuation(bytes, index + 1, end);
+                continuation(bytes, index + 2, end);
+                index += 3;
+            } else {
+                throw new ClassFormatError("malformed modified UTF-8 string: illegal byte " + first);
+            }
+        }
+    }
+
+    /**
+     * Encodes a string as modified UTF-8, the inverse of {@link #decode(byte[], int, int)}. The returned array holds
+     * only the encoded characters, without the two length bytes of a {@code CONSTANT_Utf8} entry.
+     *
+     * @param string The string to encode
+     * @return The encoded bytes
+     * @throws IllegalArgumentException If the encoded string would be longer than the 65535 bytes a
+     * {@code CONSTANT_Utf8} entry can hold
+     */
+    public static byte[] encode(String string) {
+        final int length = string.length();
+        int encodedLength = length;
+
+        for (int index = 0; index < length; index++) {
+            final char c = string.charAt(index);
+            if (c == 0 || c >= 0x80) encodedLength += c >= 0x800 ? 2 : 1;
+        }
+
+        if (encodedLength > 0xFFFF) throw new IllegalArgumentException("encoded string too long: " + encodedLength);
+
+        final byte[] bytes = new byte[encodedLength];
+        int byteIndex = 0;
+
+        for (int index = 0; index < length; index++) {
+            final char c = string.charAt(index);
+
+            if (c != 0 && c < 0x80) {                           // 0xxxxxxx
+                bytes[byteIndex++] = (byte) c;
+            } else if (c < 0x800) {                             // 110xxxxx 10xxxxxx, which includes U+0000
+                bytes[byteIndex++] = (byte) (0xC0 | (c >> 6));
+                bytes[byteIndex++] = (byte) (0x80 | (c & 0x3F));
+            } else {                                            // 1110xxxx 10xxxxxx 10xxxxxx, surrogates included
+                bytes[byteIndex++] = (byte) (0xE0 | (c >> 12));
+                bytes[byteIndex++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[byteIndex++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Reads the payload of a {@code 10xxxxxx} continuation byte
+     */
+    private static int continuation(byte[] bytes, int index, int end) throws ClassFormatError {
+        if (index >= end) throw new ClassFormatError("malformed modified UTF-8 string: truncated character");
+
+        final int value = bytes[index] & 0xFF;
+        if ((value & 0xC0) != 0x80) {
+            throw new ClassFormatError("malformed modified UTF-8 string: illegal continuation byte " + value);
+        }
+
+        return value & 0x3F;
+    }
+
+    /**
+     * Checks that a range of bytes lies within the bytes available
+     */
+    private static void checkRange(int offset, int length, int available) {
+        if (offset < 0 || length < 0 || offset > available - length) {
+            throw new ClassFormatError("malformed modified UTF-8 string: runs past the end of its bytes");
+        }
+    }
+}